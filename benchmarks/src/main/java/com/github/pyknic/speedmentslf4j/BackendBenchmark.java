@@ -0,0 +1,97 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.spi.ExtendedLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures enabled log calls that go straight to Log4j 2 through the
+ * {@link Log4j2Delegate}, compared with passing the arguments to Log4j 2 as
+ * an array, which is what the generic Slf4j path ends up doing for three or
+ * more arguments and for throwables with arguments. The events go to a
+ * {@code Null} appender, so only the cost of creating them is measured. Run
+ * with {@code -prof gc} to see the number of bytes allocated per call
+ * ({@code gc.alloc.rate.norm}), which should be close to zero for the
+ * delegate when Log4j 2 runs garbage-free.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BackendBenchmark {
+
+    private final static String FQCN = Slf4jLogger.class.getName();
+
+    private ExtendedLogger backend;
+    private Slf4jLogger logger;
+    private Object arg1, arg2, arg3;
+    private Throwable throwable;
+
+    @Setup
+    public void setup() {
+        backend = LogManager.getContext(false).getLogger(BackendBenchmark.class.getName());
+        logger  = new Slf4jLogger(
+            new Slf4jLoggerFactory(),
+            BackendBenchmark.class.getName(),
+            new Log4j2Delegate(backend),
+            new Slf4jLoggerFormatter(),
+            Level.INFO
+        );
+
+        arg1 = "user";
+        arg2 = 42L;
+        arg3 = 17;
+        throwable = new IllegalStateException("Connection reset");
+    }
+
+    @Benchmark
+    public void delegateTwoArgs() {
+        logger.info("Streamed {} rows from {}", arg2, arg1);
+    }
+
+    @Benchmark
+    public void delegateThreeArgs() {
+        logger.info("Streamed {} rows from {} in {} ms", arg2, arg1, arg3);
+    }
+
+    @Benchmark
+    public void delegateThrowable() {
+        logger.warn(throwable, "Could not stream {} rows from {}", arg2, arg1);
+    }
+
+    @Benchmark
+    public void arrayThreeArgs() {
+        backend.logIfEnabled(FQCN, org.apache.logging.log4j.Level.INFO, null,
+            "Streamed {} rows from {} in {} ms", new Object[] {arg2, arg1, arg3});
+    }
+
+    @Benchmark
+    public void arrayThrowable() {
+        backend.logIfEnabled(FQCN, org.apache.logging.log4j.Level.WARN, null,
+            "Could not stream {} rows from {}", new Object[] {arg2, arg1, throwable});
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.impl.NoOpBackendLogger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures logging one message per row for 1 000 rows, one call at a time
+ * and with a {@link LogBatch}, both when the level is enabled and when it is
+ * disabled.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OperationsPerInvocation(BatchBenchmark.ROWS)
+public class BatchBenchmark {
+
+    final static int ROWS = 1000;
+
+    @Param({"INFO", "DEBUG"})
+    public String level;
+
+    private Slf4jLogger logger;
+    private Level msgLevel;
+    private Integer[] rows;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        NoOpBackendLogger.setBlackhole(blackhole);
+
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        logger   = (Slf4jLogger) factory.create(BatchBenchmark.class);
+        msgLevel = Level.valueOf(level);
+        rows     = new Integer[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        NoOpBackendLogger.setBlackhole(null);
+    }
+
+    @Benchmark
+    public void oneByOne() {
+        for (final Integer row : rows) {
+            if (msgLevel == Level.INFO) {
+                logger.info("Persisted {}", row);
+            } else {
+                logger.debug("Persisted {}", row);
+            }
+        }
+    }
+
+    @Benchmark
+    public void batched() {
+        try (LogBatch batch = logger.batch(msgLevel)) {
+            for (final Integer row : rows) {
+                batch.add("Persisted {}", row);
+            }
+        }
+    }
+}
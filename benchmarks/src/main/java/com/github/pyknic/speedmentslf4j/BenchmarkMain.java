@@ -0,0 +1,56 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the usual JMH command line options, but writes
+ * the results as JSON to {@code target/jmh-result.json} unless another
+ * result file or format is given. This makes it easy to keep the results
+ * and compare them between versions.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class BenchmarkMain {
+
+    private final static String DEFAULT_RESULT = "target/jmh-result.json";
+
+    public static void main(String... args) throws CommandLineOptionException, RunnerException {
+        final CommandLineOptions cmd = new CommandLineOptions(args);
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+
+        if (!cmd.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+
+        if (!cmd.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT);
+        }
+
+        new Runner(options.build()).run();
+    }
+
+    private BenchmarkMain() {}
+}
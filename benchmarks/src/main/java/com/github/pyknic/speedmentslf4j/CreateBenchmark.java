@@ -0,0 +1,99 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Logger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures {@link Slf4jLoggerFactory#create(Class)} and
+ * {@link Slf4jLoggerFactory#create(String)} from many threads at once, both
+ * for loggers that already exist and for new ones.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Threads(8)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CreateBenchmark {
+
+    private final static Class<?>[] CLASSES = {
+        String.class, Integer.class, Long.class, Double.class,
+        java.util.ArrayList.class, java.util.HashMap.class,
+        java.util.concurrent.ConcurrentHashMap.class,
+        java.util.concurrent.atomic.AtomicLong.class,
+        java.util.stream.Collectors.class, java.util.Optional.class,
+        java.time.Instant.class, java.time.Duration.class,
+        java.sql.Connection.class, java.sql.PreparedStatement.class,
+        java.sql.ResultSet.class, java.math.BigDecimal.class
+    };
+
+    private final static int NAMES = 1024;
+
+    private Slf4jLoggerFactory factory;
+    private String[] names;
+    private AtomicLong sequence;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+    public void setup() {
+        factory  = new Slf4jLoggerFactory();
+        sequence = new AtomicLong();
+        names    = new String[NAMES];
+        for (int i = 0; i < NAMES; i++) {
+            names[i] = "c.s.g" + (i / 32) + ".Entity" + i;
+            factory.create(names[i]);
+        }
+
+        for (final Class<?> clazz : CLASSES) {
+            factory.create(clazz);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int length) {
+            final int idx = next;
+            next = idx + 1 == length ? 0 : idx + 1;
+            return idx;
+        }
+    }
+
+    @Benchmark
+    public Logger existingByClass(Cursor cursor) {
+        return factory.create(CLASSES[cursor.next(CLASSES.length)]);
+    }
+
+    @Benchmark
+    public Logger existingByName(Cursor cursor) {
+        return factory.create(names[cursor.next(NAMES)]);
+    }
+
+    @Benchmark
+    public Logger newByName() {
+        return factory.create("c.s.New" + sequence.getAndIncrement());
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.impl.NoOpBackendLogger;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a {@code DEBUG} message from a logger at {@code INFO} while no
+ * {@link Elevation} scope is open, while one is open on another thread and
+ * while one is open on the benchmark thread, in which case the message is
+ * logged.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ElevationBenchmark {
+
+    @Param({"none", "otherThread", "thisThread"})
+    public String scope;
+
+    private Logger logger;
+    private String table;
+    private Elevation elevation;
+    private Thread other;
+    private CountDownLatch done;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws InterruptedException {
+        NoOpBackendLogger.setBlackhole(blackhole);
+
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.setLevel("", Level.INFO);
+        logger = factory.create(ElevationBenchmark.class);
+        table  = "`db0`.`user`";
+
+        switch (scope) {
+            case "none": break;
+            case "otherThread": {
+                final CountDownLatch opened = new CountDownLatch(1);
+                done  = new CountDownLatch(1);
+                other = new Thread(() -> {
+                    final Elevation elevated = factory.elevate(Level.DEBUG);
+                    try {
+                        opened.countDown();
+                        done.await();
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        elevated.close();
+                    }
+                });
+                other.start();
+                opened.await();
+                break;
+            }
+            case "thisThread":
+                elevation = factory.elevate(Level.DEBUG);
+                break;
+            default: throw new IllegalArgumentException("Unknown scope '" + scope + "'.");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        if (elevation != null) {
+            elevation.close();
+        }
+
+        if (other != null) {
+            done.countDown();
+            other.join();
+        }
+
+        NoOpBackendLogger.setBlackhole(null);
+    }
+
+    @Benchmark
+    public void debug() {
+        logger.debug("Streaming from {}", table);
+    }
+}
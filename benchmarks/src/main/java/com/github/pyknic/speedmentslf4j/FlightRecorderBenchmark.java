@@ -0,0 +1,77 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.impl.NoOpBackendLogger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a {@code DEBUG} message from a logger at {@code INFO}, with and
+ * without the flight recorder, compared with an {@code INFO} message that is
+ * logged.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FlightRecorderBenchmark {
+
+    @Param({"false", "true"})
+    public boolean recording;
+
+    private Logger logger;
+    private String table;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        NoOpBackendLogger.setBlackhole(blackhole);
+
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.setLevel("", Level.INFO);
+        if (recording) {
+            factory.enableFlightRecorder(Level.DEBUG, 256);
+        }
+
+        logger = factory.create(FlightRecorderBenchmark.class);
+        table  = "`db0`.`user`";
+    }
+
+    @TearDown
+    public void tearDown() {
+        NoOpBackendLogger.setBlackhole(null);
+    }
+
+    @Benchmark
+    public void debugFiltered() {
+        logger.debug("Streaming from {}", table);
+    }
+
+    @Benchmark
+    public void infoEnabled() {
+        logger.info("Streaming from {}", table);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.impl.NoOpBackendLogger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single log call per level, both when the level is enabled and
+ * when the backend has it disabled.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LevelBenchmark {
+
+    @Param({"true", "false"})
+    public boolean enabled;
+
+    private Logger logger;
+    private String sql;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        NoOpBackendLogger.setBlackhole(blackhole);
+        NoOpBackendLogger.setEnabled(enabled);
+
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        logger = factory.create(LevelBenchmark.class);
+        logger.setLevel(Level.TRACE);
+        sql = "SELECT `id`, `name` FROM `db0`.`user` WHERE `id` = ?";
+    }
+
+    @TearDown
+    public void tearDown() {
+        NoOpBackendLogger.setBlackhole(null);
+        NoOpBackendLogger.setEnabled(true);
+    }
+
+    @Benchmark
+    public void trace() {
+        logger.trace("Executing {}", sql);
+    }
+
+    @Benchmark
+    public void debug() {
+        logger.debug("Executing {}", sql);
+    }
+
+    @Benchmark
+    public void info() {
+        logger.info("Executing {}", sql);
+    }
+
+    @Benchmark
+    public void warn() {
+        logger.warn("Executing {}", sql);
+    }
+
+    @Benchmark
+    public void error() {
+        logger.error("Executing {}", sql);
+    }
+
+    @Benchmark
+    public void fatal() {
+        logger.fatal("Executing {}", sql);
+    }
+}
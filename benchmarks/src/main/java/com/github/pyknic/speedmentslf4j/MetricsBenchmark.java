@@ -0,0 +1,80 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.impl.NoOpBackendLogger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of metrics for a message that is emitted and one that is
+ * filtered by level, with metrics disabled, with only counters and with
+ * every call sampled for latency.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MetricsBenchmark {
+
+    @Param({"disabled", "counters", "latency"})
+    public String metrics;
+
+    private Logger logger;
+    private String sql;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        NoOpBackendLogger.setBlackhole(blackhole);
+
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        switch (metrics) {
+            case "disabled": break;
+            case "counters": factory.enableMetrics(0); break;
+            case "latency":  factory.enableMetrics(1); break;
+            default: throw new IllegalArgumentException("Unknown metrics '" + metrics + "'.");
+        }
+
+        logger = factory.create(MetricsBenchmark.class);
+        logger.setLevel(Level.INFO);
+        sql = "SELECT `id`, `name` FROM `db0`.`user` WHERE `id` = ?";
+    }
+
+    @TearDown
+    public void tearDown() {
+        NoOpBackendLogger.setBlackhole(null);
+    }
+
+    @Benchmark
+    public void emitted() {
+        logger.info("Executing {}", sql);
+    }
+
+    @Benchmark
+    public void filtered() {
+        logger.debug("Executing {}", sql);
+    }
+}
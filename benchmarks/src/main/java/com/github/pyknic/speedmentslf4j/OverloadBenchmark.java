@@ -0,0 +1,133 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.impl.NoOpBackendLogger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures every argument-count overload of an enabled log call with 0, 1
+ * and 4 listeners. The listeners read the message, so the cost of rendering
+ * it is included when there are any. Run with {@code -prof gc} to see the
+ * number of bytes allocated per call ({@code gc.alloc.rate.norm}).
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OverloadBenchmark {
+
+    @Param({"0", "1", "4"})
+    public int listeners;
+
+    private Logger logger;
+    private Object arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8;
+    private Throwable throwable;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        NoOpBackendLogger.setBlackhole(blackhole);
+
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        for (int i = 0; i < listeners; i++) {
+            factory.addListener(ev -> blackhole.consume(ev.getMessage()));
+        }
+
+        logger = factory.create(OverloadBenchmark.class);
+        logger.setLevel(Level.TRACE);
+
+        arg1 = "user";
+        arg2 = 42L;
+        arg3 = 17;
+        arg4 = "SELECT * FROM `user`";
+        arg5 = 3.5;
+        arg6 = Boolean.TRUE;
+        arg7 = 'x';
+        arg8 = "done";
+        throwable = new IllegalStateException("Connection reset");
+    }
+
+    @TearDown
+    public void tearDown() {
+        NoOpBackendLogger.setBlackhole(null);
+    }
+
+    @Benchmark
+    public void message() {
+        logger.info("Connection established");
+    }
+
+    @Benchmark
+    public void oneArg() {
+        logger.info("Table {}", arg1);
+    }
+
+    @Benchmark
+    public void twoArgs() {
+        logger.info("Table {} has {} rows", arg1, arg2);
+    }
+
+    @Benchmark
+    public void threeArgs() {
+        logger.info("Table {} has {} rows in {} ms", arg1, arg2, arg3);
+    }
+
+    @Benchmark
+    public void fourArgs() {
+        logger.info("Table {} has {} rows in {} ms: {}", arg1, arg2, arg3, arg4);
+    }
+
+    @Benchmark
+    public void eightArgs() {
+        logger.info("{} {} {} {} {} {} {} {}", arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8);
+    }
+
+    @Benchmark
+    public void throwableOnly() {
+        logger.info(throwable);
+    }
+
+    @Benchmark
+    public void throwableMessage() {
+        logger.info(throwable, "Query failed");
+    }
+
+    @Benchmark
+    public void throwableOneArg() {
+        logger.info(throwable, "Query on {} failed", arg1);
+    }
+
+    @Benchmark
+    public void throwableThreeArgs() {
+        logger.info(throwable, "Query on {} failed after {} rows and {} ms", arg1, arg2, arg3);
+    }
+
+    @Benchmark
+    public void throwableFourArgs() {
+        logger.info(throwable, "Query on {} failed after {} rows and {} ms: {}", arg1, arg2, arg3, arg4);
+    }
+}
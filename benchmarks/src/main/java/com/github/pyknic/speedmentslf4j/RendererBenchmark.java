@@ -0,0 +1,72 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link MessageRenderer} used for listener messages with
+ * {@code String.format}, which the adapter used before, and with the
+ * {@code MessageFormatter} that ships with Slf4j.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RendererBenchmark {
+
+    private String table;
+    private long rows;
+    private int millis;
+    private Object[] args;
+
+    @Setup
+    public void setup() {
+        table  = "`db0`.`user`";
+        rows   = 1_234L;
+        millis = 17;
+        args   = new Object[] {table, rows, millis};
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return String.format("Streamed %s rows from %s in %s ms", rows, table, millis);
+    }
+
+    @Benchmark
+    public String slf4jMessageFormatter() {
+        return MessageFormatter.arrayFormat("Streamed {} rows from {} in {} ms", args).getMessage();
+    }
+
+    @Benchmark
+    public String messageRenderer() {
+        return MessageRenderer.render("Streamed {} rows from {} in {} ms", rows, table, millis);
+    }
+
+    @Benchmark
+    public String messageRendererArray() {
+        return MessageRenderer.render("Streamed {} rows from {} in {} ms", args);
+    }
+}
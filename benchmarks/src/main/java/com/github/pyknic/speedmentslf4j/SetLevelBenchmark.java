@@ -0,0 +1,62 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Slf4jLoggerFactory#setLevel(String, Level)} with 10 000
+ * registered loggers, divided into 100 groups of 100 loggers each.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SetLevelBenchmark {
+
+    private final static int GROUPS = 100, PER_GROUP = 100;
+
+    @Param({"", "c.s.g42", "c.s.g42.Entity4217"})
+    public String path;
+
+    private Slf4jLoggerFactory factory;
+    private boolean toggle;
+
+    @Setup
+    public void setup() {
+        factory = new Slf4jLoggerFactory();
+        for (int g = 0; g < GROUPS; g++) {
+            for (int e = 0; e < PER_GROUP; e++) {
+                factory.create("c.s.g" + g + ".Entity" + (g * PER_GROUP + e));
+            }
+        }
+    }
+
+    @Benchmark
+    public void setLevel() {
+        toggle = !toggle;
+        factory.setLevel(path, toggle ? Level.DEBUG : Level.INFO);
+    }
+}
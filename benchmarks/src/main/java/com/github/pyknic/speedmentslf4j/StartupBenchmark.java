@@ -0,0 +1,124 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the startup of an application that creates a logger for each of
+ * 50 000 classes and sets the level of some of them by class, like Speedment
+ * does when it generates managers for every table. The classes are generated
+ * in a new class loader before every iteration, so that nothing is memoized
+ * between iterations.
+ * <p>
+ * Run with {@code -prof gc} to also see the garbage created by one startup.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class StartupBenchmark {
+
+    private final static int CLASSES = 50_000, PER_PACKAGE = 100;
+
+    private Slf4jLoggerFactory factory;
+    private Class<?>[] classes;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+    public void setup() {
+        factory = new Slf4jLoggerFactory();
+        classes = new SyntheticClassLoader().defineAll();
+    }
+
+    @Benchmark
+    public Slf4jLoggerFactory startup() {
+        for (int i = 0; i < classes.length; i++) {
+            factory.create(classes[i]);
+            if (i % PER_PACKAGE == 0) {
+                factory.setLevel(classes[i], Level.DEBUG);
+            }
+        }
+        return factory;
+    }
+
+    /**
+     * Defines empty classes named like generated Speedment code, for an
+     * example {@code com.company.app.generated.db42.schema.table4217.Table4217Manager}.
+     */
+    private final static class SyntheticClassLoader extends ClassLoader {
+
+        private SyntheticClassLoader() {
+            super(StartupBenchmark.class.getClassLoader());
+        }
+
+        private Class<?>[] defineAll() {
+            final Class<?>[] result = new Class<?>[CLASSES];
+            for (int i = 0; i < CLASSES; i++) {
+                final String name = "com.company.app.generated.db" + (i / PER_PACKAGE)
+                    + ".schema.table" + i + ".Table" + i + "Manager";
+
+                final byte[] bytes = classFile(name.replace('.', '/'));
+                result[i] = defineClass(name, bytes, 0, bytes.length);
+            }
+            return result;
+        }
+
+        // A public class without any members that extends java.lang.Object.
+        // It is never instantiated, so it doesn't need a constructor.
+        private static byte[] classFile(String internalName) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            try (final DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);  // Minor version
+                out.writeShort(52); // Major version (Java 8)
+
+                out.writeShort(5);  // Constant pool count + 1
+                out.writeByte(1);   // #1 Utf8
+                out.writeUTF(internalName);
+                out.writeByte(7);   // #2 Class #1
+                out.writeShort(1);
+                out.writeByte(1);   // #3 Utf8
+                out.writeUTF("java/lang/Object");
+                out.writeByte(7);   // #4 Class #3
+                out.writeShort(3);
+
+                out.writeShort(0x0021); // ACC_PUBLIC | ACC_SUPER
+                out.writeShort(2);      // This class
+                out.writeShort(4);      // Super class
+                out.writeShort(0);      // Interfaces
+                out.writeShort(0);      // Fields
+                out.writeShort(0);      // Methods
+                out.writeShort(0);      // Attributes
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
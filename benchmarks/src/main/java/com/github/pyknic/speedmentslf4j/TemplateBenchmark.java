@@ -0,0 +1,102 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering with cached {@link MessageTemplate}s over a set of
+ * messages like the ones Speedment logs, compared with the
+ * {@code MessageFormatter} in Slf4j that parses the format every time. The
+ * {@code dynamicFormat} benchmark creates a new format string for every call
+ * and therefore always misses the cache, which is the worst case. The cache
+ * hit rate for the message set is printed when the trial ends.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TemplateBenchmark {
+
+    private final static String[] FORMATS = {
+        "Streamed {} rows from {} in {} ms",
+        "Connecting to {} as user {}",
+        "Connection {} returned to the pool after {} ms",
+        "Executing SQL: {} with values {}",
+        "Loaded metadata for {} tables in schema {}",
+        "Transaction {} committed",
+        "Transaction {} rolled back: {}",
+        "Cache hit for {} in {}",
+        "Cache miss for {} in {}",
+        "Generated {} files in {} ms",
+        "Reading column {} of type {} from {}",
+        "Could not convert {} to {}, using {} instead",
+        "Application {} started in {} ms",
+        "Joining {} with {} on {}",
+        "Skipping table {} since it has no primary key",
+        "Using dialect {} for database {} version {}",
+    };
+
+    private Object[] args;
+    private long calls;
+    private int idx;
+
+    @Setup
+    public void setup() {
+        args = new Object[] {"`db0`.`user`", 1_234L, 17};
+    }
+
+    @TearDown
+    public void tearDown() {
+        int hits = 0;
+        for (final String format : FORMATS) {
+            if (MessageTemplate.cached(format) != null) hits++;
+        }
+        System.out.println("Cache hit rate: " + (100 * hits / FORMATS.length)
+            + "% of " + FORMATS.length + " formats after " + calls + " calls");
+    }
+
+    @Benchmark
+    public String cachedTemplate() {
+        return MessageRenderer.render(next(), args);
+    }
+
+    @Benchmark
+    public String slf4jMessageFormatter() {
+        return MessageFormatter.arrayFormat(next(), args).getMessage();
+    }
+
+    @Benchmark
+    public String dynamicFormat() {
+        // A new string every time, so it is never found in the cache
+        return MessageRenderer.render(new String(next()), args);
+    }
+
+    private String next() {
+        calls++;
+        idx = idx + 1 == FORMATS.length ? 0 : idx + 1;
+        return FORMATS[idx];
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.impl.NoOpBackendLogger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures an error that is logged over and over, like during a database
+ * outage, with no throttle, with duplicate suppression and with a rate limit.
+ * Once the first message has been logged, every call is discarded by the
+ * throttle.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ThrottleBenchmark {
+
+    @Param({"none", "duplicates", "rate"})
+    public String throttle;
+
+    private Logger logger;
+    private String sql;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        NoOpBackendLogger.setBlackhole(blackhole);
+
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        switch (throttle) {
+            case "none": break;
+            case "duplicates":
+                factory.setThrottle("", Level.WARN, new Throttle(0, 0, 1, TimeUnit.HOURS));
+                break;
+            case "rate":
+                factory.setThrottle("", Level.WARN, new Throttle(1, 1));
+                break;
+            default: throw new IllegalArgumentException("Unknown throttle '" + throttle + "'.");
+        }
+
+        logger = factory.create(ThrottleBenchmark.class);
+        sql = "SELECT `id`, `name` FROM `db0`.`user` WHERE `id` = ?";
+    }
+
+    @TearDown
+    public void tearDown() {
+        NoOpBackendLogger.setBlackhole(null);
+    }
+
+    @Benchmark
+    public void error() {
+        logger.error("Failed to execute {}", sql);
+    }
+}
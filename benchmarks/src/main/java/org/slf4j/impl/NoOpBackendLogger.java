@@ -0,0 +1,218 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.slf4j.impl;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.helpers.MarkerIgnoringBase;
+
+/**
+ * Slf4j logger that reports every level as enabled but discards the calls, so
+ * that the benchmarks only measure the cost of the adapter. The arguments are
+ * handed to a JMH {@link Blackhole} to prevent dead-code elimination.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class NoOpBackendLogger extends MarkerIgnoringBase {
+
+    private static final long serialVersionUID = 1L;
+
+    private static volatile Blackhole blackhole;
+    private static volatile boolean enabled = true;
+
+    /**
+     * Sets the blackhole that all loggers hand their arguments to.
+     *
+     * @param blackhole  the blackhole, or {@code null} to stop consuming
+     */
+    public static void setBlackhole(Blackhole blackhole) {
+        NoOpBackendLogger.blackhole = blackhole;
+    }
+
+    /**
+     * Sets whether the backend should report levels as enabled. The adapter
+     * caches this, so invalidate the levels of the factory afterwards.
+     *
+     * @param enabled  if levels are enabled
+     */
+    public static void setEnabled(boolean enabled) {
+        NoOpBackendLogger.enabled = enabled;
+    }
+
+    NoOpBackendLogger(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void trace(String msg) {
+        consume(msg, null, null);
+    }
+
+    @Override
+    public void trace(String format, Object arg) {
+        consume(format, arg, null);
+    }
+
+    @Override
+    public void trace(String format, Object arg1, Object arg2) {
+        consume(format, arg1, arg2);
+    }
+
+    @Override
+    public void trace(String format, Object... arguments) {
+        consume(format, arguments, null);
+    }
+
+    @Override
+    public void trace(String msg, Throwable t) {
+        consume(msg, t, null);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void debug(String msg) {
+        consume(msg, null, null);
+    }
+
+    @Override
+    public void debug(String format, Object arg) {
+        consume(format, arg, null);
+    }
+
+    @Override
+    public void debug(String format, Object arg1, Object arg2) {
+        consume(format, arg1, arg2);
+    }
+
+    @Override
+    public void debug(String format, Object... arguments) {
+        consume(format, arguments, null);
+    }
+
+    @Override
+    public void debug(String msg, Throwable t) {
+        consume(msg, t, null);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void info(String msg) {
+        consume(msg, null, null);
+    }
+
+    @Override
+    public void info(String format, Object arg) {
+        consume(format, arg, null);
+    }
+
+    @Override
+    public void info(String format, Object arg1, Object arg2) {
+        consume(format, arg1, arg2);
+    }
+
+    @Override
+    public void info(String format, Object... arguments) {
+        consume(format, arguments, null);
+    }
+
+    @Override
+    public void info(String msg, Throwable t) {
+        consume(msg, t, null);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void warn(String msg) {
+        consume(msg, null, null);
+    }
+
+    @Override
+    public void warn(String format, Object arg) {
+        consume(format, arg, null);
+    }
+
+    @Override
+    public void warn(String format, Object arg1, Object arg2) {
+        consume(format, arg1, arg2);
+    }
+
+    @Override
+    public void warn(String format, Object... arguments) {
+        consume(format, arguments, null);
+    }
+
+    @Override
+    public void warn(String msg, Throwable t) {
+        consume(msg, t, null);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void error(String msg) {
+        consume(msg, null, null);
+    }
+
+    @Override
+    public void error(String format, Object arg) {
+        consume(format, arg, null);
+    }
+
+    @Override
+    public void error(String format, Object arg1, Object arg2) {
+        consume(format, arg1, arg2);
+    }
+
+    @Override
+    public void error(String format, Object... arguments) {
+        consume(format, arguments, null);
+    }
+
+    @Override
+    public void error(String msg, Throwable t) {
+        consume(msg, t, null);
+    }
+
+    private static void consume(String format, Object arg1, Object arg2) {
+        final Blackhole bh = blackhole;
+        if (bh != null) {
+            bh.consume(format);
+            bh.consume(arg1);
+            bh.consume(arg2);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.slf4j.impl;
+
+import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.spi.LoggerFactoryBinder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds Slf4j to the {@link NoOpBackendLogger} in the benchmarks.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class StaticLoggerBinder implements LoggerFactoryBinder {
+
+    // Expected by org.slf4j.LoggerFactory, must not be final
+    public static String REQUESTED_API_VERSION = "1.7.25";
+
+    private static final StaticLoggerBinder SINGLETON = new StaticLoggerBinder();
+
+    public static StaticLoggerBinder getSingleton() {
+        return SINGLETON;
+    }
+
+    private final ILoggerFactory factory;
+
+    private StaticLoggerBinder() {
+        final Map<String, Logger> loggers = new ConcurrentHashMap<>();
+        this.factory = name -> loggers.computeIfAbsent(name, NoOpBackendLogger::new);
+    }
+
+    @Override
+    public ILoggerFactory getLoggerFactory() {
+        return factory;
+    }
+
+    @Override
+    public String getLoggerFactoryClassStr() {
+        return NoOpBackendLogger.class.getName();
+    }
+}
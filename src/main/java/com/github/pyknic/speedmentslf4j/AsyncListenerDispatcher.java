@@ -0,0 +1,401 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.LoggerEvent;
+import com.speedment.common.logger.LoggerEventListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Delivers logger events to the listeners on one or more background threads
+ * instead of on the thread that logged them. Events are written to a bounded
+ * ring of slots that are allocated up front and reused. What happens when the
+ * ring is full is decided by the {@link Backpressure} policy.
+ * <p>
+ * The logging thread only claims a slot with a compare-and-set and copies the
+ * format and the argument references into it. No lock is taken, and the
+ * message is not rendered until a listener asks for it on a consumer thread.
+ * Since the caller may change a mutable argument once the log call returns,
+ * a listener can see the argument in its new state. If that matters, the
+ * arguments can instead be snapshotted on the logging thread, see
+ * {@link Slf4jLoggerFactory#enableAsyncListeners(int, int, Backpressure, boolean)}.
+ * Strings, boxed primitives, enums, classes, throwables and the
+ * {@code java.time} value types are then kept as they are. Any other argument
+ * is rendered into a string, so {@link StructuredLoggerEvent#getArguments()}
+ * returns that string instead of the original object.
+ * <p>
+ * The ring is not an {@code ArrayBlockingQueue}, since that would need a new
+ * event object per message on the logging thread and a lock shared by every
+ * logging thread. Each slot instead has a sequence number that tells whether
+ * it is free or holds an event for a certain position, so producers and
+ * consumers only compete for the position counters. An event offered while
+ * the dispatcher is closing is either drained by {@link #close()} or
+ * delivered by the logging thread itself, so that no event is lost in
+ * between.
+ * <p>
+ * With more than one consumer thread, listeners may see events out of order.
+ * <p>
+ * Instances are created with
+ * {@link Slf4jLoggerFactory#enableAsyncListeners(int, int, Backpressure)}.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class AsyncListenerDispatcher implements AutoCloseable {
+
+    /**
+     * What to do with a new event when the ring buffer is full.
+     */
+    public enum Backpressure {
+
+        /**
+         * Block the logging thread until there is room in the buffer.
+         */
+        BLOCK,
+
+        /**
+         * Discard the new event.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Discard the oldest event in the buffer to make room for the new one.
+         */
+        DROP_OLDEST
+    }
+
+    // How long an idle consumer sleeps if no producer wakes it up, and how
+    // long a blocked producer waits before it looks for room again
+    private final static long IDLE_NANOS    = 100_000_000;
+    private final static long BLOCKED_NANOS = 10_000;
+
+    private final Slot[] slots;
+    private final Backpressure backpressure;
+    private final boolean snapshotArguments;
+    private final Thread[] consumers;
+
+    // The slot for position p is free for it if its sequence is 2p, and
+    // holds the event of position p if its sequence is 2p + 1. Keeping the
+    // two apart also works with a single slot.
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueued, dequeued; // Next position to write and read
+    private final AtomicLong dropped;
+    private final AtomicInteger sleeping;        // Consumers that are parked
+
+    private volatile boolean closed;
+
+    AsyncListenerDispatcher(int capacity, int consumers, Backpressure backpressure, boolean snapshotArguments) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity + ".");
+        }
+
+        if (consumers <= 0) {
+            throw new IllegalArgumentException("Number of consumers must be positive, was " + consumers + ".");
+        }
+
+        this.backpressure      = requireNonNull(backpressure);
+        this.snapshotArguments = snapshotArguments;
+        this.enqueued          = new AtomicLong();
+        this.dequeued          = new AtomicLong();
+        this.dropped           = new AtomicLong();
+        this.sleeping          = new AtomicInteger();
+        this.sequences         = new AtomicLongArray(capacity);
+        this.slots             = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, 2L * i);
+        }
+
+        this.consumers = new Thread[consumers];
+        for (int i = 0; i < consumers; i++) {
+            final Thread thread = new Thread(this::consume, "speedment-slf4j-listeners-" + i);
+            thread.setDaemon(true);
+            this.consumers[i] = thread;
+        }
+
+        // Started once every thread is known, since consumers compare with
+        // the array to tell if a listener logs
+        for (final Thread thread : this.consumers) {
+            thread.start();
+        }
+    }
+
+    /**
+     * Returns the number of slots in the ring buffer.
+     *
+     * @return  the capacity
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the policy used when the ring buffer is full.
+     *
+     * @return  the backpressure policy
+     */
+    public Backpressure getBackpressure() {
+        return backpressure;
+    }
+
+    /**
+     * Returns if the arguments are snapshotted on the logging thread instead
+     * of being passed to the listeners by reference.
+     *
+     * @return  {@code true} if arguments are snapshotted
+     */
+    public boolean isSnapshottingArguments() {
+        return snapshotArguments;
+    }
+
+    /**
+     * Returns the number of events that are waiting to be delivered. Since
+     * the ring is updated without a lock, the number is only an estimate
+     * while events are being logged.
+     *
+     * @return  the current queue depth
+     */
+    public int getQueueDepth() {
+        final long depth = enqueued.get() - dequeued.get();
+        return (int) Math.max(0, Math.min(depth, slots.length));
+    }
+
+    /**
+     * Returns the total number of events that have been discarded because the
+     * ring buffer was full.
+     *
+     * @return  the number of dropped events
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops accepting new events, waits for the events already in the buffer
+     * to be delivered and then stops the consumer threads.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (final Thread consumer : consumers) {
+            LockSupport.unpark(consumer);
+        }
+
+        boolean interrupted = false;
+        for (final Thread consumer : consumers) {
+            if (consumer != Thread.currentThread()) {
+                try {
+                    consumer.join();
+                } catch (final InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        drain();
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The first 'leading' arguments are passed as arg1 to arg3 and the rest
+    // in 'args', so that the logging thread does not have to build an array.
+    // Returns false if the event should be delivered synchronously instead,
+    // either because the dispatcher is closed or because a listener logged
+    // from one of the consumer threads, which could otherwise deadlock.
+
+    boolean offer(LoggerEventListener[] listeners, Level level, String name, String format,
+               int leading, Object arg1, Object arg2, Object arg3, Object[] args, Throwable thrown) {
+
+        if (closed || isConsumerThread()) {
+            return false;
+        }
+
+        // Rendered before a slot is claimed, since toString() might log
+        if (snapshotArguments) {
+            arg1 = MessageRenderer.snapshot(arg1);
+            arg2 = MessageRenderer.snapshot(arg2);
+            arg3 = MessageRenderer.snapshot(arg3);
+            args = MessageRenderer.snapshot(args);
+        }
+
+        while (true) {
+            final long pos = enqueued.get();
+            final int idx  = index(pos);
+            final long dif = sequences.get(idx) - 2 * pos;
+
+            if (dif == 0) {
+                if (enqueued.compareAndSet(pos, pos + 1)) {
+                    slots[idx].set(listeners, level, name, format, leading, arg1, arg2, arg3, args, thrown);
+                    sequences.set(idx, 2 * pos + 1);
+                    break;
+                }
+            } else if (dif < 0) {
+                switch (backpressure) {
+                    case BLOCK:
+                        if (closed) {
+                            return false;
+                        }
+                        LockSupport.parkNanos(this, BLOCKED_NANOS);
+                        break;
+
+                    case DROP_NEWEST:
+                        dropped.incrementAndGet();
+                        return true;
+
+                    case DROP_OLDEST:
+                        if (poll(false)) {
+                            dropped.incrementAndGet();
+                        }
+                        break;
+
+                    default: throw new UnsupportedOperationException();
+                }
+            }
+        }
+
+        if (sleeping.get() > 0) {
+            for (final Thread consumer : consumers) {
+                LockSupport.unpark(consumer);
+            }
+        }
+
+        // The consumers might have stopped before the event was published
+        if (closed) {
+            drain();
+        }
+
+        return true;
+    }
+
+    private void consume() {
+        while (true) {
+            if (poll(true)) {
+                continue;
+            }
+
+            if (closed) {
+                return;
+            }
+
+            // Producers only wake consumers up that have announced that they
+            // sleep, so the ring is checked once more after announcing it
+            sleeping.incrementAndGet();
+            try {
+                if (!hasNext() && !closed) {
+                    LockSupport.parkNanos(this, IDLE_NANOS);
+                }
+            } finally {
+                sleeping.decrementAndGet();
+            }
+        }
+    }
+
+    private void drain() {
+        while (poll(true)) {
+            // Delivered
+        }
+    }
+
+    // Takes the oldest event from the ring and delivers it, or discards it
+    // if 'deliver' is false. Returns false if there was no event to take.
+    private boolean poll(boolean deliver) {
+        while (true) {
+            final long pos = dequeued.get();
+            final int idx  = index(pos);
+            final long dif = sequences.get(idx) - (2 * pos + 1);
+
+            if (dif == 0) {
+                if (dequeued.compareAndSet(pos, pos + 1)) {
+                    final Slot slot = slots[idx];
+                    final LoggerEventListener[] listeners = slot.listeners;
+                    final LoggerEvent event = deliver ? slot.toEvent() : null;
+                    slot.clear();
+                    sequences.set(idx, 2 * (pos + slots.length));
+
+                    if (deliver) {
+                        ListenerArrays.deliverIsolated(listeners, event);
+                    }
+                    return true;
+                }
+            } else if (dif < 0) {
+                return false; // Empty, or the event is still being written
+            }
+        }
+    }
+
+    private boolean hasNext() {
+        final long pos = dequeued.get();
+        return sequences.get(index(pos)) == 2 * pos + 1;
+    }
+
+    private boolean isConsumerThread() {
+        final Thread current = Thread.currentThread();
+        for (final Thread consumer : consumers) {
+            if (consumer == current) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int index(long pos) {
+        return (int) (pos % slots.length);
+    }
+
+    private final static class Slot {
+
+        private LoggerEventListener[] listeners;
+        private Level level;
+        private String name, format;
+        private int leading;
+        private Object arg1, arg2, arg3;
+        private Object[] args;
+        private Throwable thrown;
+
+        private void set(LoggerEventListener[] listeners, Level level, String name, String format,
+                         int leading, Object arg1, Object arg2, Object arg3, Object[] args, Throwable thrown) {
+            this.listeners = listeners;
+            this.level     = level;
+            this.name      = name;
+            this.format    = format;
+            this.leading   = leading;
+            this.arg1      = arg1;
+            this.arg2      = arg2;
+            this.arg3      = arg3;
+            this.args      = args;
+            this.thrown    = thrown;
+        }
+
+        private LoggerEvent toEvent() {
+            return new LazyLoggerEvent(level, name, format,
+                LazyLoggerEvent.arguments(leading, arg1, arg2, arg3, args), thrown);
+        }
+
+        private void clear() {
+            set(null, null, null, null, 0, null, null, null, null, null);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import org.apache.logging.log4j.LogManager;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Invalidates the levels of a factory whenever the Slf4j backend announces
+ * that it has been reconfigured.
+ * <ul>
+ *     <li>Logback notifies a {@code LoggerContextListener} when the level of
+ *         a logger changes and when the context is reset or restarted,
+ *         which is what happens when the configuration file is reloaded.
+ *     <li>Log4j 2 notifies a {@code PropertyChangeListener} on its
+ *         {@code LoggerContext} when the configuration is replaced and when
+ *         the loggers are updated, which {@code Configurator.setLevel} does.
+ * </ul>
+ * Neither is a dependency of the adapter, so both are looked up
+ * reflectively. The listeners only hold the generation of the factory
+ * weakly, so that they do not keep it from being garbage collected.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class BackendWatcher {
+
+    private final static String LOGBACK_CONTEXT  = "ch.qos.logback.classic.LoggerContext";
+    private final static String LOGBACK_LISTENER = "ch.qos.logback.classic.spi.LoggerContextListener";
+    private final static String LOG4J2_FACTORY   = "org.apache.logging.slf4j.Log4jLoggerFactory";
+    private final static String LOG4J2_CONTEXT   = "org.apache.logging.log4j.core.LoggerContext";
+
+    /**
+     * Starts watching the bound Slf4j backend for reconfigurations, if it is
+     * one that announces them.
+     *
+     * @param generation  the generation to increment on every change
+     * @return            {@code true} if the backend is watched, otherwise
+     *                    the caller has to detect changes on its own
+     */
+    static boolean watch(AtomicInteger generation) {
+        final ILoggerFactory backend = LoggerFactory.getILoggerFactory();
+        try {
+            switch (backend.getClass().getName()) {
+                case LOGBACK_CONTEXT: return watchLogback(backend, generation);
+                case LOG4J2_FACTORY:  return watchLog4j2(
+                    LogManager.getContext(BackendWatcher.class.getClassLoader(), false),
+                    generation
+                );
+                default: return false;
+            }
+        } catch (final ReflectiveOperationException | RuntimeException | LinkageError ex) {
+            // An unexpected version of the backend. Treat it as one that does
+            // not announce changes.
+            return false;
+        }
+    }
+
+    /**
+     * Adds a {@code LoggerContextListener} to the specified Logback
+     * {@code LoggerContext} that increments the generation on every event.
+     * The listener survives resets of the context.
+     *
+     * @param context     the Logback logger context
+     * @param generation  the generation to increment
+     * @return            {@code true}
+     * @throws ReflectiveOperationException  if the context is not Logback
+     */
+    static boolean watchLogback(Object context, AtomicInteger generation)
+            throws ReflectiveOperationException {
+
+        final Class<?> type = Class.forName(LOGBACK_LISTENER, false, context.getClass().getClassLoader());
+        final Method add = context.getClass().getMethod("addListener", type);
+        add.invoke(context, Proxy.newProxyInstance(type.getClassLoader(),
+            new Class<?>[] {type}, new Listener(generation)));
+        return true;
+    }
+
+    /**
+     * Adds a {@code PropertyChangeListener} to the specified Log4j 2
+     * {@code LoggerContext} that increments the generation on every event.
+     *
+     * @param context     the Log4j 2 logger context
+     * @param generation  the generation to increment
+     * @return            {@code true} if the context is the one of Log4j 2
+     *                    core, otherwise {@code false}
+     * @throws ReflectiveOperationException  if the context could not be
+     *                                       watched
+     */
+    static boolean watchLog4j2(Object context, AtomicInteger generation)
+            throws ReflectiveOperationException {
+
+        if (!LOG4J2_CONTEXT.equals(context.getClass().getName())) {
+            return false;
+        }
+
+        final Method add = context.getClass()
+            .getMethod("addPropertyChangeListener", PropertyChangeListener.class);
+        add.invoke(context, new Listener(generation));
+        return true;
+    }
+
+    /**
+     * Listener for both backends. Every event is taken as a change, since
+     * they are rare and a spurious invalidation only makes the loggers ask
+     * the backend once more.
+     */
+    private final static class Listener implements InvocationHandler, PropertyChangeListener {
+
+        private final WeakReference<AtomicInteger> generation;
+
+        private Listener(AtomicInteger generation) {
+            this.generation = new WeakReference<>(generation);
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            invalidate();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "isResetResistant": return true;
+                case "equals":           return proxy == args[0];
+                case "hashCode":         return System.identityHashCode(proxy);
+                case "toString":         return BackendWatcher.class.getSimpleName();
+                default:
+                    invalidate();
+                    return null;
+            }
+        }
+
+        private void invalidate() {
+            final AtomicInteger gen = generation.get();
+            if (gen != null) {
+                gen.incrementAndGet();
+            }
+        }
+    }
+
+    private BackendWatcher() {}
+}
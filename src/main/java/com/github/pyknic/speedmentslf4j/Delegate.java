@@ -0,0 +1,81 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+
+/**
+ * The calls that a {@link Slf4jLogger} makes to the logging backend. The
+ * generic implementation goes through the Slf4j API, but backends that have
+ * faster or more precise entry points get implementations of their own,
+ * which are selected by {@link Delegates#detect()} when the factory is
+ * created.
+ * <p>
+ * The level has already been checked when any of the {@code log}-methods is
+ * invoked. A {@code FATAL} message is logged as an error if the backend has
+ * no such level.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+interface Delegate {
+
+    /**
+     * Returns the name of the backend logger.
+     *
+     * @return  the name
+     */
+    String getName();
+
+    /**
+     * Returns {@code true} if the backend logs messages with the specified
+     * level.
+     *
+     * @param level  the level
+     * @return       {@code true} if the level is enabled in the backend
+     */
+    boolean isEnabled(Level level);
+
+    void log(Level level, String message);
+
+    void log(Level level, String format, Object arg);
+
+    void log(Level level, String format, Object arg1, Object arg2);
+
+    void log(Level level, String format, Object arg1, Object arg2, Object arg3);
+
+    void log(Level level, String format, Object[] args);
+
+    void log(Level level, String message, Throwable thrw);
+
+    /**
+     * Logs a message with arguments and a throwable. The first
+     * {@code leading} arguments are given as {@code arg1} to {@code arg3} and
+     * the rest in {@code args}.
+     *
+     * @param level    the level
+     * @param thrw     the throwable
+     * @param format   the message format with {@code {}} placeholders
+     * @param leading  the number of leading arguments (0 to 3)
+     * @param arg1     the first argument, if leading is at least 1
+     * @param arg2     the second argument, if leading is at least 2
+     * @param arg3     the third argument, if leading is 3
+     * @param args     the remaining arguments, or {@code null}
+     */
+    void log(Level level, Throwable thrw, String format, int leading,
+             Object arg1, Object arg2, Object arg3, Object[] args);
+}
@@ -0,0 +1,137 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LocationAwareLogger;
+
+import java.util.function.Function;
+
+/**
+ * Selects the {@link Delegate} to use for the Slf4j backend that is bound.
+ * <ul>
+ *     <li>If the backend is Log4j 2 and its API is on the class path, the
+ *         Log4j 2 logger is used directly, which does not allocate anything
+ *         for messages with up to ten arguments if Log4j 2 is configured to
+ *         be garbage-free.
+ *     <li>If the backend supports {@link LocationAwareLogger}, like Logback,
+ *         messages are logged through it, so that the caller data in the
+ *         backend points at the code that called the Speedment logger
+ *         instead of at the adapter. Only Logback formats the arguments
+ *         given to {@link LocationAwareLogger#log}, so for other backends,
+ *         like slf4j-jdk14 and slf4j-log4j12, the message is rendered first.
+ *     <li>Otherwise the generic Slf4j API is used.
+ * </ul>
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Delegates {
+
+    private final static String LOG4J2_FACTORY = "org.apache.logging.slf4j.Log4jLoggerFactory";
+    private final static String LOG4J2_LOGGER  = "org.apache.logging.log4j.spi.ExtendedLogger";
+    private final static String LOGBACK_LOGGER = "ch.qos.logback.classic.Logger";
+
+    /**
+     * Returns a function that creates the best delegate for a logger of the
+     * bound backend.
+     *
+     * @return  the delegate constructor
+     */
+    static Function<Logger, Delegate> detect() {
+        final ILoggerFactory backend = LoggerFactory.getILoggerFactory();
+        if (LOG4J2_FACTORY.equals(backend.getClass().getName()) && isPresent(LOG4J2_LOGGER)) {
+            return inner -> new Log4j2Delegate(inner.getName());
+        }
+
+        return Delegates::slf4j;
+    }
+
+    /**
+     * Returns the delegate to use for a logger of a backend that is accessed
+     * through the Slf4j API.
+     *
+     * @param inner  the Slf4j logger
+     * @return       the delegate
+     */
+    static Delegate slf4j(Logger inner) {
+        if (inner instanceof LocationAwareLogger) {
+            final boolean formatsArguments = LOGBACK_LOGGER.equals(inner.getClass().getName());
+            return new LocationAwareDelegate((LocationAwareLogger) inner, formatsArguments);
+        } else {
+            return new Slf4jDelegate(inner);
+        }
+    }
+
+    /**
+     * Returns the arguments as one array with the throwable last, which is
+     * where Slf4j and Log4j 2 look for the cause of the message. The first
+     * {@code leading} arguments are given as {@code arg1} to {@code arg3} and
+     * the rest in {@code args}.
+     *
+     * @param leading  the number of leading arguments (0 to 3)
+     * @param arg1     the first argument, if leading is at least 1
+     * @param arg2     the second argument, if leading is at least 2
+     * @param arg3     the third argument, if leading is 3
+     * @param args     the remaining arguments, or {@code null}
+     * @param thrw     the throwable
+     * @return         the arguments followed by the throwable
+     */
+    static Object[] withThrowable(int leading, Object arg1, Object arg2, Object arg3,
+            Object[] args, Throwable thrw) {
+
+        final int rest = args == null ? 0 : args.length;
+        final Object[] array = new Object[leading + rest + 1];
+        if (leading > 0) array[0] = arg1;
+        if (leading > 1) array[1] = arg2;
+        if (leading > 2) array[2] = arg3;
+        if (rest > 0) {
+            System.arraycopy(args, 0, array, leading, rest);
+        }
+
+        array[leading + rest] = thrw;
+        return array;
+    }
+
+    /**
+     * Returns if a throwable given last in the arguments could end up in a
+     * placeholder of the format instead of being taken as the cause of the
+     * message. Slf4j 1.7 always takes it as the cause, but Log4j 2 and other
+     * formatters only do so if there are more arguments than placeholders.
+     *
+     * @param format  the message format
+     * @param count   the number of arguments, not counting the throwable
+     * @return        {@code true} if the format has a placeholder left for
+     *                the throwable
+     */
+    static boolean hasPlaceholderFor(String format, int count) {
+        return MessageTemplate.of(format).placeholders() > count;
+    }
+
+    private static boolean isPresent(String className) {
+        try {
+            Class.forName(className, false, Delegates.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    private Delegates() {}
+}
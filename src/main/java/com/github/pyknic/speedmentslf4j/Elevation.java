@@ -0,0 +1,294 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.slf4j.MDC;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A scope in which the loggers of a factory let through messages below their
+ * level, for the current thread only. This makes it possible to get for
+ * example {@code DEBUG} output for a single slow request without changing
+ * the level for everyone else. Scopes are opened with
+ * {@link Slf4jLoggerFactory#elevate(Level, String)} and closed with
+ * {@link #close()}, preferably in a try-with-resources statement. The path
+ * is matched against the same logger names as in
+ * {@link Slf4jLoggerFactory#setLevel(String, Level)}, where the packages of
+ * loggers created for a class are abbreviated:
+ * <pre>{@code
+ * try (Elevation scope = factory.elevate(Level.DEBUG, "c.s.r")) {
+ *     executor.execute(Elevation.propagate(task));
+ *     ...
+ * }
+ * }</pre>
+ * <p>
+ * The elevation is not inherited by other threads. Tasks that should run with
+ * the elevation of the current thread, on an executor or on a new thread,
+ * virtual or not, are wrapped with one of the {@code propagate}-methods.
+ * A propagated task that runs after the scope was closed is not elevated.
+ * <p>
+ * While a scope is active on the thread, the Slf4j MDC key
+ * {@value #MDC_KEY} is set to the name of the level, so that the backend can
+ * be configured to let the messages through as well, for example with the
+ * {@code DynamicThresholdFilter} in Logback or Log4j 2. Listeners receive the
+ * messages regardless.
+ * <p>
+ * While no scope is open anywhere in the JVM, checking for one costs a single
+ * read and branch, and only for messages that are filtered by level anyway.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class Elevation implements AutoCloseable {
+
+    /**
+     * The MDC key that is set to the elevated level while a scope is active.
+     */
+    public final static String MDC_KEY = "speedment.elevation";
+
+    // The number of scopes that are open in the JVM, so that the thread local
+    // only has to be looked up while at least one is.
+    private final static AtomicInteger OPEN = new AtomicInteger();
+
+    private final static ThreadLocal<Elevation> CURRENT = new ThreadLocal<>();
+
+    private final Slf4jLoggerFactory factory;
+    private final Level level;
+    private final String path, prefix;
+    private final Elevation parent; // Nullable, the scope that was active before
+    private final Thread owner;
+    private final String previousMdc; // Nullable
+    private volatile boolean open;
+
+    /**
+     * Returns a task that runs the specified task with the elevation that is
+     * active on the current thread, if any.
+     *
+     * @param task  the task to wrap
+     * @return      the wrapped task, or the same task if no scope is active
+     */
+    public static Runnable propagate(Runnable task) {
+        requireNonNull(task);
+        final Elevation captured = CURRENT.get();
+        if (captured == null) {
+            return task;
+        }
+
+        return () -> {
+            if (!captured.open) {
+                task.run();
+                return;
+            }
+
+            final Elevation previous = CURRENT.get();
+            final String previousMdc = enter(captured);
+            try {
+                task.run();
+            } finally {
+                exit(previous, previousMdc);
+            }
+        };
+    }
+
+    /**
+     * Returns a task that calls the specified task with the elevation that is
+     * active on the current thread, if any.
+     *
+     * @param <T>   the result type
+     * @param task  the task to wrap
+     * @return      the wrapped task, or the same task if no scope is active
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        requireNonNull(task);
+        final Elevation captured = CURRENT.get();
+        if (captured == null) {
+            return task;
+        }
+
+        return () -> {
+            if (!captured.open) {
+                return task.call();
+            }
+
+            final Elevation previous = CURRENT.get();
+            final String previousMdc = enter(captured);
+            try {
+                return task.call();
+            } finally {
+                exit(previous, previousMdc);
+            }
+        };
+    }
+
+    /**
+     * Returns an executor that runs every task with the elevation that is
+     * active on the thread that submits it.
+     *
+     * @param executor  the executor to wrap
+     * @return          the wrapped executor
+     */
+    public static Executor propagating(Executor executor) {
+        requireNonNull(executor);
+        return task -> executor.execute(propagate(task));
+    }
+
+    /**
+     * Returns the elevated level.
+     *
+     * @return  the level
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the path of the loggers that are elevated. An empty string
+     * means every logger of the factory.
+     *
+     * @return  the path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns {@code true} until the scope is closed.
+     *
+     * @return  {@code true} if the scope is open
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Closes the scope, which makes the closest scope opened before it that
+     * is still open active again. This must be done by the thread that opened
+     * it. Scopes may be closed in any order; a scope that is closed while a
+     * scope opened after it is still active stops elevating right away, and
+     * is skipped when that scope is closed. Closing a scope more than once
+     * has no effect.
+     */
+    @Override
+    public void close() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException(
+                "A scope must be closed by the thread that opened it."
+            );
+        }
+
+        if (open) {
+            open = false;
+            OPEN.decrementAndGet();
+            if (CURRENT.get() == this) {
+                restoreParent();
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if at least one scope is open somewhere. This is
+     * checked before anything else, so that the common case is a single read.
+     *
+     * @return  {@code true} if there might be an elevation to consider
+     */
+    static boolean isAnyOpen() {
+        return OPEN.get() != 0;
+    }
+
+    /**
+     * Returns {@code true} if a message with the specified level from the
+     * specified logger is let through by a scope that is active on the
+     * current thread.
+     *
+     * @param factory   the factory of the logger
+     * @param name      the name the logger is registered under in the factory
+     * @param msgLevel  the level of the message
+     * @return          {@code true} if the message is let through
+     */
+    static boolean permits(Slf4jLoggerFactory factory, String name, Level msgLevel) {
+        for (Elevation scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            if (scope.open
+            &&  scope.factory == factory
+            &&  msgLevel.isEqualOrHigherThan(scope.level)
+            &&  scope.matches(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Elevation(Slf4jLoggerFactory factory, Level level, String path) {
+        this.factory     = requireNonNull(factory);
+        this.level       = requireNonNull(level);
+        this.path        = requireNonNull(path);
+        this.prefix      = path + ".";
+        this.owner       = Thread.currentThread();
+        this.parent      = CURRENT.get();
+        this.previousMdc = MDC.get(MDC_KEY);
+        this.open        = true;
+
+        OPEN.incrementAndGet();
+        CURRENT.set(this);
+        MDC.put(MDC_KEY, level.name());
+    }
+
+    private boolean matches(String name) {
+        return path.isEmpty() || name.equals(path) || name.startsWith(prefix);
+    }
+
+    // Makes the closest open scope that this thread opened before this one
+    // active, and restores the MDC to the value it had when that scope was
+    // active. A scope entered from another thread ends the search, since the
+    // propagated task that entered it restores the rest when it returns.
+    private void restoreParent() {
+        String mdc = previousMdc;
+        Elevation scope = parent;
+        while (scope != null && !scope.open && scope.owner == owner) {
+            mdc   = scope.previousMdc;
+            scope = scope.parent;
+        }
+
+        CURRENT.set(scope);
+        putMdc(mdc);
+    }
+
+    private static String enter(Elevation scope) {
+        final String previousMdc = MDC.get(MDC_KEY);
+        CURRENT.set(scope);
+        MDC.put(MDC_KEY, scope.level.name());
+        return previousMdc;
+    }
+
+    private static void exit(Elevation previous, String previousMdc) {
+        CURRENT.set(previous);
+        putMdc(previousMdc);
+    }
+
+    private static void putMdc(String value) {
+        if (value == null) {
+            MDC.remove(MDC_KEY);
+        } else {
+            MDC.put(MDC_KEY, value);
+        }
+    }
+}
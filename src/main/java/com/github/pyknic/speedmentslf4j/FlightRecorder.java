@@ -0,0 +1,245 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+
+import java.lang.ref.WeakReference;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps the latest messages that were not logged because their level was
+ * disabled in a ring for each thread, and logs them when an {@code ERROR} or
+ * {@code FATAL} message is logged on the same thread. Messages that were
+ * sampled out or throttled are not recorded, since they were discarded on
+ * purpose. Messages with the level {@code ERROR} or higher are never
+ * recorded.
+ * <p>
+ * The level, the format, the arguments and the time are kept. The message is
+ * not rendered when it is recorded, so that recording costs far less than
+ * logging. Since a ring may hold on to a message for as long as its thread
+ * lives, the arguments are kept as a {@link MessageRenderer#snapshot(Object)}:
+ * strings, boxed primitives, throwables and other values that can't change
+ * are kept as they are, and anything else is rendered into a string right
+ * away. The logger is only referenced weakly, so the ring does not keep a
+ * logger alive, and messages of a logger that has been collected are dropped.
+ * The ring of a thread is allocated once and emptied after each replay.
+ * Messages logged on virtual threads are not recorded, since they would need
+ * a ring for each of them.
+ * <p>
+ * Instances are created with
+ * {@link Slf4jLoggerFactory#enableFlightRecorder(Level, int)}.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class FlightRecorder {
+
+    private final static int LOWEST_UNRECORDED = Level.ERROR.ordinal();
+
+    private final int lowest;
+    private final int capacity;
+    private final ThreadLocal<Ring> rings;
+
+    FlightRecorder(Level level, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity + ".");
+        }
+
+        this.lowest   = requireNonNull(level).ordinal();
+        this.capacity = capacity;
+        this.rings    = new ThreadLocal<>();
+    }
+
+    // The first 'leading' arguments are passed as arg1 to arg3 and the rest
+    // in 'args', in the same way as to the listeners.
+
+    void record(Slf4jLogger logger, Level msgLevel, Throwable thrw, String format,
+            int leading, Object arg1, Object arg2, Object arg3, Object[] args) {
+
+        final int ordinal = msgLevel.ordinal();
+        if (ordinal < lowest || ordinal >= LOWEST_UNRECORDED
+        ||  !Platform.isThreadLocalFriendly()) {
+            return;
+        }
+
+        Ring ring = rings.get();
+        if (ring == null) {
+            rings.set(ring = new Ring(capacity));
+        } else if (ring.replaying) {
+            // A listener or an argument logs while the ring is replayed
+            return;
+        }
+
+        // Taken before the slot, since toString() might log
+        final Object snapshot1 = MessageRenderer.snapshot(arg1);
+        final Object snapshot2 = MessageRenderer.snapshot(arg2);
+        final Object snapshot3 = MessageRenderer.snapshot(arg3);
+        final Object[] snapshots = MessageRenderer.snapshot(args);
+
+        ring.add(logger.selfReference(), msgLevel, System.currentTimeMillis(), thrw, format,
+            leading, snapshot1, snapshot2, snapshot3, snapshots);
+    }
+
+    /**
+     * Returns the ring of the current thread if it has messages to replay.
+     * The caller polls the messages from it, oldest first, and then passes
+     * it to {@link #finishReplay(Ring)}.
+     *
+     * @return  the ring, or {@code null} if there is nothing to replay
+     */
+    Ring startReplay() {
+        final Ring ring = rings.get();
+        if (ring == null || ring.size == 0 || ring.replaying) {
+            return null;
+        }
+
+        ring.replaying = true;
+        return ring;
+    }
+
+    /**
+     * Empties the specified ring, which is kept for the next messages of the
+     * current thread. If the backend failed during the replay, the rest of
+     * the messages are dropped.
+     *
+     * @param ring  the ring returned by {@link #startReplay()}
+     */
+    void finishReplay(Ring ring) {
+        while (ring.poll() != null) {
+            // Drop the rest
+        }
+        ring.replaying = false;
+    }
+
+    /**
+     * A message that was recorded.
+     */
+    final static class Recorded {
+
+        final Slf4jLogger logger;
+        final Level level;
+        final long timestamp;
+        final Throwable thrown;    // Nullable
+        final String format;       // Null if only a throwable was logged
+        final int leading;
+        final Object arg1, arg2, arg3;
+        final Object[] args;       // Nullable
+
+        private Recorded(Slf4jLogger logger, Level level, long timestamp, Throwable thrown,
+                String format, int leading, Object arg1, Object arg2, Object arg3, Object[] args) {
+            this.logger    = logger;
+            this.level     = level;
+            this.timestamp = timestamp;
+            this.thrown    = thrown;
+            this.format    = format;
+            this.leading   = leading;
+            this.arg1      = arg1;
+            this.arg2      = arg2;
+            this.arg3      = arg3;
+            this.args      = args;
+        }
+    }
+
+    // The messages are kept in one array for each field, so that recording
+    // a message does not allocate anything but the snapshots of mutable
+    // arguments.
+    final static class Ring {
+
+        private final WeakReference<Slf4jLogger>[] loggers;
+        private final Level[] levels;
+        private final long[] timestamps;
+        private final Throwable[] thrown;
+        private final String[] formats;
+        private final int[] leading;
+        private final Object[] args1, args2, args3;
+        private final Object[][] args;
+
+        private int next, size;
+        private boolean replaying;
+
+        @SuppressWarnings("unchecked")
+        private Ring(int capacity) {
+            this.loggers    = (WeakReference<Slf4jLogger>[]) new WeakReference<?>[capacity];
+            this.levels     = new Level[capacity];
+            this.timestamps = new long[capacity];
+            this.thrown     = new Throwable[capacity];
+            this.formats    = new String[capacity];
+            this.leading    = new int[capacity];
+            this.args1      = new Object[capacity];
+            this.args2      = new Object[capacity];
+            this.args3      = new Object[capacity];
+            this.args       = new Object[capacity][];
+        }
+
+        /**
+         * Removes the oldest message from the ring and returns it. Messages
+         * of loggers that have been garbage collected are skipped.
+         *
+         * @return  the oldest message, or {@code null} if the ring is empty
+         */
+        Recorded poll() {
+            while (size > 0) {
+                int idx = next - size;
+                if (idx < 0) {
+                    idx += loggers.length;
+                }
+
+                final Slf4jLogger logger = loggers[idx].get();
+                final Recorded recorded = logger == null ? null
+                    : new Recorded(logger, levels[idx], timestamps[idx], thrown[idx],
+                        formats[idx], leading[idx], args1[idx], args2[idx], args3[idx], args[idx]);
+
+                loggers[idx] = null;
+                thrown[idx]  = null;
+                formats[idx] = null;
+                args1[idx]   = null;
+                args2[idx]   = null;
+                args3[idx]   = null;
+                args[idx]    = null;
+                size--;
+
+                if (recorded != null) {
+                    return recorded;
+                }
+            }
+
+            return null;
+        }
+
+        private void add(WeakReference<Slf4jLogger> logger, Level level, long timestamp, Throwable thrw,
+                String format, int lead, Object arg1, Object arg2, Object arg3, Object[] rest) {
+            final int idx = next;
+            loggers[idx]    = logger;
+            levels[idx]     = level;
+            timestamps[idx] = timestamp;
+            thrown[idx]     = thrw;
+            formats[idx]    = format;
+            leading[idx]    = lead;
+            args1[idx]      = arg1;
+            args2[idx]      = arg2;
+            args3[idx]      = arg3;
+            args[idx]       = rest;
+
+            next = idx + 1 == loggers.length ? 0 : idx + 1;
+            if (size < loggers.length) {
+                size++;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+
+/**
+ * Emits an event to Java Flight Recorder for every message that is logged.
+ * JFR is not available on Java 8, so this version does nothing. The Java 11
+ * version of this class, under {@code META-INF/versions/11} in the jar,
+ * emits events named {@code com.github.pyknic.speedmentslf4j.Log} if the
+ * runtime has the {@code jdk.jfr} module.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class JfrSupport {
+
+    /**
+     * Starts timing an event, if events are being recorded.
+     *
+     * @return  the event to give to {@link #commit}, or {@code null}
+     */
+    static Object begin() {
+        return null;
+    }
+
+    /**
+     * Commits an event started with {@link #begin()}. Nothing happens if the
+     * event is {@code null}.
+     *
+     * @param event   the event, or {@code null}
+     * @param level   the level of the message
+     * @param name    the name of the logger
+     * @param format  the format of the message, or {@code null} if only a
+     *                throwable was logged
+     */
+    static void commit(Object event, Level level, String name, String format) {}
+
+    /**
+     * Returns {@code true} if events are emitted to Java Flight Recorder
+     * when it records them.
+     *
+     * @return  {@code true} if JFR is available
+     */
+    static boolean isAvailable() {
+        return false;
+    }
+
+    private JfrSupport() {}
+}
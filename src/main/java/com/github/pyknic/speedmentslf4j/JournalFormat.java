@@ -0,0 +1,298 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * The binary layout of the files written by {@link JournalListener} and read
+ * by {@link JournalReader}. A journal file consists of three regions:
+ * <ol>
+ *     <li>A header of {@value #HEADER_SIZE} bytes with a magic number, the
+ *         version and the sizes of the other two regions.
+ *     <li>A table of logger names. Each entry starts at an offset in the
+ *         table that is a multiple of 4, which is also the id of the name,
+ *         and holds the id plus one as an int followed by the name as a
+ *         string. The int is written last, so an entry that does not start
+ *         with its own id plus one was never completed and is skipped.
+ *         Entries are only appended.
+ *     <li>A ring of records, one per event. Records start at offsets that
+ *         are a multiple of 8 and never wrap around the end of the ring.
+ * </ol>
+ * Every record holds its position in the stream of all records ever written,
+ * which is also how it is found after a crash: a record is valid if its
+ * position matches the offset it was found at and its checksum is correct.
+ * <pre>
+ *  0  int    marker
+ *  4  int    length of the record in bytes, without padding
+ *  8  long   position
+ * 16  int    CRC32 of every byte from offset 20 to the end of the record
+ * 20  byte   level ordinal
+ * 21  byte   flags
+ * 22  short  number of arguments
+ * 24  long   timestamp in milliseconds since the epoch
+ * 32  int    name id, or -1 if the name is given inline
+ * 36  ...    strings, each as an int length followed by UTF-8 bytes: the
+ *            name if inline, the message or format, the arguments and
+ *            the throwable if any
+ * </pre>
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class JournalFormat {
+
+    final static long MAGIC   = 0x53504A524E4C0001L;
+    final static int VERSION  = 2;
+    final static int MARKER   = 0x4A524E4C;
+
+    final static int HEADER_SIZE   = 64;
+    final static int NAMES_SIZE    = 64 * 1024;
+    final static int MIN_CAPACITY  = 4096;
+
+    // Offsets in the file header
+    final static int HEADER_MAGIC    = 0;
+    final static int HEADER_VERSION  = 8;
+    final static int HEADER_NAMES    = 12;
+    final static int HEADER_CAPACITY = 16;
+
+    // Offsets in a record
+    final static int RECORD_MARKER    = 0;
+    final static int RECORD_LENGTH    = 4;
+    final static int RECORD_POSITION  = 8;
+    final static int RECORD_CRC       = 16;
+    final static int RECORD_LEVEL     = 20;
+    final static int RECORD_FLAGS     = 21;
+    final static int RECORD_ARGS      = 22;
+    final static int RECORD_TIMESTAMP = 24;
+    final static int RECORD_NAME      = 32;
+    final static int RECORD_SIZE      = 36;
+
+    final static int FLAG_STRUCTURED  = 1;
+    final static int FLAG_THROWABLE   = 2;
+    final static int FLAG_INLINE_NAME = 4;
+
+    // Longer strings are truncated, so that a single event can't take up
+    // a large part of the ring
+    final static int MAX_CHARS = 16 * 1024;
+
+    static int align(int length) {
+        return (length + 7) & ~7;
+    }
+
+    /**
+     * Returns the number of bytes taken by an entry in the name table with
+     * the specified name.
+     *
+     * @param name  the name
+     * @return      the size of the entry
+     */
+    static int nameEntryLength(String name) {
+        return nameEntryLength(encodedLength(name));
+    }
+
+    static int nameEntryLength(int encodedLength) {
+        return (4 + encodedLength + 3) & ~3;
+    }
+
+    /**
+     * Returns the number of bytes needed to store the specified string,
+     * including the length before it.
+     *
+     * @param str  the string
+     * @return     the encoded length
+     */
+    static int encodedLength(String str) {
+        return encodedLength(str, 0, str.length());
+    }
+
+    /**
+     * Returns the number of bytes needed to store the characters from
+     * {@code start} to {@code end} of the specified sequence, including the
+     * length before them.
+     *
+     * @param str    the character sequence
+     * @param start  the index of the first character
+     * @param end    the index after the last character
+     * @return       the encoded length
+     */
+    static int encodedLength(CharSequence str, int start, int end) {
+        final int stop = stop(str, start, end);
+        int bytes = 4;
+        for (int i = start; i < stop; i++) {
+            final char c = str.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < stop
+                    && Character.isLowSurrogate(str.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1; // Encoded as '?'
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the specified string at the specified index, without moving the
+     * position of the buffer. The number of bytes written is the same as
+     * {@link #encodedLength(String)}.
+     *
+     * @param buffer  the buffer to write to
+     * @param index   the index to write at
+     * @param str     the string
+     * @return        the index after the string
+     */
+    static int putString(ByteBuffer buffer, int index, String str) {
+        return putString(buffer, index, str, 0, str.length());
+    }
+
+    /**
+     * Writes the characters from {@code start} to {@code end} of the
+     * specified sequence at the specified index, in the same form as
+     * {@link #putString(ByteBuffer, int, String)}. The number of bytes
+     * written is the same as {@link #encodedLength(CharSequence, int, int)}.
+     *
+     * @param buffer  the buffer to write to
+     * @param index   the index to write at
+     * @param str     the character sequence
+     * @param start   the index of the first character
+     * @param end     the index after the last character
+     * @return        the index after the string
+     */
+    static int putString(ByteBuffer buffer, int index, CharSequence str, int start, int end) {
+        final int stop = stop(str, start, end);
+        int idx = index + 4;
+        for (int i = start; i < stop; i++) {
+            final char c = str.charAt(i);
+            if (c < 0x80) {
+                buffer.put(idx++, (byte) c);
+            } else if (c < 0x800) {
+                buffer.put(idx++, (byte) (0xC0 | (c >> 6)));
+                buffer.put(idx++, (byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < stop
+                    && Character.isLowSurrogate(str.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(c, str.charAt(++i));
+                buffer.put(idx++, (byte) (0xF0 | (cp >> 18)));
+                buffer.put(idx++, (byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buffer.put(idx++, (byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buffer.put(idx++, (byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put(idx++, (byte) '?');
+            } else {
+                buffer.put(idx++, (byte) (0xE0 | (c >> 12)));
+                buffer.put(idx++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put(idx++, (byte) (0x80 | (c & 0x3F)));
+            }
+        }
+
+        buffer.putInt(index, idx - index - 4);
+        return idx;
+    }
+
+    /**
+     * Reads a string written by {@link #putString(ByteBuffer, int, String)}.
+     *
+     * @param buffer  the buffer to read from
+     * @param index   the index of the length before the string
+     * @param limit   the index that the string must end before
+     * @return        the string, or {@code null} if it is not within the limit
+     */
+    static String getString(ByteBuffer buffer, int index, int limit) {
+        if (index + 4 > limit) {
+            return null;
+        }
+
+        final int length = buffer.getInt(index);
+        if (length < 0 || index + 4 + length > limit) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(index + 4 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Computes the checksum of the record at the specified index, which
+     * covers everything after the checksum field. The position and limit of
+     * the specified buffer are used for this and then cleared.
+     *
+     * @param view    a view of the file that can be modified
+     * @param crc     the checksum to use
+     * @param index   the index of the record
+     * @param length  the length of the record
+     * @return        the checksum
+     */
+    static int checksum(ByteBuffer view, CRC32 crc, int index, int length) {
+        view.limit(index + length).position(index + RECORD_LEVEL);
+        crc.reset();
+        crc.update(view);
+        view.clear();
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Returns the length of the valid record at the specified offset in the
+     * ring, or -1 if there is no valid record there.
+     *
+     * @param view      a view of the file that can be modified
+     * @param crc       the checksum to use
+     * @param ring      the index where the ring starts
+     * @param capacity  the size of the ring in bytes
+     * @param offset    the offset in the ring to look at
+     * @return          the length of the record, or -1
+     */
+    static int recordAt(ByteBuffer view, CRC32 crc, int ring, int capacity, int offset) {
+        final int index = ring + offset;
+        if (offset + RECORD_SIZE > capacity
+        ||  view.getInt(index + RECORD_MARKER) != MARKER) {
+            return -1;
+        }
+
+        final int length = view.getInt(index + RECORD_LENGTH);
+        final long position = view.getLong(index + RECORD_POSITION);
+        if (length < RECORD_SIZE || offset + length > capacity
+        ||  position < 0 || position % capacity != offset) {
+            return -1;
+        }
+
+        return checksum(view, crc, index, length) == view.getInt(index + RECORD_CRC)
+            ? length : -1;
+    }
+
+    private static int stop(CharSequence str, int start, int end) {
+        if (end - start <= MAX_CHARS) {
+            return end;
+        }
+
+        // Don't cut a surrogate pair in half
+        return Character.isHighSurrogate(str.charAt(start + MAX_CHARS - 1))
+            ? start + MAX_CHARS - 1 : start + MAX_CHARS;
+    }
+
+    private JournalFormat() {}
+}
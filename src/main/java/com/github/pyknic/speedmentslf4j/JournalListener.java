@@ -0,0 +1,426 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.LoggerEvent;
+import com.speedment.common.logger.LoggerEventListener;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+import static com.github.pyknic.speedmentslf4j.JournalFormat.*;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Listener that appends every event to a memory-mapped file of a fixed size,
+ * so that the latest events can be inspected after the application has
+ * stopped or crashed, using {@link JournalReader}. When the file is full, the
+ * oldest events are overwritten. The events are written in a compact binary
+ * form outside of the heap, and for events from {@link Slf4jLogger} the
+ * format and the arguments are stored instead of the rendered message.
+ * <p>
+ * Threads write their events without taking any lock. Space is reserved by
+ * moving a shared position forward, after which each thread writes its own
+ * part of the file. Since the operating system writes the mapped pages to
+ * the file, the events survive if the application crashes, but not
+ * necessarily if the operating system does. A record that is only partly
+ * written when the application stops is detected by its checksum and
+ * skipped.
+ * <p>
+ * If an existing journal is opened, new events are appended after the
+ * latest event in it. A journal that has been truncated, for example by
+ * copying it while it was written, is extended to its full size again.
+ * <pre>{@code
+ * final JournalListener journal = new JournalListener(Paths.get("speedment.journal"), 64 << 20);
+ * factory.addListener(journal);
+ * }</pre>
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class JournalListener implements LoggerEventListener, AutoCloseable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int ring, capacity;
+
+    private final AtomicLong position;       // Position of the next record
+    private final AtomicInteger namesEnd;    // Offset of the next name entry, and its id
+    private final ConcurrentMap<String, Integer> names;
+    private final LongAdder dropped;
+    private final ThreadLocal<Writer> writers;
+
+    // Every writer that has been created, so that close() can release the
+    // view of the file that each of them holds. Weak, so that the writers of
+    // threads that have ended can be collected.
+    private final List<WeakReference<Writer>> allWriters;
+
+    private volatile boolean closed;
+
+    /**
+     * Opens the journal in the specified file, creating it if it does not
+     * exist. An existing journal keeps its size, in which case
+     * {@code capacity} is ignored.
+     *
+     * @param file      the file to write to
+     * @param capacity  the number of bytes to use for events, a multiple of 8
+     * @throws IOException  if the file could not be opened or is not a journal
+     */
+    public JournalListener(Path file, int capacity) throws IOException {
+        requireNonNull(file);
+        this.channel = FileChannel.open(file, CREATE, READ, WRITE);
+
+        try {
+            final int ringSize;
+            if (channel.size() == 0) {
+                if (capacity < MIN_CAPACITY || capacity % 8 != 0
+                ||  capacity > Integer.MAX_VALUE - HEADER_SIZE - NAMES_SIZE) {
+                    throw new IllegalArgumentException(
+                        "Capacity must be a multiple of 8 and at least " +
+                        MIN_CAPACITY + " bytes, was " + capacity + "."
+                    );
+                }
+
+                ringSize = capacity;
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + NAMES_SIZE + ringSize);
+
+                buffer.putLong(HEADER_MAGIC, MAGIC);
+                buffer.putInt(HEADER_VERSION, VERSION);
+                buffer.putInt(HEADER_NAMES, NAMES_SIZE);
+                buffer.putInt(HEADER_CAPACITY, ringSize);
+            } else {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                channel.read(header, 0);
+                final long size = JournalReader.checkHeader(header, channel.size());
+
+                // A truncated journal grows back to its full size
+                ringSize = header.getInt(HEADER_CAPACITY);
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+
+            this.ring       = HEADER_SIZE + buffer.getInt(HEADER_NAMES);
+            this.capacity   = ringSize;
+            this.names      = new ConcurrentHashMap<>();
+            this.namesEnd   = new AtomicInteger(JournalReader.readNames(buffer, names::put));
+            this.position   = new AtomicLong(recover());
+            this.dropped    = new LongAdder();
+            this.allWriters = new ArrayList<>();
+            this.writers    = ThreadLocal.withInitial(this::newWriter);
+        } catch (final IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the number of events that were not written, either because the
+     * journal was closed or because the event was larger than the journal.
+     *
+     * @return  the number of dropped events
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void accept(LoggerEvent event) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+
+        final StructuredLoggerEvent structured = event instanceof StructuredLoggerEvent
+            ? (StructuredLoggerEvent) event : null;
+
+        // The view is null once the journal has been closed
+        final Writer writer = writers.get();
+        final ByteBuffer view = writer.view;
+        if (view == null) {
+            dropped.increment();
+            return;
+        }
+
+        final String name = event.getName();
+        final int nameId  = nameId(name, view);
+        final String text = structured == null ? event.getMessage() : structured.getFormat();
+        final Object[] args = structured == null ? null : structured.getArguments();
+        Throwable thrown = structured == null ? null : structured.getThrowable();
+        int argCount = args == null ? 0 : Math.min(args.length, Short.MAX_VALUE);
+
+        // Like in Slf4j, a throwable last in the arguments is the cause of the
+        // message, so it is stored as one instead of being put in a placeholder
+        // when the message is read back
+        if (thrown == null && argCount > 0 && argCount == args.length
+        &&  args[argCount - 1] instanceof Throwable) {
+            thrown = (Throwable) args[--argCount];
+        }
+
+        // The arguments and the throwable are rendered the same way as in the
+        // message, one after another into a buffer that is reused, and then
+        // encoded from there
+        final boolean reused = !writer.rendering;
+        final StringBuilder rendered = reused ? writer.rendered : new StringBuilder();
+        writer.rendering = true;
+        try {
+            final int[] ends = reused ? writer.ends(argCount + 1) : new int[argCount + 1];
+            rendered.setLength(0);
+
+            int length = RECORD_SIZE + encodedLength(text);
+            for (int i = 0; i < argCount; i++) {
+                final int start = rendered.length();
+                MessageRenderer.appendArg(rendered, args[i], null);
+                ends[i] = rendered.length();
+                length += encodedLength(rendered, start, ends[i]);
+            }
+
+            final int thrownStart = rendered.length();
+            if (thrown != null) {
+                MessageRenderer.appendArg(rendered, thrown, null);
+                ends[argCount] = rendered.length();
+                length += encodedLength(rendered, thrownStart, ends[argCount]);
+            }
+
+            if (nameId < 0) {
+                length += encodedLength(name);
+            }
+
+            final int size = align(length);
+            if (size > capacity) {
+                dropped.increment();
+                return;
+            }
+
+            final long pos  = reserve(size);
+            final int index = ring + (int) (pos % capacity);
+
+            view.put(index + RECORD_LEVEL, (byte) event.getLevel().ordinal());
+            view.put(index + RECORD_FLAGS, (byte) (
+                (structured != null ? FLAG_STRUCTURED : 0) |
+                (thrown != null ? FLAG_THROWABLE : 0) |
+                (nameId < 0 ? FLAG_INLINE_NAME : 0)
+            ));
+            view.putShort(index + RECORD_ARGS, (short) argCount);
+            view.putLong(index + RECORD_TIMESTAMP, System.currentTimeMillis());
+            view.putInt(index + RECORD_NAME, nameId);
+
+            int idx = index + RECORD_SIZE;
+            if (nameId < 0) {
+                idx = putString(view, idx, name);
+            }
+
+            idx = putString(view, idx, text);
+            for (int i = 0, start = 0; i < argCount; start = ends[i++]) {
+                idx = putString(view, idx, rendered, start, ends[i]);
+            }
+
+            if (thrown != null) {
+                putString(view, idx, rendered, thrownStart, ends[argCount]);
+            }
+
+            view.putInt(index + RECORD_CRC, checksum(view, writer.crc, index, length));
+            view.putInt(index + RECORD_LENGTH, length);
+            view.putLong(index + RECORD_POSITION, pos);
+            Platform.putIntRelease(view, index + RECORD_MARKER, MARKER);
+        } finally {
+            if (reused) {
+                writer.release();
+            }
+        }
+    }
+
+    /**
+     * Writes the pages of the file that have been modified to the storage
+     * device. This is only needed to protect the events against the
+     * operating system crashing.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    /**
+     * Stops writing events and writes the journal to the storage device.
+     * Events that are logged after this are dropped. The views of the file
+     * that the writing threads hold are released, so that the mapping can be
+     * unmapped once the journal itself is no longer referenced.
+     *
+     * @throws IOException  if the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        synchronized (allWriters) {
+            for (final WeakReference<Writer> ref : allWriters) {
+                final Writer writer = ref.get();
+                if (writer != null) {
+                    writer.view = null;
+                }
+            }
+        }
+
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Returns the number of threads that hold a view of the file that they
+     * write through.
+     *
+     * @return  the number of views
+     */
+    int heldViews() {
+        synchronized (allWriters) {
+            int count = 0;
+            for (final WeakReference<Writer> ref : allWriters) {
+                final Writer writer = ref.get();
+                if (writer != null && writer.view != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private Writer newWriter() {
+        final Writer writer = new Writer(buffer.duplicate());
+        synchronized (allWriters) {
+            if (closed) {
+                writer.view = null;
+            } else {
+                allWriters.removeIf(ref -> ref.get() == null);
+                allWriters.add(new WeakReference<>(writer));
+            }
+        }
+        return writer;
+    }
+
+    // Reserves the specified number of bytes and returns the position of
+    // the record. A record that does not fit before the end of the ring is
+    // placed at the start instead, which skips the rest of the ring.
+    private long reserve(int size) {
+        while (true) {
+            final long current = position.get();
+            final int offset = (int) (current % capacity);
+            final long start = offset + size <= capacity
+                ? current
+                : current + capacity - offset;
+
+            if (position.compareAndSet(current, start + size)) {
+                return start;
+            }
+        }
+    }
+
+    // Returns the id of the name in the name table, or -1 if the table is
+    // full and the name must be written with every record instead.
+    private int nameId(String name, ByteBuffer view) {
+        final Integer id = names.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        // The offset of the entry is its id, so that the id and the space
+        // for the entry are reserved together. An entry that is never
+        // completed leaves a gap that the reader skips, without affecting
+        // the ids of the entries after it.
+        return names.computeIfAbsent(name, n -> {
+            final int entry = nameEntryLength(n);
+            while (true) {
+                final int offset = namesEnd.get();
+                if (offset + entry > buffer.getInt(HEADER_NAMES)) {
+                    return -1;
+                }
+
+                if (namesEnd.compareAndSet(offset, offset + entry)) {
+                    final int index = HEADER_SIZE + offset;
+                    putString(view, index + 4, n);
+                    Platform.putIntRelease(view, index, offset + 1); // Written last
+                    return offset;
+                }
+            }
+        });
+    }
+
+    // Finds the position after the latest valid record in the ring
+    private long recover() {
+        final ByteBuffer view = buffer.duplicate();
+        final CRC32 crc = new CRC32();
+        long next = 0;
+        for (int offset = 0; offset + RECORD_SIZE <= capacity; offset += 8) {
+            final int length = recordAt(view, crc, ring, capacity, offset);
+            if (length > 0) {
+                next = Math.max(next, view.getLong(ring + offset + RECORD_POSITION) + align(length));
+                offset += align(length) - 8;
+            }
+        }
+        return next;
+    }
+
+    private final static class Writer {
+
+        private final static int INITIAL_CAPACITY      = 256;
+        private final static int MAX_RETAINED_CAPACITY = 4096;
+
+        // Set to null when the journal is closed. A thread that is writing
+        // at that moment keeps the view it has already read.
+        private volatile ByteBuffer view;
+        private final CRC32 crc;
+
+        // Reused unless an argument logs from its toString() while the
+        // arguments of another event are rendered on the same thread
+        private StringBuilder rendered;
+        private int[] ends;
+        private boolean rendering;
+
+        private Writer(ByteBuffer view) {
+            this.view     = view;
+            this.crc      = new CRC32();
+            this.rendered = new StringBuilder(INITIAL_CAPACITY);
+            this.ends     = new int[8];
+        }
+
+        private int[] ends(int count) {
+            if (ends.length < count) {
+                ends = new int[Math.max(count, ends.length * 2)];
+            }
+            return ends;
+        }
+
+        private void release() {
+            // Don't let a single huge event pin memory for the thread
+            if (rendered.capacity() > MAX_RETAINED_CAPACITY) {
+                rendered = new StringBuilder(INITIAL_CAPACITY);
+            }
+            rendering = false;
+        }
+    }
+}
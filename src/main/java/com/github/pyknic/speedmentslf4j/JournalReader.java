@@ -0,0 +1,322 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+import static com.github.pyknic.speedmentslf4j.JournalFormat.*;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the events in a file written by {@link JournalListener}, also if the
+ * application that wrote it crashed or the file has been truncated. Events
+ * that were only partly written or cut off are skipped. The file is only
+ * read, so it can be inspected while the application is still writing to
+ * it.
+ * <p>
+ * The reader can also be run from the command line to print every event in
+ * a journal, oldest first:
+ * <pre>
+ * java -cp speedment-slf4j-adapter.jar com.github.pyknic.speedmentslf4j.JournalReader speedment.journal
+ * </pre>
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class JournalReader {
+
+    private final static Level[] LEVELS = Level.values();
+
+    /**
+     * Prints every event in the journal given as the only argument.
+     *
+     * @param args  the path of the journal
+     * @throws IOException  if the journal could not be read
+     */
+    public static void main(String... args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: JournalReader <journal file>");
+            System.exit(1);
+        }
+
+        final PrintStream out = System.out;
+        for (final Entry entry : read(Paths.get(args[0]))) {
+            out.println(entry);
+        }
+    }
+
+    /**
+     * Returns every valid event in the specified journal, oldest first.
+     *
+     * @param file  the journal file
+     * @return      the events
+     * @throws IOException  if the file could not be read or is not a journal
+     */
+    public static List<Entry> read(Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(requireNonNull(file), READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            final long size = checkHeader(header, channel.size());
+
+            // A truncated journal is read as if the rest of it was zeros, so
+            // that the records that were cut off are skipped
+            final ByteBuffer buffer;
+            if (size == channel.size()) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Read until the end of the file
+                }
+                buffer.clear();
+            }
+
+            final Map<Integer, String> names = new HashMap<>();
+            readNames(buffer, (name, id) -> names.put(id, name));
+
+            final int ring     = HEADER_SIZE + buffer.getInt(HEADER_NAMES);
+            final int capacity = buffer.getInt(HEADER_CAPACITY);
+            final CRC32 crc    = new CRC32();
+            final ByteBuffer view = buffer.duplicate();
+
+            final List<Entry> entries = new ArrayList<>();
+            for (int offset = 0; offset + RECORD_SIZE <= capacity; offset += 8) {
+                final int length = recordAt(view, crc, ring, capacity, offset);
+                if (length > 0) {
+                    final Entry entry = decode(buffer, ring + offset, length, names);
+                    if (entry != null) {
+                        entries.add(entry);
+                    }
+                    offset += align(length) - 8;
+                }
+            }
+
+            entries.sort(Comparator.comparingLong(Entry::getPosition));
+            return entries;
+        }
+    }
+
+    // Returns the size the journal should have. The file may be smaller if
+    // it has been truncated, but not larger.
+    static long checkHeader(ByteBuffer header, long fileSize) throws IOException {
+        if (fileSize < HEADER_SIZE || header.getLong(HEADER_MAGIC) != MAGIC) {
+            throw new IOException("The file is not a journal.");
+        }
+
+        if (header.getInt(HEADER_VERSION) != VERSION) {
+            throw new IOException("Unsupported journal version " + header.getInt(HEADER_VERSION) + ".");
+        }
+
+        final long expected = (long) HEADER_SIZE + header.getInt(HEADER_NAMES) + header.getInt(HEADER_CAPACITY);
+        if (fileSize > expected || expected > Integer.MAX_VALUE) {
+            throw new IOException("The journal should be " + expected + " bytes, but was " + fileSize + ".");
+        }
+
+        return expected;
+    }
+
+    // Passes every completed name in the table to the consumer and returns
+    // the offset after the last one, where the next name should be written.
+    // Entries that were never completed are skipped four bytes at a time.
+    static int readNames(ByteBuffer buffer, BiConsumer<String, Integer> consumer) {
+        final int size = buffer.getInt(HEADER_NAMES);
+        int offset = 0, end = 0;
+        while (offset + 8 <= size) {
+            final int index = HEADER_SIZE + offset;
+            final String name = buffer.getInt(index) == offset + 1
+                ? getString(buffer, index + 4, HEADER_SIZE + size)
+                : null;
+
+            if (name == null) {
+                offset += 4;
+            } else {
+                consumer.accept(name, offset);
+                offset += nameEntryLength(4 + buffer.getInt(index + 4));
+                end = offset;
+            }
+        }
+        return end;
+    }
+
+    private static Entry decode(ByteBuffer buffer, int index, int length, Map<Integer, String> names) {
+        final int end    = index + length;
+        final int flags  = buffer.get(index + RECORD_FLAGS);
+        final int level  = buffer.get(index + RECORD_LEVEL);
+        final int argc   = buffer.getShort(index + RECORD_ARGS);
+        final int nameId = buffer.getInt(index + RECORD_NAME);
+
+        if (level < 0 || level >= LEVELS.length || argc < 0) {
+            return null;
+        }
+
+        int idx = index + RECORD_SIZE;
+        final String name;
+        if ((flags & FLAG_INLINE_NAME) != 0) {
+            name = getString(buffer, idx, end);
+            if (name == null) return null;
+            idx += 4 + buffer.getInt(idx);
+        } else {
+            name = names.getOrDefault(nameId, "#" + nameId);
+        }
+
+        final String text = getString(buffer, idx, end);
+        if (text == null) return null;
+        idx += 4 + buffer.getInt(idx);
+
+        final String[] args = new String[argc];
+        for (int i = 0; i < argc; i++) {
+            args[i] = getString(buffer, idx, end);
+            if (args[i] == null) return null;
+            idx += 4 + buffer.getInt(idx);
+        }
+
+        final String thrown;
+        if ((flags & FLAG_THROWABLE) != 0) {
+            thrown = getString(buffer, idx, end);
+            if (thrown == null) return null;
+        } else {
+            thrown = null;
+        }
+
+        return new Entry(
+            buffer.getLong(index + RECORD_POSITION),
+            LEVELS[level], name,
+            buffer.getLong(index + RECORD_TIMESTAMP),
+            (flags & FLAG_STRUCTURED) != 0, text, args, thrown
+        );
+    }
+
+    /**
+     * An event read from a journal.
+     */
+    public final static class Entry {
+
+        private final long position;
+        private final Level level;
+        private final String name;
+        private final long timestamp;
+        private final boolean structured;
+        private final String text;
+        private final List<String> arguments;
+        private final String throwable; // Nullable
+
+        private Entry(long position, Level level, String name, long timestamp,
+                      boolean structured, String text, String[] arguments, String throwable) {
+            this.position   = position;
+            this.level      = level;
+            this.name       = name;
+            this.timestamp  = timestamp;
+            this.structured = structured;
+            this.text       = text;
+            this.arguments  = Collections.unmodifiableList(Arrays.asList(arguments));
+            this.throwable  = throwable;
+        }
+
+        /**
+         * Returns the position of the event in the stream of all events
+         * written to the journal, which orders the events.
+         *
+         * @return  the position
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns when the event was written to the journal, in milliseconds
+         * since the epoch.
+         *
+         * @return  the timestamp
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Returns the format of the message if the format and arguments were
+         * stored, otherwise the message.
+         *
+         * @return  the format or the message
+         */
+        public String getFormat() {
+            return text;
+        }
+
+        /**
+         * Returns the arguments as they were rendered when the event was
+         * written, or an empty list if the message was stored as it is.
+         *
+         * @return  the arguments
+         */
+        public List<String> getArguments() {
+            return arguments;
+        }
+
+        /**
+         * Returns the message, rendered from the format and the arguments.
+         *
+         * @return  the message
+         */
+        public String getMessage() {
+            return structured ? MessageRenderer.render(text, arguments.toArray()) : text;
+        }
+
+        /**
+         * Returns the string representation of the throwable that was logged
+         * with the event, if any.
+         *
+         * @return  the throwable, or {@code null}
+         */
+        public String getThrowable() {
+            return throwable;
+        }
+
+        @Override
+        public String toString() {
+            return Instant.ofEpochMilli(timestamp) + " " + level + " " + name + " - " + getMessage()
+                + (throwable == null ? "" : " [" + throwable + "]");
+        }
+    }
+
+    private JournalReader() {}
+}
@@ -0,0 +1,125 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+
+import static com.github.pyknic.speedmentslf4j.MessageRenderer.render;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Event that holds on to the raw format and arguments and only renders the
+ * message the first time {@link #getMessage()} is invoked. The rendered
+ * message is cached so that multiple listeners share it.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class LazyLoggerEvent implements StructuredLoggerEvent {
+
+    private final static Object[] NO_ARGUMENTS = {};
+
+    private final Level level;
+    private final String name, format;
+    private final Object[] args;     // Nullable, if format is already the message
+    private final Throwable thrown;  // Nullable
+    private String message;          // Rendered on first access
+
+    LazyLoggerEvent(Level level, String name, String format, Object[] args, Throwable thrown) {
+        this.level  = requireNonNull(level);
+        this.name   = requireNonNull(name);
+        this.format = requireNonNull(format);
+        this.args   = args;
+        this.thrown = thrown;
+    }
+
+    /**
+     * Returns the arguments as one array, where the first {@code leading}
+     * arguments are given as {@code arg1} to {@code arg3} and the rest in
+     * {@code args}. If there are no leading arguments, {@code args} is
+     * returned as it is, which might be {@code null}.
+     *
+     * @param leading  the number of leading arguments (0 to 3)
+     * @param arg1     the first argument, if leading is at least 1
+     * @param arg2     the second argument, if leading is at least 2
+     * @param arg3     the third argument, if leading is 3
+     * @param args     the remaining arguments or {@code null}
+     * @return         the arguments as one array
+     */
+    static Object[] arguments(int leading, Object arg1, Object arg2, Object arg3, Object[] args) {
+        if (leading == 0) {
+            return args;
+        }
+
+        final int rest = args == null ? 0 : args.length;
+        final Object[] array = new Object[leading + rest];
+        array[0] = arg1;
+        if (leading > 1) array[1] = arg2;
+        if (leading > 2) array[2] = arg3;
+
+        if (rest > 0) {
+            System.arraycopy(args, 0, array, leading, rest);
+        }
+
+        return array;
+    }
+
+    @Override
+    public Level getLevel() {
+        return level;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getFormat() {
+        return format;
+    }
+
+    @Override
+    public Object[] getArguments() {
+        return args == null ? NO_ARGUMENTS : args;
+    }
+
+    @Override
+    public Throwable getThrowable() {
+        return thrown;
+    }
+
+    @Override
+    public String getMessage() {
+        // Racy single-check is fine since strings are immutable
+        String msg = message;
+        if (msg == null) {
+            msg = args == null ? format : render(format, args);
+            if (thrown != null) {
+                msg = thrown.getClass().getSimpleName() + ": " + msg;
+            }
+            message = msg;
+        }
+        return msg;
+    }
+
+    @Override
+    public String toString() {
+        return format("{level=%s, name='%s', message='%s'}", level, name, getMessage());
+    }
+}
@@ -0,0 +1,331 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Prefix tree of level, throttle and sampling rules keyed on the
+ * {@code .}-separated segments of the logger names. Every node may hold rules
+ * set with {@link #setLevel(String, Level)},
+ * {@link #setThrottle(String, Level, Throttle)} and
+ * {@link #setSampling(String, Level, Sampling)} and the loggers whose names
+ * end at that node. A rule applies to the loggers at its node and every node
+ * below it, so a logger gets the nearest rules above it when it is
+ * registered, and setting a rule only visits the affected subtree.
+ * <p>
+ * The tree only holds weak references to the loggers, and nodes that no
+ * longer hold anything are removed when a logger is unregistered.
+ * <p>
+ * The tree is only modified when loggers are created or removed, or when
+ * rules change, so all operations simply synchronize on the tree.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class LevelTree {
+
+    private final static Level[] LEVELS = Level.values();
+
+    private final Node root = new Node();
+
+    /**
+     * Registers the specified logger under the specified name and applies the
+     * nearest rules above it, if any.
+     *
+     * @param name    the name of the logger
+     * @param logger  the logger to register
+     */
+    synchronized void register(String name, Slf4jLogger logger) {
+        requireNonNull(logger);
+
+        Node node = root;
+        Level level = root.level;
+        ThrottleRule throttle = root.throttle;
+        Sampling[] sampling = root.inheritSampling(null);
+
+        int from = 0;
+        while (from >= 0) {
+            final int to = name.indexOf('.', from);
+            final String segment = to < 0
+                ? name.substring(from)
+                : name.substring(from, to);
+
+            from = to < 0 ? -1 : to + 1;
+
+            if (!segment.isEmpty()) {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+                if (node.level != null) {
+                    level = node.level;
+                }
+                if (node.throttle != null) {
+                    throttle = node.throttle;
+                }
+                sampling = node.inheritSampling(sampling);
+            }
+        }
+
+        // A logger that replaced a collected one with the same name is never
+        // unregistered, so the stale reference is dropped here instead
+        node.loggers.removeIf(ref -> ref.get() == null);
+        node.loggers.add(new WeakReference<>(logger));
+
+        if (level != null) {
+            logger.setLevel(level);
+        }
+
+        if (throttle != null) {
+            throttle.applyTo(logger);
+        }
+
+        if (sampling != null) {
+            for (int i = 0; i < sampling.length; i++) {
+                if (sampling[i] != null) {
+                    logger.setSampler(LEVELS[i], sampling[i].newSampler());
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the level of every logger with a name that starts with the
+     * specified path, matching on whole segments. Loggers created later under
+     * the same path will inherit the level. Rules set previously further down
+     * the same path are replaced by this one.
+     *
+     * @param path   the path, an empty string means every logger
+     * @param level  the new level
+     */
+    synchronized void setLevel(String path, Level level) {
+        requireNonNull(level);
+        nodeAt(path).overrideLevel(level, true);
+    }
+
+    /**
+     * Throttles messages with the specified level or higher from every logger
+     * with a name that starts with the specified path, in the same way as
+     * {@link #setLevel(String, Level)}. A {@code null} throttle removes the
+     * throttling under the path.
+     *
+     * @param path      the path, an empty string means every logger
+     * @param level     the lowest level to throttle
+     * @param throttle  the throttle, or {@code null} for none
+     */
+    synchronized void setThrottle(String path, Level level, Throttle throttle) {
+        nodeAt(path).overrideThrottle(throttle == null
+            ? ThrottleRule.NONE
+            : new ThrottleRule(requireNonNull(level), throttle), true);
+    }
+
+    /**
+     * Samples messages with the specified level from every logger with a name
+     * that starts with the specified path, in the same way as
+     * {@link #setLevel(String, Level)}. Every level is sampled separately.
+     *
+     * @param path      the path, an empty string means every logger
+     * @param level     the level to sample
+     * @param sampling  the sampling
+     */
+    synchronized void setSampling(String path, Level level, Sampling sampling) {
+        requireNonNull(sampling);
+        nodeAt(path).overrideSampling(level.ordinal(), sampling, true);
+    }
+
+    /**
+     * Forgets the loggers with the specified name that have been garbage
+     * collected, and removes the nodes on the path that no longer hold
+     * anything.
+     *
+     * @param name  the name of the logger
+     */
+    synchronized void unregister(String name) {
+        final List<Node> path = new ArrayList<>();
+        final List<String> segments = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+
+        int from = 0;
+        while (from >= 0) {
+            final int to = name.indexOf('.', from);
+            final String segment = to < 0
+                ? name.substring(from)
+                : name.substring(from, to);
+
+            from = to < 0 ? -1 : to + 1;
+
+            if (!segment.isEmpty()) {
+                node = node.children.get(segment);
+                if (node == null) {
+                    return;
+                }
+                path.add(node);
+                segments.add(segment);
+            }
+        }
+
+        node.loggers.removeIf(ref -> ref.get() == null);
+        for (int i = path.size() - 1; i > 0 && path.get(i).isEmpty(); i--) {
+            path.get(i - 1).children.remove(segments.get(i - 1));
+        }
+    }
+
+    /**
+     * Returns the number of nodes in the tree, including the root.
+     *
+     * @return  the number of nodes
+     */
+    synchronized int size() {
+        return root.size();
+    }
+
+    private Node nodeAt(String path) {
+        Node node = root;
+        int from = 0;
+        while (from >= 0 && from < path.length()) {
+            final int to = path.indexOf('.', from);
+            final String segment = to < 0
+                ? path.substring(from)
+                : path.substring(from, to);
+
+            from = to < 0 ? -1 : to + 1;
+
+            if (!segment.isEmpty()) {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+        return node;
+    }
+
+    private final static class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        // Weak, so that the tree never keeps a logger alive on its own
+        private final List<WeakReference<Slf4jLogger>> loggers = new ArrayList<>(1);
+        private Level level;          // Nullable
+        private ThrottleRule throttle; // Nullable
+        private Sampling[] sampling;   // Nullable, and so are the elements
+
+        // The rule is set on the node it was given for and cleared on every
+        // node below it, since it replaces the rules there.
+
+        private void overrideLevel(Level rule, boolean owner) {
+            level = owner ? rule : null;
+            forEachLogger(l -> l.setLevel(rule));
+            children.values().forEach(child -> child.overrideLevel(rule, false));
+        }
+
+        private void overrideThrottle(ThrottleRule rule, boolean owner) {
+            throttle = owner ? rule : null;
+            forEachLogger(rule::applyTo);
+            children.values().forEach(child -> child.overrideThrottle(rule, false));
+        }
+
+        private void overrideSampling(int ordinal, Sampling rule, boolean owner) {
+            if (owner) {
+                if (sampling == null) {
+                    sampling = new Sampling[LEVELS.length];
+                }
+                sampling[ordinal] = rule;
+            } else if (sampling != null) {
+                sampling[ordinal] = null;
+                if (Arrays.stream(sampling).allMatch(Objects::isNull)) {
+                    // So that the node can be pruned
+                    sampling = null;
+                }
+            }
+
+            // Every logger gets its own state
+            forEachLogger(l -> l.setSampler(LEVELS[ordinal], rule.newSampler()));
+            children.values().forEach(child -> child.overrideSampling(ordinal, rule, false));
+        }
+
+        private void forEachLogger(Consumer<Slf4jLogger> action) {
+            final Iterator<WeakReference<Slf4jLogger>> it = loggers.iterator();
+            while (it.hasNext()) {
+                final Slf4jLogger logger = it.next().get();
+                if (logger == null) {
+                    it.remove();
+                } else {
+                    action.accept(logger);
+                }
+            }
+        }
+
+        private int size() {
+            int size = 1;
+            for (final Node child : children.values()) {
+                size += child.size();
+            }
+            return size;
+        }
+
+        private boolean isEmpty() {
+            return loggers.isEmpty() && children.isEmpty()
+                && level == null && throttle == null && sampling == null;
+        }
+
+        // Returns the sampling rules that apply at this node, given the ones
+        // that apply at the parent
+        private Sampling[] inheritSampling(Sampling[] inherited) {
+            if (sampling == null) {
+                return inherited;
+            }
+
+            final Sampling[] result = inherited == null
+                ? new Sampling[LEVELS.length]
+                : inherited.clone();
+
+            for (int i = 0; i < sampling.length; i++) {
+                if (sampling[i] != null) {
+                    result[i] = sampling[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    private final static class ThrottleRule {
+
+        // Removes the throttling below the node it is set on
+        private final static ThrottleRule NONE = new ThrottleRule(null, null);
+
+        private final Level level;       // Null for NONE
+        private final Throttle throttle; // Null for NONE
+
+        private ThrottleRule(Level level, Throttle throttle) {
+            this.level    = level;
+            this.throttle = throttle;
+        }
+
+        private void applyTo(Slf4jLogger logger) {
+            // Every logger gets its own state
+            logger.setThrottler(throttle == null ? null : new Throttler(level, throttle));
+        }
+    }
+}
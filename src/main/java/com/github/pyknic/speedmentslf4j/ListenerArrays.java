@@ -0,0 +1,142 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.LoggerEvent;
+import com.speedment.common.logger.LoggerEventListener;
+
+import java.util.Arrays;
+
+/**
+ * Utility methods for the copy-on-write arrays that listeners are stored in.
+ * The arrays are never modified once published, so they can be shared and
+ * iterated without any locking.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class ListenerArrays {
+
+    static final LoggerEventListener[] EMPTY = new LoggerEventListener[0];
+
+    /**
+     * Returns a new array with the specified listener added last, or the same
+     * array if it already contained the listener.
+     *
+     * @param array     the current array
+     * @param listener  the listener to add
+     * @return          the new array
+     */
+    static LoggerEventListener[] add(LoggerEventListener[] array, LoggerEventListener listener) {
+        if (indexOf(array, listener) >= 0) {
+            return array;
+        }
+
+        final LoggerEventListener[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = listener;
+        return result;
+    }
+
+    /**
+     * Returns a new array without the specified listener, or the same array
+     * if it did not contain the listener.
+     *
+     * @param array     the current array
+     * @param listener  the listener to remove
+     * @return          the new array
+     */
+    static LoggerEventListener[] remove(LoggerEventListener[] array, LoggerEventListener listener) {
+        final int idx = indexOf(array, listener);
+        if (idx < 0) {
+            return array;
+        } else if (array.length == 1) {
+            return EMPTY;
+        }
+
+        final LoggerEventListener[] result = new LoggerEventListener[array.length - 1];
+        System.arraycopy(array, 0, result, 0, idx);
+        System.arraycopy(array, idx + 1, result, idx, array.length - idx - 1);
+        return result;
+    }
+
+    /**
+     * Returns an array with the listeners in both arrays. If either of them
+     * is empty, the other one is returned as it is.
+     *
+     * @param first  the first array
+     * @param then   the second array
+     * @return       the combined array
+     */
+    static LoggerEventListener[] concat(LoggerEventListener[] first, LoggerEventListener[] then) {
+        if (then.length == 0) {
+            return first;
+        } else if (first.length == 0) {
+            return then;
+        }
+
+        final LoggerEventListener[] result = Arrays.copyOf(first, first.length + then.length);
+        System.arraycopy(then, 0, result, first.length, then.length);
+        return result;
+    }
+
+    /**
+     * Delivers the event to each of the listeners in turn. An exception
+     * thrown by a listener reaches the caller, and the remaining listeners
+     * do not get the event.
+     *
+     * @param listeners  the listeners
+     * @param event      the event
+     */
+    static void deliver(LoggerEventListener[] listeners, LoggerEvent event) {
+        for (final LoggerEventListener listener : listeners) {
+            listener.accept(event);
+        }
+    }
+
+    /**
+     * Delivers the event to each of the listeners in turn, like
+     * {@link #deliver(LoggerEventListener[], LoggerEvent)}, but passes an
+     * exception thrown by a listener to the uncaught exception handler of the
+     * current thread and goes on with the remaining listeners. Used by the
+     * threads of an {@link AsyncListenerDispatcher}, where there is no caller
+     * to throw to.
+     *
+     * @param listeners  the listeners
+     * @param event      the event
+     */
+    static void deliverIsolated(LoggerEventListener[] listeners, LoggerEvent event) {
+        for (final LoggerEventListener listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (final RuntimeException ex) {
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+            }
+        }
+    }
+
+    private static int indexOf(LoggerEventListener[] array, LoggerEventListener listener) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i].equals(listener)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ListenerArrays() {}
+}
@@ -0,0 +1,156 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.slf4j.helpers.FormattingTuple;
+import org.slf4j.helpers.MessageFormatter;
+import org.slf4j.spi.LocationAwareLogger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Delegates to a backend that implements {@link LocationAwareLogger}, like
+ * Logback, passing the name of {@link Slf4jLogger} as the fully qualified
+ * class name of the logger. The backend then finds the caller of the
+ * Speedment logger when it computes caller data, instead of the adapter.
+ * <p>
+ * Only some backends format the arguments given to
+ * {@link LocationAwareLogger#log}. Logback does, but slf4j-jdk14 and
+ * slf4j-log4j12 ignore them and would log the placeholders as they are. For
+ * those, the message is rendered with Slf4j's own {@link MessageFormatter}
+ * before it is passed on, which is what their other methods do as well.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class LocationAwareDelegate implements Delegate {
+
+    // The backend skips the stack frames up to and including this class
+    private final static String FQCN = Slf4jLogger.class.getName();
+
+    private final LocationAwareLogger inner;
+    private final boolean formatsArguments;
+
+    LocationAwareDelegate(LocationAwareLogger inner, boolean formatsArguments) {
+        this.inner            = requireNonNull(inner);
+        this.formatsArguments = formatsArguments;
+    }
+
+    @Override
+    public String getName() {
+        return inner.getName();
+    }
+
+    @Override
+    public boolean isEnabled(Level level) {
+        switch (level) {
+            case TRACE: return inner.isTraceEnabled();
+            case DEBUG: return inner.isDebugEnabled();
+            case INFO:  return inner.isInfoEnabled();
+            case WARN:  return inner.isWarnEnabled();
+            case ERROR: return inner.isErrorEnabled();
+            case FATAL: return inner.isErrorEnabled();
+            default: throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public void log(Level level, String message) {
+        inner.log(null, FQCN, toInt(level), message, null, null);
+    }
+
+    @Override
+    public void log(Level level, String format, Object arg) {
+        if (formatsArguments) {
+            inner.log(null, FQCN, toInt(level), format, new Object[] {arg}, null);
+        } else {
+            logRendered(level, MessageFormatter.format(format, arg));
+        }
+    }
+
+    @Override
+    public void log(Level level, String format, Object arg1, Object arg2) {
+        if (formatsArguments) {
+            inner.log(null, FQCN, toInt(level), format, new Object[] {arg1, arg2}, null);
+        } else {
+            logRendered(level, MessageFormatter.format(format, arg1, arg2));
+        }
+    }
+
+    @Override
+    public void log(Level level, String format, Object arg1, Object arg2, Object arg3) {
+        final Object[] args = {arg1, arg2, arg3};
+        if (formatsArguments) {
+            inner.log(null, FQCN, toInt(level), format, args, null);
+        } else {
+            logRendered(level, MessageFormatter.arrayFormat(format, args));
+        }
+    }
+
+    @Override
+    public void log(Level level, String format, Object[] args) {
+        if (formatsArguments) {
+            inner.log(null, FQCN, toInt(level), format, args, null);
+        } else {
+            logRendered(level, MessageFormatter.arrayFormat(format, args));
+        }
+    }
+
+    @Override
+    public void log(Level level, String message, Throwable thrw) {
+        inner.log(null, FQCN, toInt(level), message, null, thrw);
+    }
+
+    // The throwable is rendered the same way as by Slf4jDelegate when the
+    // backend does not format the arguments itself
+
+    @Override
+    public void log(Level level, Throwable thrw, String format, int leading,
+            Object arg1, Object arg2, Object arg3, Object[] args) {
+
+        if (formatsArguments) {
+            inner.log(null, FQCN, toInt(level), format,
+                LazyLoggerEvent.arguments(leading, arg1, arg2, arg3, args), thrw);
+            return;
+        }
+
+        final int count = leading + (args == null ? 0 : args.length);
+        if (Delegates.hasPlaceholderFor(format, count)) {
+            log(level, MessageRenderer.render(null, format, leading, arg1, arg2, arg3, args), thrw);
+        } else {
+            logRendered(level, MessageFormatter.arrayFormat(format,
+                Delegates.withThrowable(leading, arg1, arg2, arg3, args, thrw)));
+        }
+    }
+
+    private void logRendered(Level level, FormattingTuple tuple) {
+        inner.log(null, FQCN, toInt(level), tuple.getMessage(), null, tuple.getThrowable());
+    }
+
+    private static int toInt(Level level) {
+        switch (level) {
+            case TRACE: return LocationAwareLogger.TRACE_INT;
+            case DEBUG: return LocationAwareLogger.DEBUG_INT;
+            case INFO:  return LocationAwareLogger.INFO_INT;
+            case WARN:  return LocationAwareLogger.WARN_INT;
+            case ERROR: return LocationAwareLogger.ERROR_INT;
+            case FATAL: return LocationAwareLogger.ERROR_INT;
+            default: throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.spi.ExtendedLogger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Delegates directly to a Log4j 2 logger instead of going through its Slf4j
+ * binding. The arguments are passed to the overloads of
+ * {@link ExtendedLogger#logIfEnabled} that take them one by one, so that a
+ * garbage-free Log4j 2 configuration can reuse its messages instead of
+ * allocating an array and a message per call. The name of
+ * {@link Slf4jLogger} is passed as the fully qualified class name, so
+ * location information points at the caller of the Speedment logger.
+ * <p>
+ * This class is only loaded if the Log4j 2 API is on the class path.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Log4j2Delegate implements Delegate {
+
+    // The backend skips the stack frames up to and including this class
+    private final static String FQCN = Slf4jLogger.class.getName();
+
+    // Indexed on the ordinal of the Speedment level
+    private final static org.apache.logging.log4j.Level[] LEVELS = {
+        org.apache.logging.log4j.Level.TRACE,
+        org.apache.logging.log4j.Level.DEBUG,
+        org.apache.logging.log4j.Level.INFO,
+        org.apache.logging.log4j.Level.WARN,
+        org.apache.logging.log4j.Level.ERROR,
+        org.apache.logging.log4j.Level.FATAL
+    };
+
+    private final ExtendedLogger inner;
+
+    Log4j2Delegate(String name) {
+        this(LogManager.getContext(false).getLogger(name));
+    }
+
+    Log4j2Delegate(ExtendedLogger inner) {
+        this.inner = requireNonNull(inner);
+    }
+
+    @Override
+    public String getName() {
+        return inner.getName();
+    }
+
+    @Override
+    public boolean isEnabled(Level level) {
+        return inner.isEnabled(LEVELS[level.ordinal()]);
+    }
+
+    @Override
+    public void log(Level level, String message) {
+        inner.logIfEnabled(FQCN, LEVELS[level.ordinal()], null, message);
+    }
+
+    @Override
+    public void log(Level level, String format, Object arg) {
+        inner.logIfEnabled(FQCN, LEVELS[level.ordinal()], null, format, arg);
+    }
+
+    @Override
+    public void log(Level level, String format, Object arg1, Object arg2) {
+        inner.logIfEnabled(FQCN, LEVELS[level.ordinal()], null, format, arg1, arg2);
+    }
+
+    @Override
+    public void log(Level level, String format, Object arg1, Object arg2, Object arg3) {
+        inner.logIfEnabled(FQCN, LEVELS[level.ordinal()], null, format, arg1, arg2, arg3);
+    }
+
+    @Override
+    public void log(Level level, String format, Object[] args) {
+        inner.logIfEnabled(FQCN, LEVELS[level.ordinal()], null, format, args);
+    }
+
+    @Override
+    public void log(Level level, String message, Throwable thrw) {
+        inner.logIfEnabled(FQCN, LEVELS[level.ordinal()], null, message, thrw);
+    }
+
+    // Log4j 2 takes a throwable last in the arguments as the cause of the
+    // message, but only if there are more arguments than placeholders.
+    // Otherwise the throwable is passed on its own, with a message that
+    // holds the rest of the arguments.
+
+    @Override
+    public void log(Level level, Throwable thrw, String format, int leading,
+            Object arg1, Object arg2, Object arg3, Object[] args) {
+
+        final org.apache.logging.log4j.Level lvl = LEVELS[level.ordinal()];
+        final int count = leading + (args == null ? 0 : args.length);
+        if (Delegates.hasPlaceholderFor(format, count)) {
+            inner.logIfEnabled(FQCN, lvl, null, new ParameterizedMessage(format,
+                LazyLoggerEvent.arguments(leading, arg1, arg2, arg3, args), thrw), thrw);
+        } else if (args != null) {
+            inner.logIfEnabled(FQCN, lvl, null, format,
+                Delegates.withThrowable(leading, arg1, arg2, arg3, args, thrw));
+        } else {
+            switch (leading) {
+                case 0: inner.logIfEnabled(FQCN, lvl, null, format, thrw); break;
+                case 1: inner.logIfEnabled(FQCN, lvl, null, format, arg1, thrw); break;
+                case 2: inner.logIfEnabled(FQCN, lvl, null, format, arg1, arg2, thrw); break;
+                case 3: inner.logIfEnabled(FQCN, lvl, null, format, arg1, arg2, arg3, thrw); break;
+                default: throw new UnsupportedOperationException();
+            }
+        }
+    }
+}
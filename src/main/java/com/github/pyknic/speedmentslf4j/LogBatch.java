@@ -0,0 +1,216 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.LoggerEventListener;
+
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects messages of the same level from a {@link Slf4jLogger} and logs them
+ * when the batch is flushed. The level is checked and the listeners are looked
+ * up once, when the batch is created, so adding a message to a batch of a
+ * disabled level costs nothing. The arguments are kept in one array that
+ * grows as needed, so adding a message does not allocate anything either.
+ * <pre>{@code
+ * try (LogBatch batch = logger.batch(Level.DEBUG)) {
+ *     entities.forEach(e -> batch.add("Persisted {}", e));
+ * }
+ * }</pre>
+ * Messages are flushed when {@link #flush()} or {@link #close()} is invoked,
+ * and whenever the batch is full. A batch must only be used by one thread
+ * at a time.
+ * <p>
+ * When flushed, each message is passed to the backend and the listeners on
+ * its own, in the same way as if it had been logged directly when the batch
+ * was flushed. Sampling, throttling, metrics and Java Flight Recorder events
+ * apply to every message, and {@code ERROR} messages replay the flight
+ * recorder. A message with three or more arguments gets an array of its own.
+ * The differences to logging the messages directly are:
+ * <ul>
+ *     <li>The level is only checked when the batch is created, so a level
+ *         changed before the batch is flushed does not affect it.
+ *     <li>Messages added to a batch of a disabled level are discarded
+ *         without being recorded by the flight recorder, and metrics count
+ *         the batch as a single filtered message.
+ * </ul>
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class LogBatch implements AutoCloseable {
+
+    private final static int INITIAL_ARGUMENTS = 16;
+
+    private final Slf4jLogger logger;
+    private final Level level;
+    private final LoggerEventListener[] listeners; // Null if the level is disabled
+
+    private final String[] formats;  // Null if the level is disabled
+    private final int[] offsets;     // Where the arguments of each message start
+    private Object[] arguments;      // The arguments of every message in order
+    private int size, length;        // Number of messages and arguments
+
+    LogBatch(Slf4jLogger logger, Level level, int capacity, LoggerEventListener[] listeners) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity + ".");
+        }
+
+        this.logger    = requireNonNull(logger);
+        this.level     = requireNonNull(level);
+        this.listeners = listeners;
+
+        if (listeners == null) {
+            this.formats   = null;
+            this.offsets   = null;
+            this.arguments = null;
+        } else {
+            this.formats   = new String[capacity];
+            this.offsets   = new int[capacity + 1];
+            this.arguments = new Object[INITIAL_ARGUMENTS];
+        }
+    }
+
+    /**
+     * Returns the level of the messages in this batch.
+     *
+     * @return  the level
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns if the level of this batch was enabled when the batch was
+     * created. If not, messages added to the batch are discarded.
+     *
+     * @return  {@code true} if enabled
+     */
+    public boolean isEnabled() {
+        return formats != null;
+    }
+
+    /**
+     * Adds a message without arguments.
+     *
+     * @param message  the message
+     */
+    public void add(String message) {
+        if (formats != null) {
+            begin(message, 0);
+            end();
+        }
+    }
+
+    /**
+     * Adds a message with one argument.
+     *
+     * @param format  the format with {@code {}} placeholders
+     * @param arg     the argument
+     */
+    public void add(String format, Object arg) {
+        if (formats != null) {
+            begin(format, 1);
+            arguments[length++] = arg;
+            end();
+        }
+    }
+
+    /**
+     * Adds a message with two arguments.
+     *
+     * @param format  the format with {@code {}} placeholders
+     * @param arg1    the first argument
+     * @param arg2    the second argument
+     */
+    public void add(String format, Object arg1, Object arg2) {
+        if (formats != null) {
+            begin(format, 2);
+            arguments[length++] = arg1;
+            arguments[length++] = arg2;
+            end();
+        }
+    }
+
+    /**
+     * Adds a message with any number of arguments.
+     *
+     * @param format  the format with {@code {}} placeholders
+     * @param args    the arguments
+     */
+    public void add(String format, Object... args) {
+        if (formats != null) {
+            begin(format, args.length);
+            System.arraycopy(args, 0, arguments, length, args.length);
+            length += args.length;
+            end();
+        }
+    }
+
+    /**
+     * Logs every message added since the last flush, in the order they were
+     * added. If logging one of them throws an exception, the messages after
+     * it are discarded, so that the batch is empty and can still be used
+     * once the exception has been handled.
+     */
+    public void flush() {
+        try {
+            for (int i = 0; i < size; i++) {
+                logger.logBatched(level, formats[i], arguments, offsets[i], offsets[i + 1], listeners);
+            }
+        } finally {
+            if (size > 0) {
+                Arrays.fill(formats, 0, size, null);
+            }
+
+            if (length > 0) {
+                Arrays.fill(arguments, 0, length, null);
+            }
+
+            size   = 0;
+            length = 0;
+        }
+    }
+
+    /**
+     * Flushes the batch.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void begin(String format, int count) {
+        final int needed = length + count;
+        if (needed > arguments.length) {
+            arguments = Arrays.copyOf(arguments, Math.max(needed, arguments.length * 2));
+        }
+
+        formats[size] = format;
+        offsets[size] = length;
+    }
+
+    private void end() {
+        offsets[++size] = length;
+        if (size == formats.length) {
+            flush();
+        }
+    }
+}
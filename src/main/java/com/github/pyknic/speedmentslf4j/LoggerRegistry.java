@@ -0,0 +1,71 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Logger;
+
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The loggers created by a {@link Slf4jLoggerFactory}, by binding. The binding
+ * is the full name of the Slf4j logger, which is unique, while the name that
+ * the rules of the factory are matched against might be abbreviated and
+ * shared by several loggers. Looking up an existing logger must not take any
+ * lock.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+interface LoggerRegistry {
+
+    /**
+     * Returns the logger with the specified binding, if it exists.
+     *
+     * @param binding  the full name of the logger
+     * @return         the logger, or {@code null}
+     */
+    Slf4jLogger get(String binding);
+
+    /**
+     * Returns the logger with the specified binding, creating it with the
+     * specified function if it does not exist. The function is invoked at
+     * most once per call.
+     *
+     * @param binding  the full name of the logger
+     * @param creator  creates the logger
+     * @return         the logger
+     */
+    Slf4jLogger computeIfAbsent(String binding, Function<String, Slf4jLogger> creator);
+
+    /**
+     * Invokes the specified action for every logger in the registry.
+     *
+     * @param action  the action
+     */
+    void forEach(Consumer<Slf4jLogger> action);
+
+    /**
+     * Returns every logger in the registry with the name that rules are
+     * matched against.
+     *
+     * @return  the loggers
+     */
+    Stream<Map.Entry<String, Logger>> entries();
+}
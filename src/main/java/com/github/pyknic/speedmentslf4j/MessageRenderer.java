@@ -0,0 +1,301 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Renders messages with Slf4j-style {@code {}} placeholders. The rules are the
+ * same as in {@code org.slf4j.helpers.MessageFormatter}: placeholders are
+ * replaced with the arguments in order, {@code \{}} is a literal {@code {}}
+ * and placeholders without a matching argument are kept as they are. A
+ * throwable last in the arguments is taken as the cause of the message, so it
+ * is never put in a placeholder.
+ * <p>
+ * Messages are rendered into a {@code StringBuilder} that is reused by the
+ * calling thread, so the only allocation in the common case is the resulting
+ * {@code String}. Each format is only parsed once, into a
+ * {@link MessageTemplate} that is cached for the next time.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class MessageRenderer {
+
+    private final static int INITIAL_CAPACITY = 256;
+    private final static int MAX_RETAINED_CAPACITY = 4096;
+
+    private final static ThreadLocal<Buffer> BUFFER =
+        ThreadLocal.withInitial(Buffer::new);
+
+    // Classes whose instances can't change once created. Only the exact
+    // classes, since subclasses of BigInteger and BigDecimal could be mutable
+    private final static Set<Class<?>> IMMUTABLE = new HashSet<>(Arrays.asList(
+        String.class, Boolean.class, Character.class, Byte.class, Short.class,
+        Integer.class, Long.class, Float.class, Double.class, BigInteger.class,
+        BigDecimal.class, UUID.class, Instant.class, Duration.class,
+        Period.class, LocalDate.class, LocalTime.class, LocalDateTime.class,
+        OffsetTime.class, OffsetDateTime.class, ZonedDateTime.class,
+        ZoneOffset.class
+    ));
+
+    static String render(String format, Object arg) {
+        return render(null, format, 1, 1, arg, null, null, null);
+    }
+
+    static String render(String format, Object arg1, Object arg2) {
+        return render(null, format, 2, 2, arg1, arg2, null, null);
+    }
+
+    static String render(String format, Object arg1, Object arg2, Object arg3) {
+        return render(null, format, 3, 3, arg1, arg2, arg3, null);
+    }
+
+    static String render(String format, Object arg1, Object arg2, Object arg3, Object[] args) {
+        return render(null, format, 3 + args.length, 3, arg1, arg2, arg3, args);
+    }
+
+    static String render(String format, Object[] args) {
+        return render(null, format, args.length, 0, null, null, null, args);
+    }
+
+    /**
+     * Renders the message with the specified prefix in front of it. The first
+     * {@code leading} arguments are given as {@code arg1} to {@code arg3} and
+     * the rest in {@code args}. The prefix is appended as it is, without
+     * looking for placeholders in it.
+     *
+     * @param prefix   the prefix, or {@code null} for none
+     * @param format   the message format with {@code {}} placeholders
+     * @param leading  the number of leading arguments (0 to 3)
+     * @param arg1     the first argument, if leading is at least 1
+     * @param arg2     the second argument, if leading is at least 2
+     * @param arg3     the third argument, if leading is 3
+     * @param args     the remaining arguments, or {@code null}
+     * @return         the rendered message
+     */
+    static String render(String prefix, String format, int leading,
+            Object arg1, Object arg2, Object arg3, Object[] args) {
+        final int count = leading + (args == null ? 0 : args.length);
+        return render(prefix, format, count, leading, arg1, arg2, arg3, args);
+    }
+
+    /**
+     * Appends the rendered message to the specified builder.
+     *
+     * @param sb      the builder to append to
+     * @param format  the message format with {@code {}} placeholders
+     * @param args    the arguments
+     */
+    static void appendTo(StringBuilder sb, String format, Object[] args) {
+        appendTo(sb, format, args.length, 0, null, null, null, args);
+    }
+
+    // The first 'leading' arguments are passed as arg1 to arg3 and the rest
+    // in the 'args' array, so that callers never have to concatenate them.
+
+    private static String render(String prefix, String format, int count, int leading,
+            Object arg1, Object arg2, Object arg3, Object[] args) {
+
+        if (format == null) {
+            return prefix;
+        }
+
+        // Virtual threads get a new builder every time instead of one that
+        // would be kept for each of them
+        final Buffer buffer = Platform.isThreadLocalFriendly() ? BUFFER.get() : null;
+
+        // An argument might log from its toString()-method, in which case the
+        // shared builder is already in use further up the stack.
+        if (buffer == null || buffer.inUse) {
+            final StringBuilder sb = new StringBuilder(format.length() + 32);
+            if (prefix != null) sb.append(prefix);
+            appendTo(sb, format, count, leading, arg1, arg2, arg3, args);
+            return sb.toString();
+        }
+
+        buffer.inUse = true;
+        try {
+            final StringBuilder sb = buffer.builder;
+            sb.setLength(0);
+            if (prefix != null) sb.append(prefix);
+            appendTo(sb, format, count, leading, arg1, arg2, arg3, args);
+            return sb.toString();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static void appendTo(StringBuilder sb, String format, int count, int leading,
+            Object arg1, Object arg2, Object arg3, Object[] args) {
+
+        if (count > 0 && argAt(count - 1, leading, arg1, arg2, arg3, args) instanceof Throwable) {
+            count--;
+        }
+
+        if (count == 0) {
+            // Nothing to replace, and dynamic messages stay out of the cache
+            sb.append(format);
+        } else {
+            MessageTemplate.of(format).appendTo(sb, count, leading, arg1, arg2, arg3, args);
+        }
+    }
+
+    /**
+     * Returns a copy of the specified argument that is safe to render later
+     * on another thread. Arguments that can't change, like strings, boxed
+     * primitives, enums and classes, are returned as they are. Throwables are
+     * also returned as they are, so that listeners can still inspect them.
+     * Anything else, including arrays, is rendered into a string right away,
+     * the same way it would have been rendered in the message.
+     *
+     * @param arg  the argument, may be {@code null}
+     * @return     the argument or its rendered string
+     */
+    static Object snapshot(Object arg) {
+        if (arg == null
+        ||  IMMUTABLE.contains(arg.getClass())
+        ||  arg instanceof Enum
+        ||  arg instanceof Class
+        ||  arg instanceof Throwable) {
+            return arg;
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        appendArg(sb, arg, null);
+        return sb.toString();
+    }
+
+    /**
+     * Returns a new array with a {@link #snapshot(Object)} of each of the
+     * specified arguments.
+     *
+     * @param args  the arguments, may be {@code null}
+     * @return      the snapshots, or {@code null}
+     */
+    static Object[] snapshot(Object[] args) {
+        if (args == null) {
+            return null;
+        }
+
+        final Object[] copy = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            copy[i] = snapshot(args[i]);
+        }
+        return copy;
+    }
+
+    static Object argAt(int idx, int leading, Object arg1, Object arg2, Object arg3, Object[] args) {
+        if (idx >= leading) {
+            return args[idx - leading];
+        }
+
+        switch (idx) {
+            case 0:  return arg1;
+            case 1:  return arg2;
+            default: return arg3;
+        }
+    }
+
+    static void appendArg(StringBuilder sb, Object arg, Map<Object[], Object> seen) {
+        if (arg == null) {
+            sb.append("null");
+        } else if (!arg.getClass().isArray()) {
+            appendSafely(sb, arg);
+        } else if (arg instanceof Object[]) {
+            appendObjectArray(sb, (Object[]) arg, seen);
+        } else if (arg instanceof boolean[]) {
+            sb.append(Arrays.toString((boolean[]) arg));
+        } else if (arg instanceof byte[]) {
+            sb.append(Arrays.toString((byte[]) arg));
+        } else if (arg instanceof char[]) {
+            sb.append(Arrays.toString((char[]) arg));
+        } else if (arg instanceof short[]) {
+            sb.append(Arrays.toString((short[]) arg));
+        } else if (arg instanceof int[]) {
+            sb.append(Arrays.toString((int[]) arg));
+        } else if (arg instanceof long[]) {
+            sb.append(Arrays.toString((long[]) arg));
+        } else if (arg instanceof float[]) {
+            sb.append(Arrays.toString((float[]) arg));
+        } else if (arg instanceof double[]) {
+            sb.append(Arrays.toString((double[]) arg));
+        }
+    }
+
+    private static void appendObjectArray(StringBuilder sb, Object[] array, Map<Object[], Object> seen) {
+        final Map<Object[], Object> visited = seen == null ? new IdentityHashMap<>() : seen;
+        if (visited.put(array, Boolean.TRUE) != null) {
+            sb.append("[...]");
+            return;
+        }
+
+        sb.append('[');
+        for (int i = 0; i < array.length; i++) {
+            if (i > 0) sb.append(", ");
+            appendArg(sb, array[i], visited);
+        }
+        sb.append(']');
+        visited.remove(array);
+    }
+
+    // Strings and the most common boxed primitives are appended without
+    // creating an intermediate string
+
+    private static void appendSafely(StringBuilder sb, Object arg) {
+        if (arg instanceof String) {
+            sb.append((String) arg);
+        } else if (arg instanceof Integer) {
+            sb.append(((Integer) arg).intValue());
+        } else if (arg instanceof Long) {
+            sb.append(((Long) arg).longValue());
+        } else if (arg instanceof Boolean) {
+            sb.append(((Boolean) arg).booleanValue());
+        } else if (arg instanceof Character) {
+            sb.append(((Character) arg).charValue());
+        } else {
+            appendToString(sb, arg);
+        }
+    }
+
+    private static void appendToString(StringBuilder sb, Object arg) {
+        try {
+            sb.append(arg.toString());
+        } catch (final Throwable thrw) {
+            sb.append("[FAILED toString()]");
+        }
+    }
+
+    private final static class Buffer {
+
+        private StringBuilder builder = new StringBuilder(INITIAL_CAPACITY);
+        private boolean inUse;
+
+        private void release() {
+            // Don't let a single huge message pin memory for the thread
+            if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+                builder = new StringBuilder(INITIAL_CAPACITY);
+            }
+            inUse = false;
+        }
+    }
+
+    private MessageRenderer() {}
+}
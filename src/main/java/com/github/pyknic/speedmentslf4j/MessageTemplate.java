@@ -0,0 +1,182 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message format that has been parsed once into the literal text between
+ * the {@code {}} placeholders, so that rendering it is only a matter of
+ * appending the literals and the arguments in turn. Every argument it is
+ * given is rendered, so a throwable that should be the cause of the message
+ * must already have been left out of the count, as {@link MessageRenderer}
+ * does.
+ * <p>
+ * Templates are cached in a small direct-mapped table keyed on the identity
+ * of the format string, since the formats used in logging calls are almost
+ * always constants. A format that is not in the table is compiled and
+ * replaces whatever template was there before. The table is read and written
+ * without locking; templates are immutable, so the worst that can happen is
+ * that a template is compiled twice.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class MessageTemplate {
+
+    private final static char DELIM_START = '{';
+    private final static char DELIM_STOP  = '}';
+    private final static char ESCAPE      = '\\';
+
+    private final static int CACHE_SIZE = 1024; // Must be a power of two
+    private final static int MAX_CACHED_LENGTH = 1024;
+
+    private final static MessageTemplate[] CACHE = new MessageTemplate[CACHE_SIZE];
+
+    private final String format;
+    private final String[] literals; // One more than the number of placeholders, escapes resolved
+    private final int[] tails;       // Where the format continues after each placeholder
+
+    /**
+     * Returns the template for the specified format, compiling it if it is
+     * not already cached.
+     *
+     * @param format  the message format with {@code {}} placeholders
+     * @return        the template
+     */
+    static MessageTemplate of(String format) {
+        final int idx = index(format);
+        final MessageTemplate cached = CACHE[idx];
+        if (cached != null && cached.format == format) {
+            return cached;
+        }
+
+        final MessageTemplate compiled = compile(format);
+        if (format.length() <= MAX_CACHED_LENGTH) {
+            CACHE[idx] = compiled;
+        }
+        return compiled;
+    }
+
+    /**
+     * Returns the cached template for the specified format without compiling
+     * it, or {@code null} if it is not cached.
+     *
+     * @param format  the message format
+     * @return        the template or {@code null}
+     */
+    static MessageTemplate cached(String format) {
+        final MessageTemplate cached = CACHE[index(format)];
+        return cached != null && cached.format == format ? cached : null;
+    }
+
+    /**
+     * Returns the number of placeholders in the format.
+     *
+     * @return  the number of placeholders
+     */
+    int placeholders() {
+        return tails.length - 1;
+    }
+
+    // The first 'leading' arguments are passed as arg1 to arg3 and the rest
+    // in 'args', in the same way as in MessageRenderer, and 'count' does not
+    // include a trailing throwable that is the cause. Like in Slf4j, the
+    // format is copied as it is once the arguments run out, so escapes after
+    // the last used placeholder are only resolved if there are more arguments
+    // than placeholders.
+
+    void appendTo(StringBuilder sb, int count, int leading,
+            Object arg1, Object arg2, Object arg3, Object[] args) {
+
+        final int slots = Math.min(count, placeholders());
+        for (int i = 0; i < slots; i++) {
+            sb.append(literals[i]);
+            MessageRenderer.appendArg(sb, MessageRenderer.argAt(i, leading, arg1, arg2, arg3, args), null);
+        }
+
+        if (count > slots) {
+            sb.append(literals[slots]);
+        } else {
+            sb.append(format, tails[slots], format.length());
+        }
+    }
+
+    private static MessageTemplate compile(String format) {
+        final List<String> literals = new ArrayList<>();
+        final List<Integer> tails = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        final int length = format.length();
+        int from = 0;
+        tails.add(from);
+
+        while (true) {
+            final int idx = format.indexOf(DELIM_START, from);
+            if (idx < 0 || idx + 1 >= length) {
+                break;
+            }
+
+            if (format.charAt(idx + 1) != DELIM_STOP) {
+                literal.append(format, from, idx + 1);
+                from = idx + 1;
+                continue;
+            }
+
+            if (isEscaped(format, idx)) {
+                if (isEscaped(format, idx - 1)) {
+                    // The escape character is itself escaped: "\\{}"
+                    literal.append(format, from, idx - 1);
+                } else {
+                    // A literal placeholder: "\{}"
+                    literal.append(format, from, idx - 1).append(DELIM_START);
+                    from = idx + 1;
+                    continue;
+                }
+            } else {
+                literal.append(format, from, idx);
+            }
+
+            literals.add(literal.toString());
+            literal.setLength(0);
+            from = idx + 2;
+            tails.add(from);
+        }
+
+        literals.add(literal.append(format, from, length).toString());
+        return new MessageTemplate(format,
+            literals.toArray(new String[0]),
+            tails.stream().mapToInt(Integer::intValue).toArray()
+        );
+    }
+
+    private static boolean isEscaped(String format, int delimIdx) {
+        return delimIdx > 0 && format.charAt(delimIdx - 1) == ESCAPE;
+    }
+
+    private static int index(String format) {
+        // The hash of a constant is computed once and then cached in the string
+        final int hash = format.hashCode();
+        return (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+    }
+
+    private MessageTemplate(String format, String[] literals, int[] tails) {
+        this.format   = format;
+        this.literals = literals;
+        this.tails    = tails;
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.github.pyknic.speedmentslf4j.MetricsSnapshot.Counter;
+import com.speedment.common.logger.Level;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters and latency histograms of a {@link Slf4jLoggerFactory} while
+ * metrics are enabled. Every counter is a {@link LongAdder}, so threads that
+ * log at the same time don't contend on the same memory.
+ * <p>
+ * Loggers register their counters the first time they count something, so
+ * loggers that are never used cost nothing. Counters are keyed on the name
+ * the logger has in the registry of the factory, and are removed together
+ * with the logger if the factory holds its loggers weakly.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Metrics {
+
+    private final static Level[] LEVELS = Level.values();
+    private final static Counter[] COUNTERS = Counter.values();
+
+    // Bucket i holds calls that took less than 2^i nanoseconds, but at
+    // least 2^(i - 1) nanoseconds
+    final static int BUCKETS = 64;
+
+    private final int sampling;
+    private final ConcurrentMap<String, Counters> loggers;
+    private final LongAdder[] latencies; // Indexed on level * BUCKETS + bucket
+
+    Metrics(int sampling) {
+        if (sampling < 0) {
+            throw new IllegalArgumentException("Latency sampling can't be negative, was " + sampling + ".");
+        }
+
+        this.sampling  = sampling;
+        this.loggers   = new ConcurrentHashMap<>();
+        this.latencies = new LongAdder[LEVELS.length * BUCKETS];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the counters of the logger with the specified name, creating
+     * them if needed.
+     *
+     * @param name  the name of the logger
+     * @return      the counters
+     */
+    Counters register(String name) {
+        return loggers.computeIfAbsent(name, n -> new Counters(this));
+    }
+
+    /**
+     * Removes the counters of the logger with the specified name. A logger
+     * that still holds on to them registers new ones the next time it counts
+     * something.
+     *
+     * @param name  the name of the logger
+     */
+    void unregister(String name) {
+        final Counters removed = loggers.remove(name);
+        if (removed != null) {
+            removed.removed = true;
+        }
+    }
+
+    /**
+     * Returns if the latency of the current call should be recorded.
+     *
+     * @return  {@code true} if it should be sampled
+     */
+    boolean isSampled() {
+        return sampling > 0 && (sampling == 1
+            || ThreadLocalRandom.current().nextInt(sampling) == 0);
+    }
+
+    void recordLatency(Level level, long nanos) {
+        final int bucket = nanos <= 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros(nanos);
+        latencies[level.ordinal() * BUCKETS + bucket].increment();
+    }
+
+    MetricsSnapshot snapshot() {
+        final Map<String, long[]> counts = new HashMap<>();
+        loggers.forEach((name, counters) -> {
+            final long[] values = new long[counters.adders.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = counters.adders[i].sum();
+            }
+            counts.put(name, values);
+        });
+
+        final long[][] histograms = new long[LEVELS.length][BUCKETS];
+        for (int i = 0; i < latencies.length; i++) {
+            histograms[i / BUCKETS][i % BUCKETS] = latencies[i].sum();
+        }
+
+        return new MetricsSnapshot(counts, histograms);
+    }
+
+    static int index(Counter counter, Level level) {
+        return counter.ordinal() * LEVELS.length + level.ordinal();
+    }
+
+    /**
+     * The counters of a single logger.
+     */
+    final static class Counters {
+
+        private final Metrics metrics;
+        private final LongAdder[] adders; // Indexed on index(Counter, Level)
+        private volatile boolean removed;
+
+        private Counters(Metrics metrics) {
+            this.metrics = metrics;
+            this.adders  = new LongAdder[COUNTERS.length * LEVELS.length];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+        }
+
+        boolean belongsTo(Metrics metrics) {
+            return this.metrics == metrics;
+        }
+
+        boolean isRemoved() {
+            return removed;
+        }
+
+        void increment(Counter counter, Level level) {
+            adders[index(counter, level)].increment();
+        }
+    }
+}
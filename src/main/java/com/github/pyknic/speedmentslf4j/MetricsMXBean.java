@@ -0,0 +1,98 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics of a {@link Slf4jLoggerFactory}, registered with
+ * {@link Slf4jLoggerFactory#registerMetricsMBean(String)}. Every attribute is
+ * computed from a new {@link MetricsSnapshot}.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Returns if metrics are currently collected.
+     *
+     * @return  {@code true} if enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the number of messages passed on to the Slf4j backend.
+     *
+     * @return  the emitted count
+     */
+    long getEmittedCount();
+
+    /**
+     * Returns the number of messages discarded since their level is not
+     * enabled.
+     *
+     * @return  the filtered count
+     */
+    long getFilteredCount();
+
+    /**
+     * Returns the number of messages discarded by a {@link Throttle}.
+     *
+     * @return  the throttled count
+     */
+    long getThrottledCount();
+
+    /**
+     * Returns the number of messages discarded by {@link Sampling}.
+     *
+     * @return  the sampled out count
+     */
+    long getSampledOutCount();
+
+    /**
+     * Returns the number of messages passed on to listeners.
+     *
+     * @return  the listened count
+     */
+    long getListenedCount();
+
+    /**
+     * Returns the number of messages passed on to the Slf4j backend for
+     * each level.
+     *
+     * @return  the emitted count by level name
+     */
+    Map<String, Long> getEmittedCountByLevel();
+
+    /**
+     * Returns the number of messages passed on to the Slf4j backend for
+     * each logger.
+     *
+     * @return  the emitted count by logger name
+     */
+    Map<String, Long> getEmittedCountByLogger();
+
+    /**
+     * Returns an upper bound of the 99th percentile of the sampled call
+     * latencies for each level, in nanoseconds. Levels without any samples
+     * are left out.
+     *
+     * @return  the latency by level name
+     */
+    Map<String, Long> getLatency99thPercentile();
+}
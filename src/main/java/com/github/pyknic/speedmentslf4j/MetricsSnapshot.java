@@ -0,0 +1,205 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The metrics of a {@link Slf4jLoggerFactory} at a point in time, as returned
+ * by {@link Slf4jLoggerFactory#snapshotMetrics()}. Counts are kept per logger
+ * and level, while call latencies are kept per level as histograms with one
+ * bucket per power of two nanoseconds.
+ * <p>
+ * Loggers are identified by the names they have in
+ * {@link Slf4jLoggerFactory#loggers()}, so a logger created from a class has
+ * the abbreviated name of the class. If the factory was created with
+ * {@link Slf4jLoggerFactory.Retention#WEAK}, the counts of a logger are
+ * discarded once the logger has been garbage collected.
+ * <p>
+ * The counters are read one at a time while other threads may be logging,
+ * so a snapshot is not guaranteed to be consistent between counters.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class MetricsSnapshot {
+
+    /**
+     * What happened to a log call.
+     */
+    public enum Counter {
+
+        /**
+         * The message was passed on to the Slf4j backend.
+         */
+        EMITTED,
+
+        /**
+         * The message was discarded since its level is not enabled.
+         */
+        FILTERED,
+
+        /**
+         * The message was discarded by a {@link Throttle}.
+         */
+        THROTTLED,
+
+        /**
+         * The message was discarded by {@link Sampling}.
+         */
+        SAMPLED_OUT,
+
+        /**
+         * The message was passed on to at least one listener.
+         */
+        LISTENED
+    }
+
+    private final static Level[] LEVELS = Level.values();
+
+    private final Map<String, long[]> counts;
+    private final long[][] latencies;
+
+    MetricsSnapshot(Map<String, long[]> counts, long[][] latencies) {
+        this.counts    = Collections.unmodifiableMap(new TreeMap<>(counts));
+        this.latencies = requireNonNull(latencies);
+    }
+
+    /**
+     * Returns the names of the loggers that have counted anything, in
+     * alphabetical order.
+     *
+     * @return  the logger names
+     */
+    public Set<String> getLoggerNames() {
+        return counts.keySet();
+    }
+
+    /**
+     * Returns the count for the specified logger, counter and level.
+     *
+     * @param logger   the name of the logger
+     * @param counter  the counter
+     * @param level    the level
+     * @return         the count, or zero if the logger is unknown
+     */
+    public long getCount(String logger, Counter counter, Level level) {
+        final long[] values = counts.get(logger);
+        return values == null ? 0 : values[Metrics.index(counter, level)];
+    }
+
+    /**
+     * Returns the count for the specified logger and counter, for all levels.
+     *
+     * @param logger   the name of the logger
+     * @param counter  the counter
+     * @return         the count, or zero if the logger is unknown
+     */
+    public long getCount(String logger, Counter counter) {
+        long sum = 0;
+        for (final Level level : LEVELS) {
+            sum += getCount(logger, counter, level);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the count for the specified counter and level, for all loggers.
+     *
+     * @param counter  the counter
+     * @param level    the level
+     * @return         the count
+     */
+    public long getTotal(Counter counter, Level level) {
+        final int idx = Metrics.index(counter, level);
+        long sum = 0;
+        for (final long[] values : counts.values()) {
+            sum += values[idx];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the count for the specified counter, for all loggers and levels.
+     *
+     * @param counter  the counter
+     * @return         the count
+     */
+    public long getTotal(Counter counter) {
+        long sum = 0;
+        for (final Level level : LEVELS) {
+            sum += getTotal(counter, level);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the histogram of sampled call latencies for the specified level.
+     * Bucket {@code i} holds the number of calls that took at least
+     * {@code 2^(i - 1)} but less than {@code 2^i} nanoseconds. The latency
+     * includes rendering the message, the Slf4j backend and any listeners
+     * that are invoked synchronously.
+     *
+     * @param level  the level
+     * @return       a copy of the histogram
+     */
+    public long[] getLatencyHistogram(Level level) {
+        return latencies[level.ordinal()].clone();
+    }
+
+    /**
+     * Returns an upper bound of the specified percentile of the sampled call
+     * latencies for the specified level, in nanoseconds.
+     *
+     * @param level       the level
+     * @param percentile  the percentile, between 0 and 100
+     * @return            the latency in nanoseconds, or -1 if nothing has been sampled
+     */
+    public long getLatencyPercentile(Level level, double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100, was " + percentile + ".");
+        }
+
+        final long[] histogram = latencies[level.ordinal()];
+        long total = 0;
+        for (final long count : histogram) {
+            total += count;
+        }
+
+        if (total == 0) {
+            return -1;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return i == Metrics.BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+}
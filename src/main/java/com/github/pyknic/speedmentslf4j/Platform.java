@@ -0,0 +1,77 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The few operations on the hot paths that can be done better on later
+ * versions of Java. This is the Java 8 version; the jar also contains
+ * versions of this class for Java 11 and Java 21 under
+ * {@code META-INF/versions}, which the JVM picks automatically. Every
+ * version must have the same methods with the same behavior.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Platform {
+
+    /**
+     * Returns the version of Java that this version of the class is for,
+     * which is 8, 11 or 21.
+     *
+     * @return  the version of the class
+     */
+    static int version() {
+        return 8;
+    }
+
+    /**
+     * Returns the id of the current thread.
+     *
+     * @return  the thread id
+     */
+    static long currentThreadId() {
+        return Thread.currentThread().getId();
+    }
+
+    /**
+     * Returns {@code true} if per-thread caches should be used on the
+     * current thread. On Java 8 they always should.
+     *
+     * @return  {@code true} if per-thread caches should be used
+     */
+    static boolean isThreadLocalFriendly() {
+        return true;
+    }
+
+    /**
+     * Writes an {@code int} to the buffer so that other threads and
+     * processes that see it also see every write to the buffer before it.
+     * On Java 8 this is a plain write, which relies on the processor not
+     * reordering stores.
+     *
+     * @param buffer  the buffer
+     * @param index   the index to write to
+     * @param value   the value to write
+     */
+    static void putIntRelease(ByteBuffer buffer, int index, int value) {
+        buffer.putInt(index, value);
+    }
+
+    private Platform() {}
+}
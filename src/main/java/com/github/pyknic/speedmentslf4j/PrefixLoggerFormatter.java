@@ -0,0 +1,49 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.LoggerFormatter;
+
+/**
+ * A {@link LoggerFormatter} that only puts a prefix in front of the message,
+ * for example the name of the application. Since the prefix only depends
+ * on the level and the name of the logger, {@link Slf4jLogger} computes it
+ * once when the formatter is set instead of on every call. An empty prefix
+ * for every level makes the formatter as cheap as no formatter at all.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+@FunctionalInterface
+public interface PrefixLoggerFormatter extends LoggerFormatter {
+
+    /**
+     * Returns the prefix for messages with the specified level from the
+     * logger with the specified name.
+     *
+     * @param level  the level
+     * @param name   the name of the logger
+     * @return       the prefix, never {@code null}
+     */
+    String prefix(Level level, String name);
+
+    @Override
+    default String apply(Level level, String name, String message) {
+        return prefix(level, name) + message;
+    }
+}
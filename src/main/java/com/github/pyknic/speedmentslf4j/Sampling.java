@@ -0,0 +1,160 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Decides which messages of a level to keep, so that a high-volume level like
+ * {@code DEBUG} can be enabled in production while only a fraction of the
+ * messages are logged. Messages can either be kept with a probability, or
+ * one in every {@code n} messages can be kept.
+ * <p>
+ * Sampling is set with
+ * {@link Slf4jLoggerFactory#setSampling(String, com.speedment.common.logger.Level, Sampling)}.
+ * The decision is made before the message is rendered or any array is
+ * allocated. The number of messages that were not kept is counted as
+ * {@link MetricsSnapshot.Counter#SAMPLED_OUT} if metrics are enabled, so
+ * that the real volume can be estimated.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class Sampling {
+
+    /**
+     * Keeps every message, which is the same as no sampling at all.
+     */
+    public final static Sampling ALL = new Sampling(1, 1);
+
+    // Counters for different threads are kept this many longs apart, so
+    // that they don't share a cache line
+    private final static int STRIDE = 8;
+
+    private final static int STRIPES = stripes();
+
+    private final double probability;
+    private final int interval;
+
+    /**
+     * Returns a sampling that keeps each message with the specified
+     * probability, using a random number that is local to the thread.
+     *
+     * @param probability  the probability to keep a message, from 0 to 1
+     * @return             the sampling
+     */
+    public static Sampling probability(double probability) {
+        if (!(probability >= 0 && probability <= 1)) {
+            throw new IllegalArgumentException("Probability must be between 0 and 1, was " + probability + ".");
+        }
+        return new Sampling(probability, 0);
+    }
+
+    /**
+     * Returns a sampling that keeps one in every {@code n} messages. The
+     * messages are counted separately for a few groups of threads, so that
+     * threads don't contend on the same counter. Each group keeps exactly
+     * one in {@code n} of its messages.
+     *
+     * @param n  keep one in this many messages
+     * @return   the sampling
+     */
+    public static Sampling oneIn(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("N must be positive, was " + n + ".");
+        }
+        return new Sampling(1d / n, n);
+    }
+
+    private Sampling(double probability, int interval) {
+        this.probability = probability;
+        this.interval    = interval;
+    }
+
+    /**
+     * Returns the fraction of messages that are kept.
+     *
+     * @return  the fraction, from 0 to 1
+     */
+    public double getRate() {
+        return probability;
+    }
+
+    /**
+     * Creates the state of this sampling for a single logger.
+     *
+     * @return  the sampler, or {@code null} if every message is kept
+     */
+    Sampler newSampler() {
+        if (probability >= 1) {
+            return null;
+        } else if (interval > 0) {
+            return new ByCount(interval);
+        } else {
+            return new ByProbability(probability);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return interval > 0 ? "oneIn(" + interval + ")" : "probability(" + probability + ")";
+    }
+
+    private static int stripes() {
+        final int cpus = Runtime.getRuntime().availableProcessors();
+        return cpus <= 1 ? 1 : Integer.highestOneBit(cpus - 1) << 1; // Next power of two
+    }
+
+    /**
+     * Decides if a message should be kept.
+     */
+    interface Sampler {
+        boolean sample();
+    }
+
+    private final static class ByProbability implements Sampler {
+
+        private final long threshold;
+
+        private ByProbability(double probability) {
+            this.threshold = (long) (probability * (1L << 32));
+        }
+
+        @Override
+        public boolean sample() {
+            return (ThreadLocalRandom.current().nextInt() & 0xFFFFFFFFL) < threshold;
+        }
+    }
+
+    private final static class ByCount implements Sampler {
+
+        private final int interval;
+        private final AtomicLongArray counters;
+
+        private ByCount(int interval) {
+            this.interval = interval;
+            this.counters = new AtomicLongArray(STRIPES * STRIDE);
+        }
+
+        @Override
+        public boolean sample() {
+            final int stripe = (int) Platform.currentThreadId() & (STRIPES - 1);
+            return counters.getAndIncrement(stripe * STRIDE) % interval == 0;
+        }
+    }
+}
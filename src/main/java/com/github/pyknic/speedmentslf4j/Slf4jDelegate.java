@@ -0,0 +1,162 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.slf4j.Logger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Delegates to any Slf4j backend through the generic Slf4j API. This is used
+ * if no specialized delegate exists for the backend.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Slf4jDelegate implements Delegate {
+
+    private final Logger inner;
+
+    Slf4jDelegate(Logger inner) {
+        this.inner = requireNonNull(inner);
+    }
+
+    @Override
+    public String getName() {
+        return inner.getName();
+    }
+
+    @Override
+    public boolean isEnabled(Level level) {
+        switch (level) {
+            case TRACE: return inner.isTraceEnabled();
+            case DEBUG: return inner.isDebugEnabled();
+            case INFO:  return inner.isInfoEnabled();
+            case WARN:  return inner.isWarnEnabled();
+            case ERROR: return inner.isErrorEnabled();
+            case FATAL: return inner.isErrorEnabled();
+            default: throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public void log(Level level, String message) {
+        switch (level) {
+            case TRACE: inner.trace(message); break;
+            case DEBUG: inner.debug(message); break;
+            case INFO:  inner.info(message); break;
+            case WARN:  inner.warn(message); break;
+            case ERROR: inner.error(message); break;
+            case FATAL: inner.error(message); break;
+            default: throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public void log(Level level, String format, Object arg) {
+        switch (level) {
+            case TRACE: inner.trace(format, arg); break;
+            case DEBUG: inner.debug(format, arg); break;
+            case INFO:  inner.info(format, arg); break;
+            case WARN:  inner.warn(format, arg); break;
+            case ERROR: inner.error(format, arg); break;
+            case FATAL: inner.error(format, arg); break;
+            default: throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public void log(Level level, String format, Object arg1, Object arg2) {
+        switch (level) {
+            case TRACE: inner.trace(format, arg1, arg2); break;
+            case DEBUG: inner.debug(format, arg1, arg2); break;
+            case INFO:  inner.info(format, arg1, arg2); break;
+            case WARN:  inner.warn(format, arg1, arg2); break;
+            case ERROR: inner.error(format, arg1, arg2); break;
+            case FATAL: inner.error(format, arg1, arg2); break;
+            default: throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public void log(Level level, String format, Object arg1, Object arg2, Object arg3) {
+        switch (level) {
+            case TRACE: inner.trace(format, arg1, arg2, arg3); break;
+            case DEBUG: inner.debug(format, arg1, arg2, arg3); break;
+            case INFO:  inner.info(format, arg1, arg2, arg3); break;
+            case WARN:  inner.warn(format, arg1, arg2, arg3); break;
+            case ERROR: inner.error(format, arg1, arg2, arg3); break;
+            case FATAL: inner.error(format, arg1, arg2, arg3); break;
+            default: throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public void log(Level level, String format, Object[] args) {
+        switch (level) {
+            case TRACE: inner.trace(format, args); break;
+            case DEBUG: inner.debug(format, args); break;
+            case INFO:  inner.info(format, args); break;
+            case WARN:  inner.warn(format, args); break;
+            case ERROR: inner.error(format, args); break;
+            case FATAL: inner.error(format, args); break;
+            default: throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public void log(Level level, String message, Throwable thrw) {
+        switch (level) {
+            case TRACE: inner.trace(message, thrw); break;
+            case DEBUG: inner.debug(message, thrw); break;
+            case INFO:  inner.info(message, thrw); break;
+            case WARN:  inner.warn(message, thrw); break;
+            case ERROR: inner.error(message, thrw); break;
+            case FATAL: inner.error(message, thrw); break;
+            default: throw new UnsupportedOperationException();
+        }
+    }
+
+    // Slf4j takes a throwable last in the arguments as the cause of the
+    // message, so the arguments reach the backend as they are instead of
+    // being rendered into a string first. A backend that formats messages on
+    // its own might instead put the throwable in a placeholder if there is
+    // one left for it, so then the message is rendered here.
+
+    @Override
+    public void log(Level level, Throwable thrw, String format, int leading,
+            Object arg1, Object arg2, Object arg3, Object[] args) {
+
+        final int count = leading + (args == null ? 0 : args.length);
+        if (Delegates.hasPlaceholderFor(format, count)) {
+            log(level, MessageRenderer.render(null, format, leading, arg1, arg2, arg3, args), thrw);
+            return;
+        }
+
+        final Object[] array = Delegates.withThrowable(leading, arg1, arg2, arg3, args, thrw);
+        switch (level) {
+            case TRACE: inner.trace(format, array); break;
+            case DEBUG: inner.debug(format, array); break;
+            case INFO:  inner.info(format, array); break;
+            case WARN:  inner.warn(format, array); break;
+            case ERROR: inner.error(format, array); break;
+            case FATAL: inner.error(format, array); break;
+            default: throw new UnsupportedOperationException();
+        }
+    }
+}
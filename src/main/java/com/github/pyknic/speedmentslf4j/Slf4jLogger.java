@@ -16,13 +16,18 @@
  */
 package com.github.pyknic.speedmentslf4j;
 
+import com.github.pyknic.speedmentslf4j.MetricsSnapshot.Counter;
 import com.speedment.common.logger.*;
 
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.lang.ref.WeakReference;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.stream.Collector;
 
-import static java.lang.String.format;
-import static java.util.Collections.newSetFromMap;
+import static com.github.pyknic.speedmentslf4j.MessageRenderer.render;
+import static com.speedment.common.logger.internal.util.NullUtil.requireNonNulls;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -31,19 +36,85 @@ import static java.util.Objects.requireNonNull;
  */
 public final class Slf4jLogger implements Logger {
 
-    private Level level;
-    private LoggerFormatter formatter; // Not used by this implementation, since Slf4j formats the logs
-    private org.slf4j.Logger inner;    // All operations are delegated to this instance.
+    private final static Level[] LEVELS = Level.values();
 
-    private final String name;
-    private final Set<LoggerEventListener> listeners;
+    // Effective threshold when no level is enabled in the backend
+    private final static int DISABLED = LEVELS.length;
+
+    // The state packs the threshold into the lowest bits and the generation
+    // it was computed for into the rest, so that both are read atomically.
+    private final static int THRESHOLD_BITS = 3;
+    private final static int THRESHOLD_MASK = (1 << THRESHOLD_BITS) - 1;
+    private final static int GENERATION_MASK = -1 >>> THRESHOLD_BITS;
+
+    // How many messages that only the backend has disabled are discarded
+    // before the backend is asked again, if it does not announce changes
+    private final static int RECHECK_INTERVAL = 1024;
+
+    private final static int DEFAULT_BATCH_CAPACITY = 1024;
+
+    // Start time of a call whose latency is not sampled
+    private final static long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final static AtomicIntegerFieldUpdater<Slf4jLogger> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(Slf4jLogger.class, "state");
+
+    // Settings may be changed from any thread and must be visible to the
+    // threads that log without any locking, hence volatile.
+    private volatile Level level;
+    private volatile Formatting formatting;
+
+    // The lowest level ordinal that is enabled both by this logger and the
+    // backend, together with the generation it was computed for.
+    private volatile int state;
+
+    // Listeners added to this logger only, in addition to the ones shared by
+    // all loggers of the factory. Replaced as a whole when modified.
+    private volatile LoggerEventListener[] listeners;
+
+    // The listeners of the factory and of this logger in one array, built
+    // again only when either of them has been replaced. The holder is
+    // immutable, so a racy cache is fine.
+    private Listeners combined;
 
-    Slf4jLogger(org.slf4j.Logger inner, LoggerFormatter formatter, Level level) {
-        this.inner     = requireNonNull(inner);
-        this.name      = requireNonNull(inner.getName());
-        this.formatter = requireNonNull(formatter);
-        this.level     = requireNonNull(level);
-        this.listeners = newSetFromMap(new ConcurrentHashMap<>());
+    // Throttling set with Slf4jLoggerFactory#setThrottle, or null
+    private volatile Throttler throttler;
+
+    // Sampling set with Slf4jLoggerFactory#setSampling, indexed on the level
+    // ordinal, or null if no level is sampled. Replaced as a whole.
+    private volatile Sampling.Sampler[] samplers;
+
+    // The counters of this logger in the current metrics of the factory. The
+    // counters are immutable, so a racy cache is fine.
+    private Metrics.Counters counters;
+
+    // Counts down the messages until the backend is asked again. Updates
+    // from different threads may be lost, which only delays the check.
+    private int recheckCountdown;
+
+    private final Delegate inner; // All operations are delegated to this instance.
+    private final String name;
+    private final String key; // The name in the registry of the factory
+    private final Slf4jLoggerFactory factory;
+    private final WeakReference<Slf4jLogger> self; // Shared by every recorded message
+    private final AtomicInteger generation;
+    private final boolean recheckBackend;
+
+    Slf4jLogger(Slf4jLoggerFactory factory, String key, Delegate inner, LoggerFormatter formatter, Level level) {
+        this.factory    = requireNonNull(factory);
+        this.key        = requireNonNull(key);
+        this.inner      = requireNonNull(inner);
+        this.name       = requireNonNull(inner.getName());
+        this.formatting = new Formatting(formatter, name);
+        this.level      = requireNonNull(level);
+        this.listeners  = ListenerArrays.EMPTY;
+        this.combined   = new Listeners(ListenerArrays.EMPTY, ListenerArrays.EMPTY);
+        this.generation = factory.getGeneration();
+        this.self       = new WeakReference<>(this);
+
+        this.recheckBackend   = !factory.isBackendWatched();
+        this.recheckCountdown = RECHECK_INTERVAL;
+        refreshThreshold();
     }
 
     @Override
@@ -51,123 +122,288 @@ public final class Slf4jLogger implements Logger {
         return level;
     }
 
-    @Override
-    public void setLevel(Level level) {
-        this.level = requireNonNull(level);
+    /**
+     * Returns the name that the level, throttle and sampling rules of the
+     * factory are matched against. For a logger created from a class, this
+     * is the abbreviated class name, which several loggers may share.
+     *
+     * @return  the name in the factory
+     */
+    String getKey() {
+        return key;
     }
 
-    @Override
-    public void setFormatter(LoggerFormatter formatter) {
-        this.formatter = requireNonNull(formatter);
+    /**
+     * Returns a weak reference to this logger, which is created once, so
+     * that the flight recorder does not have to create one per message.
+     *
+     * @return  the weak reference
+     */
+    WeakReference<Slf4jLogger> selfReference() {
+        return self;
     }
 
     @Override
-    public LoggerFormatter getFormatter() {
-        return formatter;
+    public void setLevel(Level level) {
+        this.level = requireNonNull(level);
+        refreshThreshold();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The formatter is applied to the message sent to the Slf4j backend, not
+     * to the events seen by the listeners. Use a {@link Slf4jLoggerFormatter}
+     * to leave messages as they are, which costs nothing, or a
+     * {@link PrefixLoggerFormatter} if the formatter only adds a prefix, which
+     * is then computed once instead of on every call.
+     */
     @Override
-    public void addListener(LoggerEventListener listener) {
-        listeners.add(requireNonNull(listener));
+    public void setFormatter(LoggerFormatter formatter) {
+        this.formatting = new Formatting(formatter, name);
     }
 
     @Override
-    public void removeListener(LoggerEventListener listener) {
-        listeners.remove(requireNonNull(listener));
+    public LoggerFormatter getFormatter() {
+        return formatting.formatter;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The listener is only notified of events from this logger, in addition
+     * to the listeners added to the factory. Exceptions thrown by the
+     * listener are handled as described in
+     * {@link Slf4jLoggerFactory#addListener(LoggerEventListener)}.
+     */
+    @Override
+    public synchronized void addListener(LoggerEventListener listener) {
+        listeners = ListenerArrays.add(listeners, requireNonNull(listener));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only listeners added to this logger can be removed here. Listeners
+     * added to the factory must be removed from the factory.
+     */
+    @Override
+    public synchronized void removeListener(LoggerEventListener listener) {
+        listeners = ListenerArrays.remove(listeners, requireNonNull(listener));
+    }
+
+    /**
+     * Creates a batch for messages with the specified level that holds up to
+     * 1024 messages before it is flushed. See {@link LogBatch}.
+     *
+     * @param level  the level of the messages
+     * @return       the new batch
+     */
+    public LogBatch batch(Level level) {
+        return batch(level, DEFAULT_BATCH_CAPACITY);
+    }
+
+    /**
+     * Creates a batch for messages with the specified level that holds up to
+     * {@code capacity} messages before it is flushed. Whether the level is
+     * enabled and which listeners to notify is decided here, once for the
+     * whole batch.
+     *
+     * @param level     the level of the messages
+     * @param capacity  the number of messages to hold before flushing
+     * @return          the new batch
+     */
+    public LogBatch batch(Level level, int capacity) {
+        return new LogBatch(this, level, capacity,
+            isEnabled(requireNonNull(level)) ? listeners() : null);
+    }
+
+    /**
+     * Returns a collector that counts the elements of a stream and logs the
+     * count once with the specified format, instead of logging every
+     * element. The format should have one {@code {}} placeholder, for
+     * example {@code "Persisted {} entities."}. The collector returns the
+     * count.
+     *
+     * @param <T>     the type of the elements
+     * @param level   the level of the message
+     * @param format  the format with a placeholder for the count
+     * @return        the collector
+     */
+    public <T> Collector<T, ?, Long> counting(Level level, String format) {
+        requireNonNulls(level, format);
+        return Collector.of(
+            () -> new long[1],
+            (count, elem) -> count[0]++,
+            (left, right) -> {
+                left[0] += right[0];
+                return left;
+            },
+            count -> {
+                final Long total = count[0];
+                if (isEnabled(level) && isPermitted(level, format)) {
+                    log(level, format, total);
+                    notifyListeners(level, format, total);
+                }
+                return total;
+            }
+        );
     }
     
     // Trace
 
     @Override
     public void trace(String message) {
-        if (Level.TRACE.isEqualOrHigherThan(level)) {
-            inner.trace(message);
+        if (!isEnabled(Level.TRACE)) {
+            record(Level.TRACE, null, message, 0, null, null, null, null);
+        } else if (isPermitted(Level.TRACE, message)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.TRACE, message);
             notifyListeners(Level.TRACE, message);
+            JfrSupport.commit(event, Level.TRACE, name, message);
+            stopTimer(Level.TRACE, started);
         }
     }
 
     @Override
     public void trace(Throwable throwable) {
-        if (Level.TRACE.isEqualOrHigherThan(level)) {
-            inner.trace("", throwable);
+        if (!isEnabled(Level.TRACE)) {
+            record(Level.TRACE, throwable, null, 0, null, null, null, null);
+        } else if (isPermitted(Level.TRACE, throwable)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.TRACE, "", throwable);
             notifyListeners(Level.TRACE, throwable);
+            JfrSupport.commit(event, Level.TRACE, name, null);
+            stopTimer(Level.TRACE, started);
         }
     }
 
     @Override
     public void trace(String format, Object arg) {
-        if (Level.TRACE.isEqualOrHigherThan(level)) {
-            inner.trace(format, arg);
-            notifyListeners(Level.TRACE, format(format, arg));
+        if (!isEnabled(Level.TRACE)) {
+            record(Level.TRACE, null, format, 1, arg, null, null, null);
+        } else if (isPermitted(Level.TRACE, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.TRACE, format, arg);
+            notifyListeners(Level.TRACE, format, arg);
+            JfrSupport.commit(event, Level.TRACE, name, format);
+            stopTimer(Level.TRACE, started);
         }
     }
 
     @Override
     public void trace(String format, Object arg1, Object arg2) {
-        if (Level.TRACE.isEqualOrHigherThan(level)) {
-            inner.trace(format, arg1, arg2);
-            notifyListeners(Level.TRACE, format(format, arg1, arg2));
+        if (!isEnabled(Level.TRACE)) {
+            record(Level.TRACE, null, format, 2, arg1, arg2, null, null);
+        } else if (isPermitted(Level.TRACE, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.TRACE, format, arg1, arg2);
+            notifyListeners(Level.TRACE, format, arg1, arg2);
+            JfrSupport.commit(event, Level.TRACE, name, format);
+            stopTimer(Level.TRACE, started);
         }
     }
 
     @Override
     public void trace(String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.TRACE.isEqualOrHigherThan(level)) {
-            inner.trace(format, arg1, arg2, arg3);
-            notifyListeners(Level.TRACE, format(format, arg1, arg2, arg3));
+        if (!isEnabled(Level.TRACE)) {
+            record(Level.TRACE, null, format, 3, arg1, arg2, arg3, null);
+        } else if (isPermitted(Level.TRACE, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.TRACE, format, arg1, arg2, arg3);
+            notifyListeners(Level.TRACE, format, arg1, arg2, arg3);
+            JfrSupport.commit(event, Level.TRACE, name, format);
+            stopTimer(Level.TRACE, started);
         }
     }
 
     @Override
     public void trace(String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.TRACE.isEqualOrHigherThan(level)) {
-            final Object[] first = new Object[] {arg1, arg2, arg3};
-            log(Level.TRACE, format, first, args);
-            notifyListeners(Level.TRACE, format(format, concat(first, args)));
+        if (!isEnabled(Level.TRACE)) {
+            record(Level.TRACE, null, format, 3, arg1, arg2, arg3, args);
+        } else if (isPermitted(Level.TRACE, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            final Object[] array = toArray(arg1, arg2, arg3, args);
+            log(Level.TRACE, format, array);
+            notifyListeners(Level.TRACE, format, array);
+            JfrSupport.commit(event, Level.TRACE, name, format);
+            stopTimer(Level.TRACE, started);
         }
     }
 
     @Override
     public void trace(Throwable throwable, String message) {
-        if (Level.TRACE.isEqualOrHigherThan(level)) {
-            inner.trace(message, throwable);
+        if (!isEnabled(Level.TRACE)) {
+            record(Level.TRACE, throwable, message, 0, null, null, null, null);
+        } else if (isPermitted(Level.TRACE, message)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.TRACE, message, throwable);
             notifyListeners(Level.TRACE, message, throwable);
+            JfrSupport.commit(event, Level.TRACE, name, message);
+            stopTimer(Level.TRACE, started);
         }
     }
 
     @Override
     public void trace(Throwable throwable, String format, Object arg) {
-        if (Level.TRACE.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg);
-            inner.trace(msg, throwable);
-            notifyListeners(Level.TRACE, msg, throwable);
+        if (!isEnabled(Level.TRACE)) {
+            record(Level.TRACE, throwable, format, 1, arg, null, null, null);
+        } else if (isPermitted(Level.TRACE, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.TRACE, throwable, format, 1, arg, null, null, null);
+            notifyListeners(Level.TRACE, throwable, format, 1, arg, null, null, null);
+            JfrSupport.commit(event, Level.TRACE, name, format);
+            stopTimer(Level.TRACE, started);
         }
     }
 
     @Override
     public void trace(Throwable throwable, String format, Object arg1, Object arg2) {
-        if (Level.TRACE.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2);
-            inner.trace(msg, throwable);
-            notifyListeners(Level.TRACE, msg, throwable);
+        if (!isEnabled(Level.TRACE)) {
+            record(Level.TRACE, throwable, format, 2, arg1, arg2, null, null);
+        } else if (isPermitted(Level.TRACE, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.TRACE, throwable, format, 2, arg1, arg2, null, null);
+            notifyListeners(Level.TRACE, throwable, format, 2, arg1, arg2, null, null);
+            JfrSupport.commit(event, Level.TRACE, name, format);
+            stopTimer(Level.TRACE, started);
         }
     }
 
     @Override
     public void trace(Throwable throwable, String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.TRACE.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2, arg3);
-            inner.trace(msg, throwable);
-            notifyListeners(Level.TRACE, msg, throwable);
+        if (!isEnabled(Level.TRACE)) {
+            record(Level.TRACE, throwable, format, 3, arg1, arg2, arg3, null);
+        } else if (isPermitted(Level.TRACE, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.TRACE, throwable, format, 3, arg1, arg2, arg3, null);
+            notifyListeners(Level.TRACE, throwable, format, 3, arg1, arg2, arg3, null);
+            JfrSupport.commit(event, Level.TRACE, name, format);
+            stopTimer(Level.TRACE, started);
         }
     }
 
     @Override
     public void trace(Throwable throwable, String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.TRACE.isEqualOrHigherThan(level)) {
-            final String msg = format(format, concat(new Object[] {arg1, arg2, arg3}, args));
-            inner.trace(msg, throwable);
-            notifyListeners(Level.TRACE, msg, throwable);
+        if (!isEnabled(Level.TRACE)) {
+            record(Level.TRACE, throwable, format, 3, arg1, arg2, arg3, args);
+        } else if (isPermitted(Level.TRACE, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.TRACE, throwable, format, 3, arg1, arg2, arg3, args);
+            notifyListeners(Level.TRACE, throwable, format, 3, arg1, arg2, arg3, args);
+            JfrSupport.commit(event, Level.TRACE, name, format);
+            stopTimer(Level.TRACE, started);
         }
     }
 
@@ -175,94 +411,156 @@ public final class Slf4jLogger implements Logger {
 
     @Override
     public void debug(String message) {
-        if (Level.DEBUG.isEqualOrHigherThan(level)) {
-            inner.debug(message);
+        if (!isEnabled(Level.DEBUG)) {
+            record(Level.DEBUG, null, message, 0, null, null, null, null);
+        } else if (isPermitted(Level.DEBUG, message)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.DEBUG, message);
             notifyListeners(Level.DEBUG, message);
+            JfrSupport.commit(event, Level.DEBUG, name, message);
+            stopTimer(Level.DEBUG, started);
         }
     }
 
     @Override
     public void debug(Throwable throwable) {
-        if (Level.DEBUG.isEqualOrHigherThan(level)) {
-            inner.debug("", throwable);
+        if (!isEnabled(Level.DEBUG)) {
+            record(Level.DEBUG, throwable, null, 0, null, null, null, null);
+        } else if (isPermitted(Level.DEBUG, throwable)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.DEBUG, "", throwable);
             notifyListeners(Level.DEBUG, throwable);
+            JfrSupport.commit(event, Level.DEBUG, name, null);
+            stopTimer(Level.DEBUG, started);
         }
     }
 
     @Override
     public void debug(String format, Object arg) {
-        if (Level.DEBUG.isEqualOrHigherThan(level)) {
-            inner.debug(format, arg);
-            notifyListeners(Level.DEBUG, format(format, arg));
+        if (!isEnabled(Level.DEBUG)) {
+            record(Level.DEBUG, null, format, 1, arg, null, null, null);
+        } else if (isPermitted(Level.DEBUG, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.DEBUG, format, arg);
+            notifyListeners(Level.DEBUG, format, arg);
+            JfrSupport.commit(event, Level.DEBUG, name, format);
+            stopTimer(Level.DEBUG, started);
         }
     }
 
     @Override
     public void debug(String format, Object arg1, Object arg2) {
-        if (Level.DEBUG.isEqualOrHigherThan(level)) {
-            inner.debug(format, arg1, arg2);
-            notifyListeners(Level.DEBUG, format(format, arg1, arg2));
+        if (!isEnabled(Level.DEBUG)) {
+            record(Level.DEBUG, null, format, 2, arg1, arg2, null, null);
+        } else if (isPermitted(Level.DEBUG, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.DEBUG, format, arg1, arg2);
+            notifyListeners(Level.DEBUG, format, arg1, arg2);
+            JfrSupport.commit(event, Level.DEBUG, name, format);
+            stopTimer(Level.DEBUG, started);
         }
     }
 
     @Override
     public void debug(String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.DEBUG.isEqualOrHigherThan(level)) {
-            inner.debug(format, arg1, arg2, arg3);
-            notifyListeners(Level.DEBUG, format(format, arg1, arg2, arg3));
+        if (!isEnabled(Level.DEBUG)) {
+            record(Level.DEBUG, null, format, 3, arg1, arg2, arg3, null);
+        } else if (isPermitted(Level.DEBUG, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.DEBUG, format, arg1, arg2, arg3);
+            notifyListeners(Level.DEBUG, format, arg1, arg2, arg3);
+            JfrSupport.commit(event, Level.DEBUG, name, format);
+            stopTimer(Level.DEBUG, started);
         }
     }
 
     @Override
     public void debug(String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.DEBUG.isEqualOrHigherThan(level)) {
-            final Object[] first = new Object[] {arg1, arg2, arg3};
-            log(Level.DEBUG, format, first, args);
-            notifyListeners(Level.DEBUG, format(format, concat(first, args)));
+        if (!isEnabled(Level.DEBUG)) {
+            record(Level.DEBUG, null, format, 3, arg1, arg2, arg3, args);
+        } else if (isPermitted(Level.DEBUG, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            final Object[] array = toArray(arg1, arg2, arg3, args);
+            log(Level.DEBUG, format, array);
+            notifyListeners(Level.DEBUG, format, array);
+            JfrSupport.commit(event, Level.DEBUG, name, format);
+            stopTimer(Level.DEBUG, started);
         }
     }
 
     @Override
     public void debug(Throwable throwable, String message) {
-        if (Level.DEBUG.isEqualOrHigherThan(level)) {
-            inner.debug(message, throwable);
+        if (!isEnabled(Level.DEBUG)) {
+            record(Level.DEBUG, throwable, message, 0, null, null, null, null);
+        } else if (isPermitted(Level.DEBUG, message)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.DEBUG, message, throwable);
             notifyListeners(Level.DEBUG, message, throwable);
+            JfrSupport.commit(event, Level.DEBUG, name, message);
+            stopTimer(Level.DEBUG, started);
         }
     }
 
     @Override
     public void debug(Throwable throwable, String format, Object arg) {
-        if (Level.DEBUG.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg);
-            inner.debug(msg, throwable);
-            notifyListeners(Level.DEBUG, msg, throwable);
+        if (!isEnabled(Level.DEBUG)) {
+            record(Level.DEBUG, throwable, format, 1, arg, null, null, null);
+        } else if (isPermitted(Level.DEBUG, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.DEBUG, throwable, format, 1, arg, null, null, null);
+            notifyListeners(Level.DEBUG, throwable, format, 1, arg, null, null, null);
+            JfrSupport.commit(event, Level.DEBUG, name, format);
+            stopTimer(Level.DEBUG, started);
         }
     }
 
     @Override
     public void debug(Throwable throwable, String format, Object arg1, Object arg2) {
-        if (Level.DEBUG.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2);
-            inner.debug(msg, throwable);
-            notifyListeners(Level.DEBUG, msg, throwable);
+        if (!isEnabled(Level.DEBUG)) {
+            record(Level.DEBUG, throwable, format, 2, arg1, arg2, null, null);
+        } else if (isPermitted(Level.DEBUG, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.DEBUG, throwable, format, 2, arg1, arg2, null, null);
+            notifyListeners(Level.DEBUG, throwable, format, 2, arg1, arg2, null, null);
+            JfrSupport.commit(event, Level.DEBUG, name, format);
+            stopTimer(Level.DEBUG, started);
         }
     }
 
     @Override
     public void debug(Throwable throwable, String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.DEBUG.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2, arg3);
-            inner.debug(msg, throwable);
-            notifyListeners(Level.DEBUG, msg, throwable);
+        if (!isEnabled(Level.DEBUG)) {
+            record(Level.DEBUG, throwable, format, 3, arg1, arg2, arg3, null);
+        } else if (isPermitted(Level.DEBUG, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.DEBUG, throwable, format, 3, arg1, arg2, arg3, null);
+            notifyListeners(Level.DEBUG, throwable, format, 3, arg1, arg2, arg3, null);
+            JfrSupport.commit(event, Level.DEBUG, name, format);
+            stopTimer(Level.DEBUG, started);
         }
     }
 
     @Override
     public void debug(Throwable throwable, String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.DEBUG.isEqualOrHigherThan(level)) {
-            final String msg = format(format, concat(new Object[] {arg1, arg2, arg3}, args));
-            inner.debug(msg, throwable);
-            notifyListeners(Level.DEBUG, msg, throwable);
+        if (!isEnabled(Level.DEBUG)) {
+            record(Level.DEBUG, throwable, format, 3, arg1, arg2, arg3, args);
+        } else if (isPermitted(Level.DEBUG, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.DEBUG, throwable, format, 3, arg1, arg2, arg3, args);
+            notifyListeners(Level.DEBUG, throwable, format, 3, arg1, arg2, arg3, args);
+            JfrSupport.commit(event, Level.DEBUG, name, format);
+            stopTimer(Level.DEBUG, started);
         }
     }
 
@@ -270,94 +568,156 @@ public final class Slf4jLogger implements Logger {
 
     @Override
     public void info(String message) {
-        if (Level.INFO.isEqualOrHigherThan(level)) {
-            inner.info(message);
+        if (!isEnabled(Level.INFO)) {
+            record(Level.INFO, null, message, 0, null, null, null, null);
+        } else if (isPermitted(Level.INFO, message)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.INFO, message);
             notifyListeners(Level.INFO, message);
+            JfrSupport.commit(event, Level.INFO, name, message);
+            stopTimer(Level.INFO, started);
         }
     }
 
     @Override
     public void info(Throwable throwable) {
-        if (Level.INFO.isEqualOrHigherThan(level)) {
-            inner.info("", throwable);
+        if (!isEnabled(Level.INFO)) {
+            record(Level.INFO, throwable, null, 0, null, null, null, null);
+        } else if (isPermitted(Level.INFO, throwable)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.INFO, "", throwable);
             notifyListeners(Level.INFO, throwable);
+            JfrSupport.commit(event, Level.INFO, name, null);
+            stopTimer(Level.INFO, started);
         }
     }
 
     @Override
     public void info(String format, Object arg) {
-        if (Level.INFO.isEqualOrHigherThan(level)) {
-            inner.info(format, arg);
-            notifyListeners(Level.INFO, format(format, arg));
+        if (!isEnabled(Level.INFO)) {
+            record(Level.INFO, null, format, 1, arg, null, null, null);
+        } else if (isPermitted(Level.INFO, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.INFO, format, arg);
+            notifyListeners(Level.INFO, format, arg);
+            JfrSupport.commit(event, Level.INFO, name, format);
+            stopTimer(Level.INFO, started);
         }
     }
 
     @Override
     public void info(String format, Object arg1, Object arg2) {
-        if (Level.INFO.isEqualOrHigherThan(level)) {
-            inner.info(format, arg1, arg2);
-            notifyListeners(Level.INFO, format(format, arg1, arg2));
+        if (!isEnabled(Level.INFO)) {
+            record(Level.INFO, null, format, 2, arg1, arg2, null, null);
+        } else if (isPermitted(Level.INFO, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.INFO, format, arg1, arg2);
+            notifyListeners(Level.INFO, format, arg1, arg2);
+            JfrSupport.commit(event, Level.INFO, name, format);
+            stopTimer(Level.INFO, started);
         }
     }
 
     @Override
     public void info(String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.INFO.isEqualOrHigherThan(level)) {
-            inner.info(format, arg1, arg2, arg3);
-            notifyListeners(Level.INFO, format(format, arg1, arg2, arg3));
+        if (!isEnabled(Level.INFO)) {
+            record(Level.INFO, null, format, 3, arg1, arg2, arg3, null);
+        } else if (isPermitted(Level.INFO, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.INFO, format, arg1, arg2, arg3);
+            notifyListeners(Level.INFO, format, arg1, arg2, arg3);
+            JfrSupport.commit(event, Level.INFO, name, format);
+            stopTimer(Level.INFO, started);
         }
     }
 
     @Override
     public void info(String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.INFO.isEqualOrHigherThan(level)) {
-            final Object[] first = new Object[] {arg1, arg2, arg3};
-            log(Level.INFO, format, first, args);
-            notifyListeners(Level.INFO, format(format, concat(first, args)));
+        if (!isEnabled(Level.INFO)) {
+            record(Level.INFO, null, format, 3, arg1, arg2, arg3, args);
+        } else if (isPermitted(Level.INFO, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            final Object[] array = toArray(arg1, arg2, arg3, args);
+            log(Level.INFO, format, array);
+            notifyListeners(Level.INFO, format, array);
+            JfrSupport.commit(event, Level.INFO, name, format);
+            stopTimer(Level.INFO, started);
         }
     }
 
     @Override
     public void info(Throwable throwable, String message) {
-        if (Level.INFO.isEqualOrHigherThan(level)) {
-            inner.info(message, throwable);
+        if (!isEnabled(Level.INFO)) {
+            record(Level.INFO, throwable, message, 0, null, null, null, null);
+        } else if (isPermitted(Level.INFO, message)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.INFO, message, throwable);
             notifyListeners(Level.INFO, message, throwable);
+            JfrSupport.commit(event, Level.INFO, name, message);
+            stopTimer(Level.INFO, started);
         }
     }
 
     @Override
     public void info(Throwable throwable, String format, Object arg) {
-        if (Level.INFO.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg);
-            inner.info(msg, throwable);
-            notifyListeners(Level.INFO, msg, throwable);
+        if (!isEnabled(Level.INFO)) {
+            record(Level.INFO, throwable, format, 1, arg, null, null, null);
+        } else if (isPermitted(Level.INFO, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.INFO, throwable, format, 1, arg, null, null, null);
+            notifyListeners(Level.INFO, throwable, format, 1, arg, null, null, null);
+            JfrSupport.commit(event, Level.INFO, name, format);
+            stopTimer(Level.INFO, started);
         }
     }
 
     @Override
     public void info(Throwable throwable, String format, Object arg1, Object arg2) {
-        if (Level.INFO.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2);
-            inner.info(msg, throwable);
-            notifyListeners(Level.INFO, msg, throwable);
+        if (!isEnabled(Level.INFO)) {
+            record(Level.INFO, throwable, format, 2, arg1, arg2, null, null);
+        } else if (isPermitted(Level.INFO, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.INFO, throwable, format, 2, arg1, arg2, null, null);
+            notifyListeners(Level.INFO, throwable, format, 2, arg1, arg2, null, null);
+            JfrSupport.commit(event, Level.INFO, name, format);
+            stopTimer(Level.INFO, started);
         }
     }
 
     @Override
     public void info(Throwable throwable, String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.INFO.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2, arg3);
-            inner.info(msg, throwable);
-            notifyListeners(Level.INFO, msg, throwable);
+        if (!isEnabled(Level.INFO)) {
+            record(Level.INFO, throwable, format, 3, arg1, arg2, arg3, null);
+        } else if (isPermitted(Level.INFO, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.INFO, throwable, format, 3, arg1, arg2, arg3, null);
+            notifyListeners(Level.INFO, throwable, format, 3, arg1, arg2, arg3, null);
+            JfrSupport.commit(event, Level.INFO, name, format);
+            stopTimer(Level.INFO, started);
         }
     }
 
     @Override
     public void info(Throwable throwable, String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.INFO.isEqualOrHigherThan(level)) {
-            final String msg = format(format, concat(new Object[] {arg1, arg2, arg3}, args));
-            inner.info(msg, throwable);
-            notifyListeners(Level.INFO, msg, throwable);
+        if (!isEnabled(Level.INFO)) {
+            record(Level.INFO, throwable, format, 3, arg1, arg2, arg3, args);
+        } else if (isPermitted(Level.INFO, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.INFO, throwable, format, 3, arg1, arg2, arg3, args);
+            notifyListeners(Level.INFO, throwable, format, 3, arg1, arg2, arg3, args);
+            JfrSupport.commit(event, Level.INFO, name, format);
+            stopTimer(Level.INFO, started);
         }
     }
 
@@ -365,94 +725,156 @@ public final class Slf4jLogger implements Logger {
 
     @Override
     public void warn(String message) {
-        if (Level.WARN.isEqualOrHigherThan(level)) {
-            inner.warn(message);
+        if (!isEnabled(Level.WARN)) {
+            record(Level.WARN, null, message, 0, null, null, null, null);
+        } else if (isPermitted(Level.WARN, message)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.WARN, message);
             notifyListeners(Level.WARN, message);
+            JfrSupport.commit(event, Level.WARN, name, message);
+            stopTimer(Level.WARN, started);
         }
     }
 
     @Override
     public void warn(Throwable throwable) {
-        if (Level.WARN.isEqualOrHigherThan(level)) {
-            inner.warn("", throwable);
+        if (!isEnabled(Level.WARN)) {
+            record(Level.WARN, throwable, null, 0, null, null, null, null);
+        } else if (isPermitted(Level.WARN, throwable)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.WARN, "", throwable);
             notifyListeners(Level.WARN, throwable);
+            JfrSupport.commit(event, Level.WARN, name, null);
+            stopTimer(Level.WARN, started);
         }
     }
 
     @Override
     public void warn(String format, Object arg) {
-        if (Level.WARN.isEqualOrHigherThan(level)) {
-            inner.warn(format, arg);
-            notifyListeners(Level.WARN, format(format, arg));
+        if (!isEnabled(Level.WARN)) {
+            record(Level.WARN, null, format, 1, arg, null, null, null);
+        } else if (isPermitted(Level.WARN, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.WARN, format, arg);
+            notifyListeners(Level.WARN, format, arg);
+            JfrSupport.commit(event, Level.WARN, name, format);
+            stopTimer(Level.WARN, started);
         }
     }
 
     @Override
     public void warn(String format, Object arg1, Object arg2) {
-        if (Level.WARN.isEqualOrHigherThan(level)) {
-            inner.warn(format, arg1, arg2);
-            notifyListeners(Level.WARN, format(format, arg1, arg2));
+        if (!isEnabled(Level.WARN)) {
+            record(Level.WARN, null, format, 2, arg1, arg2, null, null);
+        } else if (isPermitted(Level.WARN, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.WARN, format, arg1, arg2);
+            notifyListeners(Level.WARN, format, arg1, arg2);
+            JfrSupport.commit(event, Level.WARN, name, format);
+            stopTimer(Level.WARN, started);
         }
     }
 
     @Override
     public void warn(String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.WARN.isEqualOrHigherThan(level)) {
-            inner.warn(format, arg1, arg2, arg3);
-            notifyListeners(Level.WARN, format(format, arg1, arg2, arg3));
+        if (!isEnabled(Level.WARN)) {
+            record(Level.WARN, null, format, 3, arg1, arg2, arg3, null);
+        } else if (isPermitted(Level.WARN, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.WARN, format, arg1, arg2, arg3);
+            notifyListeners(Level.WARN, format, arg1, arg2, arg3);
+            JfrSupport.commit(event, Level.WARN, name, format);
+            stopTimer(Level.WARN, started);
         }
     }
 
     @Override
     public void warn(String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.WARN.isEqualOrHigherThan(level)) {
-            final Object[] first = new Object[] {arg1, arg2, arg3};
-            log(Level.WARN, format, first, args);
-            notifyListeners(Level.WARN, format(format, concat(first, args)));
+        if (!isEnabled(Level.WARN)) {
+            record(Level.WARN, null, format, 3, arg1, arg2, arg3, args);
+        } else if (isPermitted(Level.WARN, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            final Object[] array = toArray(arg1, arg2, arg3, args);
+            log(Level.WARN, format, array);
+            notifyListeners(Level.WARN, format, array);
+            JfrSupport.commit(event, Level.WARN, name, format);
+            stopTimer(Level.WARN, started);
         }
     }
 
     @Override
     public void warn(Throwable throwable, String message) {
-        if (Level.WARN.isEqualOrHigherThan(level)) {
-            inner.warn(message, throwable);
+        if (!isEnabled(Level.WARN)) {
+            record(Level.WARN, throwable, message, 0, null, null, null, null);
+        } else if (isPermitted(Level.WARN, message)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.WARN, message, throwable);
             notifyListeners(Level.WARN, message, throwable);
+            JfrSupport.commit(event, Level.WARN, name, message);
+            stopTimer(Level.WARN, started);
         }
     }
 
     @Override
     public void warn(Throwable throwable, String format, Object arg) {
-        if (Level.WARN.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg);
-            inner.warn(msg, throwable);
-            notifyListeners(Level.WARN, msg, throwable);
+        if (!isEnabled(Level.WARN)) {
+            record(Level.WARN, throwable, format, 1, arg, null, null, null);
+        } else if (isPermitted(Level.WARN, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.WARN, throwable, format, 1, arg, null, null, null);
+            notifyListeners(Level.WARN, throwable, format, 1, arg, null, null, null);
+            JfrSupport.commit(event, Level.WARN, name, format);
+            stopTimer(Level.WARN, started);
         }
     }
 
     @Override
     public void warn(Throwable throwable, String format, Object arg1, Object arg2) {
-        if (Level.WARN.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2);
-            inner.warn(msg, throwable);
-            notifyListeners(Level.WARN, msg, throwable);
+        if (!isEnabled(Level.WARN)) {
+            record(Level.WARN, throwable, format, 2, arg1, arg2, null, null);
+        } else if (isPermitted(Level.WARN, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.WARN, throwable, format, 2, arg1, arg2, null, null);
+            notifyListeners(Level.WARN, throwable, format, 2, arg1, arg2, null, null);
+            JfrSupport.commit(event, Level.WARN, name, format);
+            stopTimer(Level.WARN, started);
         }
     }
 
     @Override
     public void warn(Throwable throwable, String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.WARN.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2, arg3);
-            inner.warn(msg, throwable);
-            notifyListeners(Level.WARN, msg, throwable);
+        if (!isEnabled(Level.WARN)) {
+            record(Level.WARN, throwable, format, 3, arg1, arg2, arg3, null);
+        } else if (isPermitted(Level.WARN, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.WARN, throwable, format, 3, arg1, arg2, arg3, null);
+            notifyListeners(Level.WARN, throwable, format, 3, arg1, arg2, arg3, null);
+            JfrSupport.commit(event, Level.WARN, name, format);
+            stopTimer(Level.WARN, started);
         }
     }
 
     @Override
     public void warn(Throwable throwable, String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.WARN.isEqualOrHigherThan(level)) {
-            final String msg = format(format, concat(new Object[] {arg1, arg2, arg3}, args));
-            inner.warn(msg, throwable);
-            notifyListeners(Level.WARN, msg, throwable);
+        if (!isEnabled(Level.WARN)) {
+            record(Level.WARN, throwable, format, 3, arg1, arg2, arg3, args);
+        } else if (isPermitted(Level.WARN, format)) {
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.WARN, throwable, format, 3, arg1, arg2, arg3, args);
+            notifyListeners(Level.WARN, throwable, format, 3, arg1, arg2, arg3, args);
+            JfrSupport.commit(event, Level.WARN, name, format);
+            stopTimer(Level.WARN, started);
         }
     }
 
@@ -460,94 +882,145 @@ public final class Slf4jLogger implements Logger {
 
     @Override
     public void error(String message) {
-        if (Level.ERROR.isEqualOrHigherThan(level)) {
-            inner.error(message);
+        if (isEnabled(Level.ERROR) && isPermitted(Level.ERROR, message)) {
+            replayRecorded(Level.ERROR);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.ERROR, message);
             notifyListeners(Level.ERROR, message);
+            JfrSupport.commit(event, Level.ERROR, name, message);
+            stopTimer(Level.ERROR, started);
         }
     }
 
     @Override
     public void error(Throwable throwable) {
-        if (Level.ERROR.isEqualOrHigherThan(level)) {
-            inner.error("", throwable);
+        if (isEnabled(Level.ERROR) && isPermitted(Level.ERROR, throwable)) {
+            replayRecorded(Level.ERROR);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.ERROR, "", throwable);
             notifyListeners(Level.ERROR, throwable);
+            JfrSupport.commit(event, Level.ERROR, name, null);
+            stopTimer(Level.ERROR, started);
         }
     }
 
     @Override
     public void error(String format, Object arg) {
-        if (Level.ERROR.isEqualOrHigherThan(level)) {
-            inner.error(format, arg);
-            notifyListeners(Level.ERROR, format(format, arg));
+        if (isEnabled(Level.ERROR) && isPermitted(Level.ERROR, format)) {
+            replayRecorded(Level.ERROR);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.ERROR, format, arg);
+            notifyListeners(Level.ERROR, format, arg);
+            JfrSupport.commit(event, Level.ERROR, name, format);
+            stopTimer(Level.ERROR, started);
         }
     }
 
     @Override
     public void error(String format, Object arg1, Object arg2) {
-        if (Level.ERROR.isEqualOrHigherThan(level)) {
-            inner.error(format, arg1, arg2);
-            notifyListeners(Level.ERROR, format(format, arg1, arg2));
+        if (isEnabled(Level.ERROR) && isPermitted(Level.ERROR, format)) {
+            replayRecorded(Level.ERROR);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.ERROR, format, arg1, arg2);
+            notifyListeners(Level.ERROR, format, arg1, arg2);
+            JfrSupport.commit(event, Level.ERROR, name, format);
+            stopTimer(Level.ERROR, started);
         }
     }
 
     @Override
     public void error(String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.ERROR.isEqualOrHigherThan(level)) {
-            inner.error(format, arg1, arg2, arg3);
-            notifyListeners(Level.ERROR, format(format, arg1, arg2, arg3));
+        if (isEnabled(Level.ERROR) && isPermitted(Level.ERROR, format)) {
+            replayRecorded(Level.ERROR);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.ERROR, format, arg1, arg2, arg3);
+            notifyListeners(Level.ERROR, format, arg1, arg2, arg3);
+            JfrSupport.commit(event, Level.ERROR, name, format);
+            stopTimer(Level.ERROR, started);
         }
     }
 
     @Override
     public void error(String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.ERROR.isEqualOrHigherThan(level)) {
-            final Object[] first = new Object[] {arg1, arg2, arg3};
-            log(Level.ERROR, format, first, args);
-            notifyListeners(Level.ERROR, format(format, concat(first, args)));
+        if (isEnabled(Level.ERROR) && isPermitted(Level.ERROR, format)) {
+            replayRecorded(Level.ERROR);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            final Object[] array = toArray(arg1, arg2, arg3, args);
+            log(Level.ERROR, format, array);
+            notifyListeners(Level.ERROR, format, array);
+            JfrSupport.commit(event, Level.ERROR, name, format);
+            stopTimer(Level.ERROR, started);
         }
     }
 
     @Override
     public void error(Throwable throwable, String message) {
-        if (Level.ERROR.isEqualOrHigherThan(level)) {
-            inner.error(message, throwable);
+        if (isEnabled(Level.ERROR) && isPermitted(Level.ERROR, message)) {
+            replayRecorded(Level.ERROR);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.ERROR, message, throwable);
             notifyListeners(Level.ERROR, message, throwable);
+            JfrSupport.commit(event, Level.ERROR, name, message);
+            stopTimer(Level.ERROR, started);
         }
     }
 
     @Override
     public void error(Throwable throwable, String format, Object arg) {
-        if (Level.ERROR.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg);
-            inner.error(msg, throwable);
-            notifyListeners(Level.ERROR, msg, throwable);
+        if (isEnabled(Level.ERROR) && isPermitted(Level.ERROR, format)) {
+            replayRecorded(Level.ERROR);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.ERROR, throwable, format, 1, arg, null, null, null);
+            notifyListeners(Level.ERROR, throwable, format, 1, arg, null, null, null);
+            JfrSupport.commit(event, Level.ERROR, name, format);
+            stopTimer(Level.ERROR, started);
         }
     }
 
     @Override
     public void error(Throwable throwable, String format, Object arg1, Object arg2) {
-        if (Level.ERROR.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2);
-            inner.error(msg, throwable);
-            notifyListeners(Level.ERROR, msg, throwable);
+        if (isEnabled(Level.ERROR) && isPermitted(Level.ERROR, format)) {
+            replayRecorded(Level.ERROR);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.ERROR, throwable, format, 2, arg1, arg2, null, null);
+            notifyListeners(Level.ERROR, throwable, format, 2, arg1, arg2, null, null);
+            JfrSupport.commit(event, Level.ERROR, name, format);
+            stopTimer(Level.ERROR, started);
         }
     }
 
     @Override
     public void error(Throwable throwable, String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.ERROR.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2, arg3);
-            inner.error(msg, throwable);
-            notifyListeners(Level.ERROR, msg, throwable);
+        if (isEnabled(Level.ERROR) && isPermitted(Level.ERROR, format)) {
+            replayRecorded(Level.ERROR);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.ERROR, throwable, format, 3, arg1, arg2, arg3, null);
+            notifyListeners(Level.ERROR, throwable, format, 3, arg1, arg2, arg3, null);
+            JfrSupport.commit(event, Level.ERROR, name, format);
+            stopTimer(Level.ERROR, started);
         }
     }
 
     @Override
     public void error(Throwable throwable, String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.ERROR.isEqualOrHigherThan(level)) {
-            final String msg = format(format, concat(new Object[] {arg1, arg2, arg3}, args));
-            inner.error(msg, throwable);
-            notifyListeners(Level.ERROR, msg, throwable);
+        if (isEnabled(Level.ERROR) && isPermitted(Level.ERROR, format)) {
+            replayRecorded(Level.ERROR);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.ERROR, throwable, format, 3, arg1, arg2, arg3, args);
+            notifyListeners(Level.ERROR, throwable, format, 3, arg1, arg2, arg3, args);
+            JfrSupport.commit(event, Level.ERROR, name, format);
+            stopTimer(Level.ERROR, started);
         }
     }
 
@@ -555,159 +1028,644 @@ public final class Slf4jLogger implements Logger {
 
     @Override
     public void fatal(String message) {
-        if (Level.FATAL.isEqualOrHigherThan(level)) {
-            inner.error(message);
+        if (isEnabled(Level.FATAL) && isPermitted(Level.FATAL, message)) {
+            replayRecorded(Level.FATAL);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.FATAL, message);
             notifyListeners(Level.FATAL, message);
+            JfrSupport.commit(event, Level.FATAL, name, message);
+            stopTimer(Level.FATAL, started);
         }
     }
 
     @Override
     public void fatal(Throwable throwable) {
-        if (Level.FATAL.isEqualOrHigherThan(level)) {
-            inner.error("", throwable);
+        if (isEnabled(Level.FATAL) && isPermitted(Level.FATAL, throwable)) {
+            replayRecorded(Level.FATAL);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.FATAL, "", throwable);
             notifyListeners(Level.FATAL, throwable);
+            JfrSupport.commit(event, Level.FATAL, name, null);
+            stopTimer(Level.FATAL, started);
         }
     }
 
     @Override
     public void fatal(String format, Object arg) {
-        if (Level.FATAL.isEqualOrHigherThan(level)) {
-            inner.error(format, arg);
-            notifyListeners(Level.FATAL, format(format, arg));
+        if (isEnabled(Level.FATAL) && isPermitted(Level.FATAL, format)) {
+            replayRecorded(Level.FATAL);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.FATAL, format, arg);
+            notifyListeners(Level.FATAL, format, arg);
+            JfrSupport.commit(event, Level.FATAL, name, format);
+            stopTimer(Level.FATAL, started);
         }
     }
 
     @Override
     public void fatal(String format, Object arg1, Object arg2) {
-        if (Level.FATAL.isEqualOrHigherThan(level)) {
-            inner.error(format, arg1, arg2);
-            notifyListeners(Level.FATAL, format(format, arg1, arg2));
+        if (isEnabled(Level.FATAL) && isPermitted(Level.FATAL, format)) {
+            replayRecorded(Level.FATAL);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.FATAL, format, arg1, arg2);
+            notifyListeners(Level.FATAL, format, arg1, arg2);
+            JfrSupport.commit(event, Level.FATAL, name, format);
+            stopTimer(Level.FATAL, started);
         }
     }
 
     @Override
     public void fatal(String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.FATAL.isEqualOrHigherThan(level)) {
-            inner.error(format, arg1, arg2, arg3);
-            notifyListeners(Level.FATAL, format(format, arg1, arg2, arg3));
+        if (isEnabled(Level.FATAL) && isPermitted(Level.FATAL, format)) {
+            replayRecorded(Level.FATAL);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.FATAL, format, arg1, arg2, arg3);
+            notifyListeners(Level.FATAL, format, arg1, arg2, arg3);
+            JfrSupport.commit(event, Level.FATAL, name, format);
+            stopTimer(Level.FATAL, started);
         }
     }
 
     @Override
     public void fatal(String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.FATAL.isEqualOrHigherThan(level)) {
-            final Object[] first = new Object[] {arg1, arg2, arg3};
-            log(Level.FATAL, format, first, args);
-            notifyListeners(Level.FATAL, format(format, concat(first, args)));
+        if (isEnabled(Level.FATAL) && isPermitted(Level.FATAL, format)) {
+            replayRecorded(Level.FATAL);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            final Object[] array = toArray(arg1, arg2, arg3, args);
+            log(Level.FATAL, format, array);
+            notifyListeners(Level.FATAL, format, array);
+            JfrSupport.commit(event, Level.FATAL, name, format);
+            stopTimer(Level.FATAL, started);
         }
     }
 
     @Override
     public void fatal(Throwable throwable, String message) {
-        if (Level.FATAL.isEqualOrHigherThan(level)) {
-            inner.error(message, throwable);
+        if (isEnabled(Level.FATAL) && isPermitted(Level.FATAL, message)) {
+            replayRecorded(Level.FATAL);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.FATAL, message, throwable);
             notifyListeners(Level.FATAL, message, throwable);
+            JfrSupport.commit(event, Level.FATAL, name, message);
+            stopTimer(Level.FATAL, started);
         }
     }
 
     @Override
     public void fatal(Throwable throwable, String format, Object arg) {
-        if (Level.FATAL.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg);
-            inner.error(msg, throwable);
-            notifyListeners(Level.FATAL, msg, throwable);
+        if (isEnabled(Level.FATAL) && isPermitted(Level.FATAL, format)) {
+            replayRecorded(Level.FATAL);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.FATAL, throwable, format, 1, arg, null, null, null);
+            notifyListeners(Level.FATAL, throwable, format, 1, arg, null, null, null);
+            JfrSupport.commit(event, Level.FATAL, name, format);
+            stopTimer(Level.FATAL, started);
         }
     }
 
     @Override
     public void fatal(Throwable throwable, String format, Object arg1, Object arg2) {
-        if (Level.FATAL.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2);
-            inner.error(msg, throwable);
-            notifyListeners(Level.FATAL, msg, throwable);
+        if (isEnabled(Level.FATAL) && isPermitted(Level.FATAL, format)) {
+            replayRecorded(Level.FATAL);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.FATAL, throwable, format, 2, arg1, arg2, null, null);
+            notifyListeners(Level.FATAL, throwable, format, 2, arg1, arg2, null, null);
+            JfrSupport.commit(event, Level.FATAL, name, format);
+            stopTimer(Level.FATAL, started);
         }
     }
 
     @Override
     public void fatal(Throwable throwable, String format, Object arg1, Object arg2, Object arg3) {
-        if (Level.FATAL.isEqualOrHigherThan(level)) {
-            final String msg = format(format, arg1, arg2, arg3);
-            inner.error(msg, throwable);
-            notifyListeners(Level.FATAL, msg, throwable);
+        if (isEnabled(Level.FATAL) && isPermitted(Level.FATAL, format)) {
+            replayRecorded(Level.FATAL);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.FATAL, throwable, format, 3, arg1, arg2, arg3, null);
+            notifyListeners(Level.FATAL, throwable, format, 3, arg1, arg2, arg3, null);
+            JfrSupport.commit(event, Level.FATAL, name, format);
+            stopTimer(Level.FATAL, started);
         }
     }
 
     @Override
     public void fatal(Throwable throwable, String format, Object arg1, Object arg2, Object arg3, Object... args) {
-        if (Level.FATAL.isEqualOrHigherThan(level)) {
-            final String msg = format(format, concat(new Object[] {arg1, arg2, arg3}, args));
-            inner.error(msg, throwable);
-            notifyListeners(Level.FATAL, msg, throwable);
+        if (isEnabled(Level.FATAL) && isPermitted(Level.FATAL, format)) {
+            replayRecorded(Level.FATAL);
+            final long started = startTimer();
+            final Object event = JfrSupport.begin();
+            log(Level.FATAL, throwable, format, 3, arg1, arg2, arg3, args);
+            notifyListeners(Level.FATAL, throwable, format, 3, arg1, arg2, arg3, args);
+            JfrSupport.commit(event, Level.FATAL, name, format);
+            stopTimer(Level.FATAL, started);
         }
     }
 
-    private void log(Level msgLevel, String format, Object[] first, Object[] then) {
-        final Object[] array = concat(first, then);
-        switch (msgLevel) {
-            case TRACE: inner.trace(format, array); break;
-            case DEBUG: inner.debug(format, array); break;
-            case INFO:  inner.info(format, array);  break;
-            case WARN:  inner.warn(format, array);  break;
-            case ERROR: inner.error(format, array); break;
-            case FATAL: inner.error(format, array); break;
-            default: throw new UnsupportedOperationException();
+    void setThrottler(Throttler throttler) {
+        final Throttler previous = this.throttler;
+        this.throttler = throttler;
+
+        // Report what the previous throttler discarded before it is forgotten
+        if (previous != null) {
+            previous.flush();
+            logSummaries(previous);
         }
     }
 
+    synchronized void setSampler(Level level, Sampling.Sampler sampler) {
+        final Sampling.Sampler[] current = samplers;
+        if (current == null && sampler == null) {
+            return;
+        }
+
+        final Sampling.Sampler[] next = current == null
+            ? new Sampling.Sampler[LEVELS.length]
+            : current.clone();
+
+        next[level.ordinal()] = sampler;
+        samplers = next;
+    }
+
+    // Logs one message of a LogBatch, where the level has already been
+    // checked and the listeners looked up when the batch was created. The
+    // arguments of the message are values[from] until values[to]. Apart from
+    // that, the message is logged the same way as by the level methods.
+    void logBatched(Level msgLevel, String format, Object[] values, int from, int to,
+            LoggerEventListener[] targets) {
+
+        if (!isPermitted(msgLevel, format)) {
+            return;
+        }
+
+        if (msgLevel == Level.ERROR || msgLevel == Level.FATAL) {
+            replayRecorded(msgLevel);
+        }
+
+        final long started = startTimer();
+        final Object event = JfrSupport.begin();
+        Object[] array = null;
+        switch (to - from) {
+            case 0: log(msgLevel, format); break;
+            case 1: log(msgLevel, format, values[from]); break;
+            case 2: log(msgLevel, format, values[from], values[from + 1]); break;
+            default:
+                array = Arrays.copyOfRange(values, from, to);
+                log(msgLevel, format, array);
+        }
+
+        if (targets.length > 0) {
+            if (array == null && to > from) {
+                array = Arrays.copyOfRange(values, from, to);
+            }
+            notifyListeners(targets, msgLevel, format, 0, null, null, null, array, null);
+        }
+
+        JfrSupport.commit(event, msgLevel, name, format);
+        stopTimer(msgLevel, started);
+    }
+
+    // Logs a message that was recorded by the flight recorder. It is sent to
+    // the backend with the level it was recorded with if the backend has it
+    // enabled, otherwise with the level of the error that replays it, and
+    // with the original level and time in front of it either way. Listeners
+    // get the message as it was. The format is null if only a throwable was
+    // logged.
+    void replay(FlightRecorder.Recorded rec, Level trigger) {
+        final Level msgLevel = rec.level;
+        final Throwable thrw = rec.thrown;
+        final String format  = rec.format;
+        final int leading    = rec.leading;
+        final Object arg1 = rec.arg1, arg2 = rec.arg2, arg3 = rec.arg3;
+        final Object[] args  = rec.args;
+
+        final Level target = isBackendEnabled(msgLevel.ordinal()) ? msgLevel : trigger;
+        final String prefixed = "[recorded " + msgLevel.name() + " "
+            + Instant.ofEpochMilli(rec.timestamp) + "] " + (format == null ? "" : format);
+
+        if (thrw != null) {
+            log(target, thrw, prefixed, leading, arg1, arg2, arg3, args);
+        } else if (leading == 0 && args == null) {
+            log(target, prefixed);
+        } else {
+            log(target, prefixed, LazyLoggerEvent.arguments(leading, arg1, arg2, arg3, args));
+        }
+
+        if (format == null) {
+            notifyListeners(msgLevel, thrw);
+        } else {
+            notifyListeners(msgLevel, thrw, format, leading, arg1, arg2, arg3, args);
+        }
+    }
+
+    // Sampling is decided first, since it is the cheapest and the most
+    // likely to discard the message.
+
+    private boolean isPermitted(Level msgLevel, String format) {
+        final Sampling.Sampler[] smp = samplers;
+        if (smp != null) {
+            final Sampling.Sampler sampler = smp[msgLevel.ordinal()];
+            if (sampler != null && !sampler.sample()) {
+                count(Counter.SAMPLED_OUT, msgLevel);
+                return false;
+            }
+        }
+
+        final Throttler thr = throttler;
+        if (thr == null) {
+            count(Counter.EMITTED, msgLevel);
+            return true;
+        }
+
+        final boolean permitted = thr.permits(msgLevel, format);
+        if (thr.hasSummaries()) {
+            logSummaries(thr);
+        }
+
+        if (permitted) {
+            count(Counter.EMITTED, msgLevel);
+            return true;
+        } else {
+            count(Counter.THROTTLED, msgLevel);
+            return false;
+        }
+    }
+
+    // Summaries are logged from here rather than from the throttler, so that
+    // a backend that reports the caller of the logger finds the same caller
+    // as for the message that made the throttler queue them.
+    private void logSummaries(Throttler thr) {
+        Throttler.Summary summary;
+        while ((summary = thr.pollSummary()) != null) {
+            final Level lvl = summary.getLevel();
+            log(lvl, summary.getFormat(), summary.getArg1(), summary.getArg2());
+            notifyListeners(lvl, summary.getFormat(), summary.getArg1(), summary.getArg2());
+        }
+    }
+
+    private boolean isPermitted(Level msgLevel, Throwable thrw) {
+        return isPermitted(msgLevel, thrw == null ? "" : thrw.getClass().getName());
+    }
+
+    private boolean isEnabled(Level msgLevel) {
+        int current = state;
+        if ((current >>> THRESHOLD_BITS) != (generation.get() & GENERATION_MASK)) {
+            current = refreshThreshold();
+        }
+
+        if (msgLevel.ordinal() >= (current & THRESHOLD_MASK)) {
+            return true;
+        } else if (Elevation.isAnyOpen() && Elevation.permits(factory, key, msgLevel)) {
+            return true;
+        } else if (recheckBackend && isEnabledByBackend(msgLevel)) {
+            return true;
+        } else {
+            count(Counter.FILTERED, msgLevel);
+            return false;
+        }
+    }
+
+    // A backend that does not announce when it is reconfigured is asked again
+    // once every RECHECK_INTERVAL messages that only the backend has
+    // disabled, so that a level enabled at runtime is noticed without
+    // invalidating the levels of the factory, and without asking the backend
+    // on every call.
+    private boolean isEnabledByBackend(Level msgLevel) {
+        if (msgLevel.ordinal() < level.ordinal() || --recheckCountdown > 0) {
+            return false;
+        }
+
+        recheckCountdown = RECHECK_INTERVAL;
+        if (inner.isEnabled(msgLevel)) {
+            refreshThreshold();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    // While the flight recorder is disabled, these only read the field in
+    // the factory
+
+    private void record(Level msgLevel, Throwable thrw, String format, int leading,
+            Object arg1, Object arg2, Object arg3, Object[] args) {
+        final FlightRecorder recorder = factory.getFlightRecorder();
+        if (recorder != null) {
+            recorder.record(this, msgLevel, thrw, format, leading, arg1, arg2, arg3, args);
+        }
+    }
+
+    // The recorded messages are logged from here rather than from the
+    // recorder, so that a backend that reports the caller of the logger
+    // finds the caller of the message that replays them.
+    private void replayRecorded(Level trigger) {
+        final FlightRecorder recorder = factory.getFlightRecorder();
+        if (recorder != null) {
+            final FlightRecorder.Ring ring = recorder.startReplay();
+            if (ring != null) {
+                try {
+                    FlightRecorder.Recorded rec;
+                    while ((rec = ring.poll()) != null) {
+                        rec.logger.replay(rec, trigger);
+                    }
+                } finally {
+                    recorder.finishReplay(ring);
+                }
+            }
+        }
+    }
+
+    // While metrics are disabled, these only read the field in the factory
+
+    private void count(Counter counter, Level msgLevel) {
+        final Metrics current = factory.getMetrics();
+        if (current != null) {
+            Metrics.Counters ctrs = counters;
+            if (ctrs == null || !ctrs.belongsTo(current) || ctrs.isRemoved()) {
+                counters = ctrs = current.register(key);
+            }
+            ctrs.increment(counter, msgLevel);
+        }
+    }
+
+    // Returns the time the call started, if its latency should be recorded
+    private long startTimer() {
+        final Metrics current = factory.getMetrics();
+        return current != null && current.isSampled() ? System.nanoTime() : NOT_SAMPLED;
+    }
+
+    private void stopTimer(Level msgLevel, long started) {
+        if (started != NOT_SAMPLED) {
+            final Metrics current = factory.getMetrics();
+            if (current != null) {
+                current.recordLatency(msgLevel, System.nanoTime() - started);
+            }
+        }
+    }
+
+    private int refreshThreshold() {
+        while (true) {
+            // The generation is read before the backend is asked, so that a
+            // concurrent invalidation is never lost. At worst the threshold
+            // is computed one extra time.
+            final int current = state;
+            final int gen = generation.get() & GENERATION_MASK;
+            final Level lvl = level;
+
+            int lowest = lvl.ordinal();
+            while (lowest < DISABLED && !isBackendEnabled(lowest)) {
+                lowest++;
+            }
+
+            // If the level was changed while computing, the result might
+            // already be outdated even though the update succeeded.
+            final int next = (gen << THRESHOLD_BITS) | lowest;
+            if (STATE.compareAndSet(this, current, next) && level == lvl) {
+                return next;
+            }
+        }
+    }
+
+    private boolean isBackendEnabled(int ordinal) {
+        return inner.isEnabled(LEVELS[ordinal]);
+    }
+
+    // The message is only rendered here if the formatter is not the identity,
+    // otherwise the format and the arguments are passed on to the backend.
+
+    private void log(Level msgLevel, String message) {
+        final Formatting fmt = formatting;
+        inner.log(msgLevel, fmt.isIdentity() ? message
+            : fmt.apply(msgLevel, message, 0, null, null, null, null));
+    }
+
+    private void log(Level msgLevel, String format, Object arg) {
+        final Formatting fmt = formatting;
+        if (fmt.isIdentity()) {
+            inner.log(msgLevel, format, arg);
+        } else {
+            inner.log(msgLevel, fmt.apply(msgLevel, format, 1, arg, null, null, null));
+        }
+    }
+
+    private void log(Level msgLevel, String format, Object arg1, Object arg2) {
+        final Formatting fmt = formatting;
+        if (fmt.isIdentity()) {
+            inner.log(msgLevel, format, arg1, arg2);
+        } else {
+            inner.log(msgLevel, fmt.apply(msgLevel, format, 2, arg1, arg2, null, null));
+        }
+    }
+
+    private void log(Level msgLevel, String format, Object arg1, Object arg2, Object arg3) {
+        final Formatting fmt = formatting;
+        if (fmt.isIdentity()) {
+            inner.log(msgLevel, format, arg1, arg2, arg3);
+        } else {
+            inner.log(msgLevel, fmt.apply(msgLevel, format, 3, arg1, arg2, arg3, null));
+        }
+    }
+
+    private void log(Level msgLevel, String format, Object[] array) {
+        final Formatting fmt = formatting;
+        if (fmt.isIdentity()) {
+            inner.log(msgLevel, format, array);
+        } else {
+            inner.log(msgLevel, fmt.apply(msgLevel, format, 0, null, null, null, array));
+        }
+    }
+
+    private void log(Level msgLevel, String message, Throwable thrw) {
+        final Formatting fmt = formatting;
+        inner.log(msgLevel, fmt.isIdentity() ? message
+            : fmt.apply(msgLevel, message, 0, null, null, null, null), thrw);
+    }
+
+    private void log(Level msgLevel, Throwable thrw, String format, int leading,
+            Object arg1, Object arg2, Object arg3, Object[] args) {
+
+        final Formatting fmt = formatting;
+        if (fmt.isIdentity()) {
+            inner.log(msgLevel, thrw, format, leading, arg1, arg2, arg3, args);
+        } else {
+            inner.log(msgLevel, fmt.apply(msgLevel, format, leading, arg1, arg2, arg3, args), thrw);
+        }
+    }
+
+    // The listeners are checked before any event is created so that the
+    // common case of no listeners does not format or allocate anything.
+
     private void notifyListeners(Level level, String message) {
-        final LoggerEvent ev = new SimpleLoggerEvent(level, name, message);
-        listeners.forEach(listener -> listener.accept(ev));
+        final LoggerEventListener[] targets = listeners();
+        if (targets.length > 0) {
+            notifyListeners(targets, level, message, 0, null, null, null, null, null);
+        }
+    }
+
+    private void notifyListeners(Level level, String format, Object arg) {
+        final LoggerEventListener[] targets = listeners();
+        if (targets.length > 0) {
+            notifyListeners(targets, level, format, 1, arg, null, null, null, null);
+        }
+    }
+
+    private void notifyListeners(Level level, String format, Object arg1, Object arg2) {
+        final LoggerEventListener[] targets = listeners();
+        if (targets.length > 0) {
+            notifyListeners(targets, level, format, 2, arg1, arg2, null, null, null);
+        }
+    }
+
+    private void notifyListeners(Level level, String format, Object arg1, Object arg2, Object arg3) {
+        final LoggerEventListener[] targets = listeners();
+        if (targets.length > 0) {
+            notifyListeners(targets, level, format, 3, arg1, arg2, arg3, null, null);
+        }
+    }
+
+    private void notifyListeners(Level level, String format, Object[] args) {
+        final LoggerEventListener[] targets = listeners();
+        if (targets.length > 0) {
+            notifyListeners(targets, level, format, 0, null, null, null, args, null);
+        }
     }
 
     private void notifyListeners(Level level, Throwable thrw) {
-        notifyListeners(level, thrw.getClass().getSimpleName() + ": " + thrw.getMessage());
+        final LoggerEventListener[] targets = listeners();
+        if (targets.length > 0) {
+            notifyListeners(targets, level, String.valueOf(thrw.getMessage()), 0, null, null, null, null, thrw);
+        }
     }
 
     private void notifyListeners(Level level, String message, Throwable thrw) {
-        notifyListeners(level, thrw.getClass().getSimpleName() + ": " + message);
+        final LoggerEventListener[] targets = listeners();
+        if (targets.length > 0) {
+            notifyListeners(targets, level, message, 0, null, null, null, null, thrw);
+        }
     }
 
-    private static Object[] concat(Object[] first, Object[] then) {
-        final Object[] array = new Object[first.length + then.length];
-        System.arraycopy(first, 0, array, 0, first.length);
-        System.arraycopy(then, 0, array, first.length, then.length);
-        return array;
+    private void notifyListeners(Level level, Throwable thrw, String format, int leading,
+            Object arg1, Object arg2, Object arg3, Object[] args) {
+        final LoggerEventListener[] targets = listeners();
+        if (targets.length > 0) {
+            notifyListeners(targets, level, format, leading, arg1, arg2, arg3, args, thrw);
+        }
     }
 
-    private final static class SimpleLoggerEvent implements LoggerEvent {
+    private void notifyListeners(LoggerEventListener[] targets, Level level, String format, int leading,
+            Object arg1, Object arg2, Object arg3, Object[] args, Throwable thrw) {
+
+        count(Counter.LISTENED, level);
+        final AsyncListenerDispatcher async = factory.getAsyncDispatcher();
+        if (async == null || !async.offer(targets, level, name, format, leading, arg1, arg2, arg3, args, thrw)) {
+            ListenerArrays.deliver(targets, new LazyLoggerEvent(level, name, format,
+                LazyLoggerEvent.arguments(leading, arg1, arg2, arg3, args), thrw));
+        }
+    }
 
-        private final Level level;
-        private final String name, message;
+    LoggerEventListener[] listeners() {
+        final LoggerEventListener[] shared = factory.getListeners();
+        final LoggerEventListener[] own    = listeners;
 
-        private SimpleLoggerEvent(Level level, String name, String message) {
-            this.level   = requireNonNull(level);
-            this.name    = requireNonNull(name);
-            this.message = requireNonNull(message);
+        // The arrays are copy-on-write, so the same instances means the
+        // same listeners
+        final Listeners cached = combined;
+        if (cached.shared == shared && cached.own == own) {
+            return cached.all;
         }
 
-        @Override
-        public Level getLevel() {
-            return level;
+        final Listeners rebuilt = new Listeners(shared, own);
+        combined = rebuilt;
+        return rebuilt.all;
+    }
+
+    // Builds the one array that is shared by the backend and the listeners
+    private static Object[] toArray(Object arg1, Object arg2, Object arg3, Object[] args) {
+        final Object[] array = new Object[3 + args.length];
+        array[0] = arg1;
+        array[1] = arg2;
+        array[2] = arg3;
+        System.arraycopy(args, 0, array, 3, args.length);
+        return array;
+    }
+
+    /**
+     * The listeners of the factory and of a logger, and the array with both
+     * of them that is passed on when a message is logged.
+     */
+    private final static class Listeners {
+
+        private final LoggerEventListener[] shared;
+        private final LoggerEventListener[] own;
+        private final LoggerEventListener[] all;
+
+        private Listeners(LoggerEventListener[] shared, LoggerEventListener[] own) {
+            this.shared = shared;
+            this.own    = own;
+            this.all    = ListenerArrays.concat(shared, own);
         }
+    }
+
+    /**
+     * The formatter of a logger, together with what could be computed ahead
+     * of time. The prefixes of a {@link PrefixLoggerFormatter} are computed
+     * once per level, and a formatter that never changes the message is
+     * skipped completely.
+     */
+    private final static class Formatting {
+
+        private final LoggerFormatter formatter;
+        private final String name;
+        private final String[] prefixes; // Nullable, unless a PrefixLoggerFormatter
+        private final boolean identity;
 
-        @Override
-        public String getName() {
-            return name;
+        private Formatting(LoggerFormatter formatter, String name) {
+            this.formatter = requireNonNull(formatter);
+            this.name      = requireNonNull(name);
+
+            if (formatter instanceof Slf4jLoggerFormatter) {
+                this.prefixes = null;
+                this.identity = true;
+            } else if (formatter instanceof PrefixLoggerFormatter) {
+                final PrefixLoggerFormatter prefixer = (PrefixLoggerFormatter) formatter;
+                this.prefixes = new String[LEVELS.length];
+
+                boolean empty = true;
+                for (final Level lvl : LEVELS) {
+                    final String prefix = requireNonNull(prefixer.prefix(lvl, name));
+                    prefixes[lvl.ordinal()] = prefix;
+                    empty &= prefix.isEmpty();
+                }
+
+                this.identity = empty;
+            } else {
+                this.prefixes = null;
+                this.identity = false;
+            }
         }
 
-        @Override
-        public String getMessage() {
-            return message;
+        private boolean isIdentity() {
+            return identity;
         }
 
-        @Override
-        public String toString() {
-            return format("{level=%s, name='%s', message='%s'}", level, name, message);
+        private String apply(Level level, String format, int leading,
+                Object arg1, Object arg2, Object arg3, Object[] args) {
+
+            if (prefixes != null) {
+                return render(prefixes[level.ordinal()], format, leading, arg1, arg2, arg3, args);
+            } else {
+                return formatter.apply(level, name,
+                    render(null, format, leading, arg1, arg2, arg3, args)
+                );
+            }
         }
     }
 }
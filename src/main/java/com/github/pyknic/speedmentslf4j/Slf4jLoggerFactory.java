@@ -18,14 +18,18 @@ package com.github.pyknic.speedmentslf4j;
 
 import com.speedment.common.logger.*;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static com.speedment.common.logger.internal.util.NullUtil.requireNonNulls;
-import static java.util.Collections.newSetFromMap;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -34,27 +38,103 @@ import static java.util.Objects.requireNonNull;
  */
 public final class Slf4jLoggerFactory implements LoggerFactory {
 
-    private LoggerFormatter formatter;
-    private Level level;
+    // Abbreviated names are computed once per class. A ClassValue does not
+    // keep the class from being unloaded, unlike a map keyed on the class.
+    private final static ClassValue<String> NAMES = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return abbreviate(type.getName());
+        }
+    };
+
+    private volatile LoggerFormatter formatter;
+    private volatile Level level;
+
+    // Loggers created from a name and from a class are kept apart, so that a
+    // class never gets a logger that was created with its name as a string.
+    // Both are keyed on the full name, since abbreviated names may collide.
+    private final LoggerRegistry loggers;
+    private final LoggerRegistry classLoggers;
+    private final AtomicInteger generation;
+    private final LevelTree levels;
+    private final Function<org.slf4j.Logger, Delegate> delegates;
+    private final boolean backendWatched;
 
-    private final Map<String, Logger> loggers;
-    private final Set<LoggerEventListener> listeners;
+    // Listeners shared by every logger of this factory. The array is never
+    // modified, instead a new one is published whenever a listener is added
+    // or removed.
+    private volatile LoggerEventListener[] listeners;
+    private volatile AsyncListenerDispatcher asyncDispatcher; // Nullable
+    private volatile Metrics metrics; // Nullable
+    private volatile FlightRecorder flightRecorder; // Nullable
+
+    /**
+     * How the factory holds on to the loggers it has created.
+     */
+    public enum Retention {
+
+        /**
+         * Loggers are kept for as long as the factory exists. This is the
+         * default, and the fastest if the number of logger names is bounded.
+         */
+        STRONG,
+
+        /**
+         * Loggers are only kept while they are used somewhere else, so that
+         * loggers with dynamic names, for example per tenant or per
+         * connection, can be garbage collected. A logger that is requested
+         * again after it has been collected is created anew, with the
+         * levels, throttles and sampling that apply to its name.
+         */
+        WEAK
+    }
 
     public Slf4jLoggerFactory() {
-        this.loggers   = new ConcurrentHashMap<>();
-        this.formatter = new Slf4jLoggerFormatter();
-        this.level     = Level.defaultLevel();
-        this.listeners = newSetFromMap(new ConcurrentHashMap<>());
+        this(Retention.STRONG);
+    }
+
+    /**
+     * Creates a factory that holds on to its loggers as specified.
+     *
+     * @param retention  how to hold on to the loggers
+     */
+    public Slf4jLoggerFactory(Retention retention) {
+        this.formatter  = new Slf4jLoggerFormatter();
+        this.level      = Level.defaultLevel();
+        this.listeners  = ListenerArrays.EMPTY;
+        this.generation = new AtomicInteger();
+        this.levels     = new LevelTree();
+        this.delegates  = Delegates.detect();
+
+        this.loggers        = newRegistry(retention);
+        this.classLoggers   = newRegistry(retention);
+        this.backendWatched = BackendWatcher.watch(generation);
     }
 
     @Override
     public Logger create(Class<?> binding) {
-        return prepare(binding, org.slf4j.LoggerFactory.getLogger(binding));
+        // Most loggers already exist, so try a lock-free lookup before
+        // falling back to computeIfAbsent, which locks the bin.
+        final Slf4jLogger existing = classLoggers.get(binding.getName());
+        if (existing != null) {
+            return existing;
+        }
+
+        return classLoggers.computeIfAbsent(binding.getName(), n ->
+            prepare(makeNameFrom(binding), org.slf4j.LoggerFactory.getLogger(binding))
+        );
     }
 
     @Override
     public Logger create(String binding) {
-        return prepare(null, org.slf4j.LoggerFactory.getLogger(binding));
+        final Slf4jLogger existing = loggers.get(requireNonNull(binding));
+        if (existing != null) {
+            return existing;
+        }
+
+        return loggers.computeIfAbsent(binding, n ->
+            prepare(n, org.slf4j.LoggerFactory.getLogger(n))
+        );
     }
 
     @Override
@@ -65,6 +145,7 @@ public final class Slf4jLoggerFactory implements LoggerFactory {
     @Override
     public void setFormatter(LoggerFormatter formatter) {
         this.formatter = requireNonNull(formatter);
+        forEachLogger(log -> log.setFormatter(formatter));
     }
 
     @Override
@@ -72,37 +153,144 @@ public final class Slf4jLoggerFactory implements LoggerFactory {
         return formatter;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * An exception thrown by a listener that is invoked synchronously reaches
+     * the code that logged the message. If the listeners are invoked by an
+     * {@link AsyncListenerDispatcher}, the exception is instead passed to the
+     * uncaught exception handler of the consumer thread, and the other
+     * listeners still get the event.
+     */
     @Override
-    public void addListener(LoggerEventListener listener) {
-        if (listeners.add(listener)) {
-            forEachLogger(log -> log.addListener(listener));
-        }
+    public synchronized void addListener(LoggerEventListener listener) {
+        listeners = ListenerArrays.add(listeners, requireNonNull(listener));
     }
 
     @Override
-    public void removeListener(LoggerEventListener listener) {
-        if (listeners.remove(listener)) {
-            forEachLogger(log -> log.removeListener(listener));
-        }
+    public synchronized void removeListener(LoggerEventListener listener) {
+        listeners = ListenerArrays.remove(listeners, requireNonNull(listener));
     }
 
     @Override
     public Stream<Map.Entry<String, Logger>> loggers() {
-        return loggers.entrySet().stream();
+        return Stream.concat(loggers.entries(), classLoggers.entries());
     }
 
     @Override
     public Stream<LoggerEventListener> listeners() {
-        return listeners.stream();
+        return Arrays.stream(listeners);
+    }
+
+    /**
+     * Makes listeners receive their events on background threads instead of
+     * on the thread that logged them. Events are buffered in a ring of
+     * {@code capacity} slots that is drained by {@code consumers} threads.
+     * If asynchronous delivery was already enabled, the previous dispatcher
+     * is closed once the new one is in place.
+     * <p>
+     * The arguments are passed to the listeners by reference and rendered on
+     * the background threads, so a listener may see an argument that the
+     * caller changed after the log call returned. Use
+     * {@link #enableAsyncListeners(int, int, AsyncListenerDispatcher.Backpressure, boolean)}
+     * to snapshot them on the logging thread instead.
+     * <p>
+     * By default, listeners are invoked synchronously.
+     *
+     * @param capacity      the number of slots in the ring buffer
+     * @param consumers     the number of threads that invoke the listeners
+     * @param backpressure  what to do when the buffer is full
+     * @return              the new dispatcher, for monitoring
+     */
+    public AsyncListenerDispatcher enableAsyncListeners(int capacity, int consumers,
+            AsyncListenerDispatcher.Backpressure backpressure) {
+        return enableAsyncListeners(capacity, consumers, backpressure, false);
     }
 
+    /**
+     * Makes listeners receive their events on background threads, like
+     * {@link #enableAsyncListeners(int, int, AsyncListenerDispatcher.Backpressure)}.
+     * If {@code snapshotArguments} is {@code true}, arguments that could
+     * change after the log call has returned are rendered into strings on
+     * the logging thread, see {@link AsyncListenerDispatcher}. That costs
+     * the logging thread a {@code toString()} per mutable argument.
+     *
+     * @param capacity           the number of slots in the ring buffer
+     * @param consumers          the number of threads that invoke the
+     *                           listeners
+     * @param backpressure       what to do when the buffer is full
+     * @param snapshotArguments  whether to snapshot the arguments on the
+     *                           logging thread
+     * @return                   the new dispatcher, for monitoring
+     */
+    public AsyncListenerDispatcher enableAsyncListeners(int capacity, int consumers,
+            AsyncListenerDispatcher.Backpressure backpressure, boolean snapshotArguments) {
+
+        final AsyncListenerDispatcher dispatcher =
+            new AsyncListenerDispatcher(capacity, consumers, backpressure, snapshotArguments);
+
+        final AsyncListenerDispatcher previous;
+        synchronized (this) {
+            previous = asyncDispatcher;
+            asyncDispatcher = dispatcher;
+        }
+
+        if (previous != null) {
+            previous.close();
+        }
+
+        return dispatcher;
+    }
+
+    /**
+     * Goes back to invoking the listeners synchronously. Events that are
+     * already buffered are delivered before this method returns.
+     */
+    public void disableAsyncListeners() {
+        final AsyncListenerDispatcher previous;
+        synchronized (this) {
+            previous = asyncDispatcher;
+            asyncDispatcher = null;
+        }
+
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Makes every logger created by this factory ask the Slf4j backend again
+     * which levels are enabled. The loggers cache the backend state, so this
+     * has to be invoked whenever the backend has been reconfigured at runtime,
+     * unless the backend announces it. Loggers are refreshed lazily the next
+     * time they are used.
+     * <p>
+     * Logback and Log4j 2 announce their reconfigurations, so with them this
+     * is done automatically when a level is changed or the configuration is
+     * reloaded. Changes that are not announced, like a new turbo filter in
+     * Logback, still need this method. For any other backend, the loggers ask
+     * the backend again once every 1024 messages that only the backend has
+     * disabled, so levels enabled at runtime are picked up after a while
+     * either way. Levels disabled at runtime are only noticed by the adapter
+     * once this method has been invoked. Until then, the backend discards the
+     * messages itself, but listeners still receive them.
+     */
+    public void invalidateLevels() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The path is matched against whole {@code .}-separated segments of the
+     * logger names, so {@code "c.s.r"} matches {@code "c.s.r.Foo"} but not
+     * {@code "c.s.runtime.Foo"}. The level is also remembered, so loggers
+     * created later under the same path get it as well.
+     */
     @Override
     public void setLevel(String path, Level level) {
         requireNonNulls(path, level);
-        loggers().filter(e -> e.getKey().startsWith(path))
-            .map(Map.Entry::getValue)
-            .forEach((Logger l) -> l.setLevel(level)
-        );
+        levels.setLevel(path, level);
     }
 
     @Override
@@ -111,33 +299,273 @@ public final class Slf4jLoggerFactory implements LoggerFactory {
         setLevel(makeNameFrom(binding), level);
     }
 
-    private Logger prepare(Class<?> clazz, org.slf4j.Logger inner) {
-        // clazz is nullable
-        final Logger log = new Slf4jLogger(inner, formatter, level);
-        listeners.forEach(log::addListener);
-        loggers.put(clazz == null ? inner.getName() : makeNameFrom(clazz), log);
+    /**
+     * Throttles messages with the specified level or higher from the loggers
+     * under the specified path, which is matched in the same way as in
+     * {@link #setLevel(String, Level)}. Every logger gets its own rate limit
+     * and duplicate suppression. The throttle replaces any throttle set
+     * further down the same path and applies to loggers created later as
+     * well.
+     * <p>
+     * Throttled messages are discarded both for the Slf4j backend and for
+     * the listeners. How many were discarded is logged by the same logger,
+     * the next time it is used after the rate limit lets messages through
+     * again or the duplicate window has ended, see {@link Throttle}.
+     *
+     * @param path      the path, an empty string means every logger
+     * @param level     the lowest level to throttle
+     * @param throttle  the throttle
+     */
+    public void setThrottle(String path, Level level, Throttle throttle) {
+        requireNonNulls(path, level, throttle);
+        levels.setThrottle(path, level, throttle);
+    }
+
+    /**
+     * Removes the throttling of the loggers under the specified path,
+     * including throttles set further down the same path.
+     *
+     * @param path  the path, an empty string means every logger
+     */
+    public void removeThrottle(String path) {
+        requireNonNull(path);
+        levels.setThrottle(path, null, null);
+    }
+
+    /**
+     * Keeps only a sample of the messages with the specified level from the
+     * loggers under the specified path, which is matched in the same way as
+     * in {@link #setLevel(String, Level)}. Each level is sampled separately,
+     * and the sampling replaces any sampling of the same level set further
+     * down the path. Loggers created later under the path are sampled as
+     * well. Use {@link Sampling#ALL} to stop sampling.
+     * <p>
+     * The level must still be enabled for the messages to be logged.
+     *
+     * @param path      the path, an empty string means every logger
+     * @param level     the level to sample
+     * @param sampling  the sampling
+     */
+    public void setSampling(String path, Level level, Sampling sampling) {
+        requireNonNulls(path, level, sampling);
+        levels.setSampling(path, level, sampling);
+    }
+
+    /**
+     * Lets messages with the specified level or higher through every logger
+     * of this factory, for the current thread only, until the returned scope
+     * is closed. See {@link Elevation} for how to propagate the scope to
+     * other threads.
+     *
+     * @param level  the lowest level to let through
+     * @return       the scope, to be closed when done
+     */
+    public Elevation elevate(Level level) {
+        return elevate(level, "");
+    }
+
+    /**
+     * Lets messages with the specified level or higher through the loggers
+     * under the specified path, which is matched in the same way as in
+     * {@link #setLevel(String, Level)}, for the current thread only, until
+     * the returned scope is closed. See {@link Elevation} for how to
+     * propagate the scope to other threads.
+     *
+     * @param level  the lowest level to let through
+     * @param path   the path, an empty string means every logger
+     * @return       the scope, to be closed when done
+     */
+    public Elevation elevate(Level level, String path) {
+        requireNonNulls(level, path);
+        return new Elevation(this, level, path);
+    }
+
+    /**
+     * Starts recording the messages with the specified level or higher, but
+     * below {@code ERROR}, that are not logged because their level is
+     * disabled. Messages that are sampled out or throttled are not recorded.
+     * The latest {@code capacity} of them are kept for each thread, and
+     * logged when an {@code ERROR} or {@code FATAL} message is logged on the
+     * same thread, so that the events leading up to an error are available
+     * without having them enabled all the time.
+     * <p>
+     * The messages are not rendered when they are recorded. Arguments that
+     * can't change, like strings, boxed primitives and throwables, are kept
+     * as they are, while any other argument is rendered into a string right
+     * away, so that a thread that rarely logs does not keep large objects
+     * alive. The loggers are only referenced weakly by the rings.
+     * Recorded messages are sent to the backend with their own level if the
+     * backend has it enabled, otherwise with the level of the error, and with
+     * the original level and time in front of the message. Listeners receive
+     * them as they were.
+     * <p>
+     * The flight recorder is disabled by default. While disabled, it costs a
+     * single read of a field per message that is not logged.
+     *
+     * @param level     the lowest level to record
+     * @param capacity  the number of messages to keep for each thread
+     */
+    public void enableFlightRecorder(Level level, int capacity) {
+        flightRecorder = new FlightRecorder(level, capacity);
+    }
+
+    /**
+     * Stops recording messages and discards the ones recorded so far.
+     */
+    public void disableFlightRecorder() {
+        flightRecorder = null;
+    }
+
+    /**
+     * Starts counting, per logger and level, the messages that are emitted,
+     * filtered by level, throttled, sampled out and passed on to listeners. If
+     * {@code latencySampling} is positive, the latency of one in that many
+     * calls is also recorded. Any counts collected previously are discarded.
+     * <p>
+     * Metrics are disabled by default. While disabled, they cost a single
+     * read of a field per call.
+     *
+     * @param latencySampling  record the latency of one in this many calls,
+     *                         or zero to not record latencies
+     */
+    public void enableMetrics(int latencySampling) {
+        metrics = new Metrics(latencySampling);
+    }
+
+    /**
+     * Stops collecting metrics and discards the counts collected so far.
+     */
+    public void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * Returns the metrics collected since they were enabled. If metrics are
+     * disabled, every count in the snapshot is zero.
+     *
+     * @return  the current metrics
+     */
+    public MetricsSnapshot snapshotMetrics() {
+        final Metrics current = metrics;
+        return current == null
+            ? new MetricsSnapshot(Collections.emptyMap(), new long[Level.values().length][Metrics.BUCKETS])
+            : current.snapshot();
+    }
+
+    /**
+     * Registers a {@link MetricsMXBean} for this factory with the platform
+     * MBean server, under the object name
+     * {@code com.github.pyknic.speedmentslf4j:type=Metrics,name=<name>}.
+     * Metrics still have to be enabled with {@link #enableMetrics(int)}.
+     *
+     * @param name  the name to register the bean under
+     * @return      the object name of the registered bean
+     * @throws IllegalStateException  if the bean could not be registered
+     */
+    public ObjectName registerMetricsMBean(String name) {
+        requireNonNull(name);
+        try {
+            final ObjectName objectName = new ObjectName(
+                "com.github.pyknic.speedmentslf4j:type=Metrics,name=" + ObjectName.quote(name)
+            );
+
+            ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(new Slf4jMetricsMXBean(this), objectName);
+
+            return objectName;
+        } catch (final JMException ex) {
+            throw new IllegalStateException("Could not register the metrics MBean '" + name + "'.", ex);
+        }
+    }
+
+    AtomicInteger getGeneration() {
+        return generation;
+    }
+
+    boolean isBackendWatched() {
+        return backendWatched;
+    }
+
+    LoggerEventListener[] getListeners() {
+        return listeners;
+    }
+
+    AsyncListenerDispatcher getAsyncDispatcher() {
+        return asyncDispatcher;
+    }
+
+    Metrics getMetrics() {
+        return metrics;
+    }
+
+    FlightRecorder getFlightRecorder() {
+        return flightRecorder;
+    }
+
+    LevelTree getLevels() {
+        return levels;
+    }
+
+    private Slf4jLogger prepare(String name, org.slf4j.Logger inner) {
+        final Slf4jLogger log = new Slf4jLogger(this, name, delegates.apply(inner), formatter, level);
+        levels.register(name, log);
         return log;
     }
 
-    private void forEachLogger(Consumer<Logger> action) {
-        loggers().map(Map.Entry::getValue).forEach(action);
+    // Invoked once a logger that was held weakly has been garbage collected
+    // and removed from the registry
+    private void forget(String name) {
+        levels.unregister(name);
+
+        final Metrics current = metrics;
+        if (current != null) {
+            current.unregister(name);
+        }
     }
 
     private String makeNameFrom(Class<?> binding) {
-        requireNonNull(binding);
-        final String[] tokens = binding.getName().split("\\.");
-        final StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < tokens.length; i++) {
-            if (i == tokens.length - 1) {
-                sb.append(tokens[i]);
-            } else {
-                sb.append(tokens[i].charAt(0)).append('.');
+        return NAMES.get(requireNonNull(binding));
+    }
+
+    /**
+     * Abbreviates every segment of the specified class name except the last
+     * one to its first character, so that {@code com.example.Foo} becomes
+     * {@code c.e.Foo}.
+     *
+     * @param className  the fully qualified class name
+     * @return           the abbreviated name
+     */
+    static String abbreviate(String className) {
+        final int last = className.lastIndexOf('.');
+        if (last < 0) {
+            return className;
+        }
+
+        final StringBuilder sb = new StringBuilder(className.length() - last + 16);
+        boolean segmentStart = true;
+        for (int i = 0; i < last; i++) {
+            final char c = className.charAt(i);
+            if (segmentStart) {
+                sb.append(c).append('.');
             }
+            segmentStart = c == '.';
+        }
+
+        return sb.append(className, last + 1, className.length()).toString();
+    }
+
+    private LoggerRegistry newRegistry(Retention retention) {
+        switch (requireNonNull(retention)) {
+            case STRONG: return new StrongLoggerRegistry();
+            case WEAK:   return new WeakLoggerRegistry(this::forget);
+            default: throw new UnsupportedOperationException(
+                "Unknown retention '" + retention + "'."
+            );
         }
-        return sb.toString();
     }
 
-    private Logger acquireLogger(String binding) {
-        return loggers.computeIfAbsent(binding, this::create);
+    private void forEachLogger(Consumer<Slf4jLogger> action) {
+        loggers.forEach(action);
+        classLoggers.forEach(action);
     }
 }
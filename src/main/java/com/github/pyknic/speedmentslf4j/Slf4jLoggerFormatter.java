@@ -20,6 +20,10 @@ import com.speedment.common.logger.Level;
 import com.speedment.common.logger.LoggerFormatter;
 
 /**
+ * The default formatter, which leaves the message as it is so that the Slf4j
+ * backend decides how it should look. Loggers recognize this formatter and do
+ * no formatting work at all while it is set.
+ *
  * @author Emil Forslund
  * @since  1.0.0
  */
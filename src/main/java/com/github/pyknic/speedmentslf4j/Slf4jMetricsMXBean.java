@@ -0,0 +1,103 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.github.pyknic.speedmentslf4j.MetricsSnapshot.Counter;
+import com.speedment.common.logger.Level;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The {@link MetricsMXBean} of a {@link Slf4jLoggerFactory}.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Slf4jMetricsMXBean implements MetricsMXBean {
+
+    private final Slf4jLoggerFactory factory;
+
+    Slf4jMetricsMXBean(Slf4jLoggerFactory factory) {
+        this.factory = requireNonNull(factory);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return factory.getMetrics() != null;
+    }
+
+    @Override
+    public long getEmittedCount() {
+        return factory.snapshotMetrics().getTotal(Counter.EMITTED);
+    }
+
+    @Override
+    public long getFilteredCount() {
+        return factory.snapshotMetrics().getTotal(Counter.FILTERED);
+    }
+
+    @Override
+    public long getThrottledCount() {
+        return factory.snapshotMetrics().getTotal(Counter.THROTTLED);
+    }
+
+    @Override
+    public long getSampledOutCount() {
+        return factory.snapshotMetrics().getTotal(Counter.SAMPLED_OUT);
+    }
+
+    @Override
+    public long getListenedCount() {
+        return factory.snapshotMetrics().getTotal(Counter.LISTENED);
+    }
+
+    @Override
+    public Map<String, Long> getEmittedCountByLevel() {
+        final MetricsSnapshot snapshot = factory.snapshotMetrics();
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (final Level level : Level.values()) {
+            result.put(level.name(), snapshot.getTotal(Counter.EMITTED, level));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getEmittedCountByLogger() {
+        final MetricsSnapshot snapshot = factory.snapshotMetrics();
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (final String name : snapshot.getLoggerNames()) {
+            result.put(name, snapshot.getCount(name, Counter.EMITTED));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getLatency99thPercentile() {
+        final MetricsSnapshot snapshot = factory.snapshotMetrics();
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (final Level level : Level.values()) {
+            final long latency = snapshot.getLatencyPercentile(level, 99);
+            if (latency >= 0) {
+                result.put(level.name(), latency);
+            }
+        }
+        return result;
+    }
+}
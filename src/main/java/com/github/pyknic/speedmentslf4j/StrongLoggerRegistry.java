@@ -0,0 +1,59 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Logger;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Registry that keeps every logger for as long as the factory exists.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class StrongLoggerRegistry implements LoggerRegistry {
+
+    private final ConcurrentMap<String, Slf4jLogger> loggers = new ConcurrentHashMap<>();
+
+    @Override
+    public Slf4jLogger get(String binding) {
+        return loggers.get(binding);
+    }
+
+    @Override
+    public Slf4jLogger computeIfAbsent(String binding, Function<String, Slf4jLogger> creator) {
+        return loggers.computeIfAbsent(binding, creator);
+    }
+
+    @Override
+    public void forEach(Consumer<Slf4jLogger> action) {
+        loggers.values().forEach(action);
+    }
+
+    @Override
+    public Stream<Map.Entry<String, Logger>> entries() {
+        return loggers.values().stream()
+            .<Map.Entry<String, Logger>>map(log -> new AbstractMap.SimpleImmutableEntry<>(log.getKey(), log));
+    }
+}
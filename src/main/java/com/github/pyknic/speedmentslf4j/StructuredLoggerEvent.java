@@ -0,0 +1,63 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.LoggerEvent;
+
+/**
+ * A {@link LoggerEvent} that also exposes what the message was rendered from,
+ * so that listeners can handle the arguments as they are instead of parsing
+ * the message. Every event passed to listeners by {@link Slf4jLogger}
+ * implements this interface.
+ * <pre>{@code
+ * factory.addListener(ev -> {
+ *     if (ev instanceof StructuredLoggerEvent) {
+ *         final Object[] args = ((StructuredLoggerEvent) ev).getArguments();
+ *         ...
+ *     }
+ * });
+ * }</pre>
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public interface StructuredLoggerEvent extends LoggerEvent {
+
+    /**
+     * Returns the format with {@code {}} placeholders that the message is
+     * rendered from. If the message was logged without arguments, this is
+     * the message itself.
+     *
+     * @return  the format
+     */
+    String getFormat();
+
+    /**
+     * Returns the arguments of the message, in the order of the placeholders.
+     * The array is shared with other listeners and must not be modified.
+     *
+     * @return  the arguments, or an empty array if there are none
+     */
+    Object[] getArguments();
+
+    /**
+     * Returns the throwable that was logged with the message, if any.
+     *
+     * @return  the throwable, or {@code null}
+     */
+    Throwable getThrowable();
+}
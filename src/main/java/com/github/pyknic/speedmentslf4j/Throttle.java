@@ -0,0 +1,130 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Limits how many messages the loggers under a path may log. A throttle has
+ * two parts, either of which can be disabled:
+ * <ul>
+ *     <li>A rate limit of {@code permitsPerSecond} messages per second for
+ *         each logger, where up to {@code burst} messages may be logged at
+ *         once after a quiet period. Messages over the limit are discarded
+ *         and counted, and the count is logged with the next message that
+ *         is let through.
+ *     <li>Duplicate suppression, where messages with the same format as one
+ *         logged less than the window ago are discarded. The number of such
+ *         messages is logged once the window has ended.
+ * </ul>
+ * Summaries are logged by the throttled logger itself, just before the next
+ * message at or above the throttled level is checked, so a logger that is
+ * not used again does not report what it discarded last. Replacing or
+ * removing the throttle reports everything that is still pending.
+ * Throttles are set with
+ * {@link Slf4jLoggerFactory#setThrottle(String, com.speedment.common.logger.Level, Throttle)}.
+ * Every logger gets its own state, so a noisy logger does not affect others.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class Throttle {
+
+    private final int permitsPerSecond;
+    private final int burst;
+    private final long duplicateWindowNanos;
+
+    /**
+     * Creates a throttle with only a rate limit.
+     *
+     * @param permitsPerSecond  the sustained number of messages per second
+     * @param burst             the number of messages that may be logged at once
+     */
+    public Throttle(int permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a throttle with a rate limit and duplicate suppression. A
+     * {@code permitsPerSecond} of zero disables the rate limit and a
+     * {@code duplicateWindow} of zero disables the duplicate suppression.
+     *
+     * @param permitsPerSecond  the sustained number of messages per second
+     * @param burst             the number of messages that may be logged at once
+     * @param duplicateWindow   for how long a format is suppressed once logged
+     * @param unit              the unit of the window
+     */
+    public Throttle(int permitsPerSecond, int burst, long duplicateWindow, TimeUnit unit) {
+        if (permitsPerSecond < 0) {
+            throw new IllegalArgumentException("Permits per second can't be negative, was " + permitsPerSecond + ".");
+        }
+
+        if (permitsPerSecond > 0 && burst <= 0) {
+            throw new IllegalArgumentException("Burst must be positive, was " + burst + ".");
+        }
+
+        if (duplicateWindow < 0) {
+            throw new IllegalArgumentException("Duplicate window can't be negative, was " + duplicateWindow + ".");
+        }
+
+        this.permitsPerSecond     = permitsPerSecond;
+        this.burst                = burst;
+        this.duplicateWindowNanos = requireNonNull(unit).toNanos(duplicateWindow);
+
+        if (permitsPerSecond == 0 && duplicateWindowNanos == 0) {
+            throw new IllegalArgumentException("Either the rate limit or the duplicate window must be enabled.");
+        }
+    }
+
+    /**
+     * Returns the sustained number of messages per second, or zero if there
+     * is no rate limit.
+     *
+     * @return  the permits per second
+     */
+    public int getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * Returns the number of messages that may be logged at once.
+     *
+     * @return  the burst size
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Returns for how long a format is suppressed once logged, or zero if
+     * duplicates are not suppressed.
+     *
+     * @param unit  the unit of the result
+     * @return      the duplicate window
+     */
+    public long getDuplicateWindow(TimeUnit unit) {
+        return unit.convert(duplicateWindowNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{permitsPerSecond=%d, burst=%d, duplicateWindow=%dns}",
+            permitsPerSecond, burst, duplicateWindowNanos);
+    }
+}
@@ -0,0 +1,309 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The state of a {@link Throttle} for a single logger. Nothing in here takes
+ * a lock, and a message that is discarded only costs a clock read, a map
+ * lookup and an increment.
+ * <p>
+ * The rate limit is a token bucket implemented as a generic cell rate
+ * algorithm, where the whole bucket is a single timestamp: the time at which
+ * the bucket would be full again. A message is let through if that time is
+ * less than {@code burst} intervals from now, which moves it one interval
+ * forward.
+ * <p>
+ * Summaries of discarded messages are not logged from in here, but queued
+ * for the logger to take with {@link #pollSummary()} and log itself. The
+ * duplicate windows that have discarded something are swept once the
+ * earliest of them has ended, on the next call for any format, so that the
+ * summary of a format does not have to wait for that format to come again.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Throttler {
+
+    // Formats beyond this many are not checked for duplicates, so that a
+    // logger with dynamic formats can't make the map grow without bounds.
+    private final static int MAX_FORMATS = 256;
+
+    // Value of sweepAt when no window has discarded anything. A deadline that
+    // happens to be equal to this is at worst swept on the next call.
+    private final static long NO_SWEEP = Long.MIN_VALUE;
+
+    private final static String REPEATED   = "The previous message was repeated {} times: {}";
+    private final static String RATE_LIMIT = "{} messages were suppressed by the rate limit of {}";
+
+    private final int threshold;
+    private final Throttle throttle;
+    private final Queue<Summary> summaries;
+
+    private final long interval, tolerance;         // Zero if no rate limit
+    private final AtomicLong fullAt;                // Null if no rate limit
+    private final LongAdder rateLimited;            // Null if no rate limit
+
+    private final long window;                      // Zero if no duplicate suppression
+    private final ConcurrentMap<String, Repeat> repeats; // Null if no duplicate suppression
+    private final AtomicLong sweepAt;               // Null if no duplicate suppression
+
+    Throttler(Level level, Throttle throttle) {
+        this.threshold = level.ordinal();
+        this.throttle  = requireNonNull(throttle);
+        this.summaries = new ConcurrentLinkedQueue<>();
+
+        if (throttle.getPermitsPerSecond() > 0) {
+            this.interval    = TimeUnit.SECONDS.toNanos(1) / throttle.getPermitsPerSecond();
+            this.tolerance   = interval * (throttle.getBurst() - 1);
+            this.fullAt      = new AtomicLong(System.nanoTime());
+            this.rateLimited = new LongAdder();
+        } else {
+            this.interval    = 0;
+            this.tolerance   = 0;
+            this.fullAt      = null;
+            this.rateLimited = null;
+        }
+
+        this.window = throttle.getDuplicateWindow(TimeUnit.NANOSECONDS);
+        if (window > 0) {
+            this.repeats = new ConcurrentHashMap<>();
+            this.sweepAt = new AtomicLong(NO_SWEEP);
+        } else {
+            this.repeats = null;
+            this.sweepAt = null;
+        }
+    }
+
+    /**
+     * Returns if a message with the specified level and format should be
+     * logged. If messages have been discarded and the window they were
+     * discarded in has ended, a summary of them is queued, to be taken with
+     * {@link #pollSummary()} before the message is logged.
+     *
+     * @param msgLevel  the level of the message
+     * @param format    the format, or the message if it has no arguments. A
+     *                  {@code null} format is never taken for a duplicate
+     * @return          {@code true} if the message should be logged
+     */
+    boolean permits(Level msgLevel, String format) {
+        if (msgLevel.ordinal() < threshold) {
+            return true;
+        }
+
+        final long now = System.nanoTime();
+        if (repeats != null) {
+            final long at = sweepAt.get();
+            if (at != NO_SWEEP && now - at >= 0 && sweepAt.compareAndSet(at, NO_SWEEP)) {
+                sweep(now);
+            }
+
+            if (format != null && isRepeated(msgLevel, format, now)) {
+                return false;
+            }
+        }
+
+        if (fullAt != null) {
+            if (!acquire(now)) {
+                rateLimited.increment();
+                return false;
+            }
+
+            // Counts that race with the reset are reported the next time
+            final long discarded = rateLimited.sumThenReset();
+            if (discarded > 0) {
+                summaries.add(new Summary(msgLevel, RATE_LIMIT, discarded, throttle));
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns if there might be summaries to take with {@link #pollSummary()}.
+     *
+     * @return  {@code true} if summaries are queued
+     */
+    boolean hasSummaries() {
+        return !summaries.isEmpty();
+    }
+
+    /**
+     * Removes and returns the oldest summary that is waiting to be logged.
+     *
+     * @return  the summary, or {@code null} if there is none
+     */
+    Summary pollSummary() {
+        return summaries.poll();
+    }
+
+    /**
+     * Queues summaries for every format that has discarded messages, even if
+     * its window has not ended yet. Used when the throttler is replaced, so
+     * that the counts are not lost.
+     */
+    void flush() {
+        if (repeats != null) {
+            sweep(System.nanoTime() + window);
+        }
+
+        if (rateLimited != null) {
+            final long discarded = rateLimited.sumThenReset();
+            if (discarded > 0) {
+                summaries.add(new Summary(Level.values()[threshold], RATE_LIMIT, discarded, throttle));
+            }
+        }
+    }
+
+    private boolean acquire(long now) {
+        while (true) {
+            final long current = fullAt.get();
+            final long start   = current - now > 0 ? current : now;
+            if (start - now > tolerance) {
+                return false;
+            }
+
+            if (fullAt.compareAndSet(current, start + interval)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean isRepeated(Level msgLevel, String format, long now) {
+        Repeat repeat = repeats.get(format);
+        if (repeat == null) {
+            if (repeats.size() >= MAX_FORMATS) {
+                return false;
+            }
+
+            final Repeat created = new Repeat(msgLevel, now);
+            repeat = repeats.putIfAbsent(format, created);
+            if (repeat == null) {
+                return false;
+            }
+        }
+
+        final long since = repeat.since.get();
+        if (now - since < window) {
+            repeat.count.increment();
+            scheduleSweep(since + window);
+            return true;
+        }
+
+        // Only the thread that opens the next window reports the last one,
+        // unless a sweep has already done it
+        if (repeat.since.compareAndSet(since, now)) {
+            final long repeated = repeat.count.sumThenReset();
+            if (repeated > 0) {
+                summaries.add(new Summary(repeat.level, REPEATED, repeated, format));
+            }
+        }
+
+        return false;
+    }
+
+    // Moves the deadline of the next sweep forward to the specified time, if
+    // that is earlier than the current one.
+    private void scheduleSweep(long at) {
+        while (true) {
+            final long current = sweepAt.get();
+            if (current != NO_SWEEP && at - current >= 0) {
+                return;
+            }
+
+            if (sweepAt.compareAndSet(current, at)) {
+                return;
+            }
+        }
+    }
+
+    // Reports the formats whose windows have ended before the specified time
+    // and schedules a new sweep for the ones that are still open.
+    private void sweep(long now) {
+        for (final Map.Entry<String, Repeat> entry : repeats.entrySet()) {
+            final Repeat repeat = entry.getValue();
+            final long end = repeat.since.get() + window;
+            if (now - end >= 0) {
+                final long repeated = repeat.count.sumThenReset();
+                if (repeated > 0) {
+                    summaries.add(new Summary(repeat.level, REPEATED, repeated, entry.getKey()));
+                }
+            } else if (repeat.count.sum() > 0) {
+                scheduleSweep(end);
+            }
+        }
+    }
+
+    /**
+     * A message that tells how many messages were discarded, with the level
+     * of the messages it is about.
+     */
+    final static class Summary {
+
+        private final Level level;
+        private final String format;
+        private final Object arg1, arg2;
+
+        private Summary(Level level, String format, Object arg1, Object arg2) {
+            this.level  = requireNonNull(level);
+            this.format = requireNonNull(format);
+            this.arg1   = arg1;
+            this.arg2   = arg2;
+        }
+
+        Level getLevel() {
+            return level;
+        }
+
+        String getFormat() {
+            return format;
+        }
+
+        Object getArg1() {
+            return arg1;
+        }
+
+        Object getArg2() {
+            return arg2;
+        }
+    }
+
+    private final static class Repeat {
+
+        private final Level level;
+        private final AtomicLong since;
+        private final LongAdder count;
+
+        private Repeat(Level level, long since) {
+            this.level = requireNonNull(level);
+            this.since = new AtomicLong(since);
+            this.count = new LongAdder();
+        }
+    }
+}
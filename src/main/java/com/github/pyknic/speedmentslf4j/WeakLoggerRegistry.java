@@ -0,0 +1,127 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Logger;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Registry that only keeps loggers for as long as they are used somewhere
+ * else. Once a logger has been garbage collected, its entry is removed the
+ * next time a logger is created or the registry is iterated, and the
+ * specified callback is invoked with its name so that other structures can
+ * forget it as well. The callback is not invoked if the entry has already
+ * been replaced by a new logger with the same binding. If a logger with the
+ * same binding is requested again, a new one is created.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class WeakLoggerRegistry implements LoggerRegistry {
+
+    private final ConcurrentMap<String, Ref> loggers;
+    private final ReferenceQueue<Slf4jLogger> queue;
+    private final Consumer<String> onEvict;
+
+    WeakLoggerRegistry(Consumer<String> onEvict) {
+        this.loggers = new ConcurrentHashMap<>();
+        this.queue   = new ReferenceQueue<>();
+        this.onEvict = requireNonNull(onEvict);
+    }
+
+    @Override
+    public Slf4jLogger get(String binding) {
+        final Ref ref = loggers.get(binding);
+        return ref == null ? null : ref.get();
+    }
+
+    @Override
+    public Slf4jLogger computeIfAbsent(String binding, Function<String, Slf4jLogger> creator) {
+        expunge();
+
+        // The new logger must be strongly reachable until it is returned
+        final Slf4jLogger[] result = new Slf4jLogger[1];
+        loggers.compute(binding, (b, ref) -> {
+            final Slf4jLogger existing = ref == null ? null : ref.get();
+            if (existing != null) {
+                result[0] = existing;
+                return ref;
+            }
+
+            result[0] = creator.apply(b);
+            return new Ref(b, result[0], queue);
+        });
+
+        return result[0];
+    }
+
+    @Override
+    public void forEach(Consumer<Slf4jLogger> action) {
+        expunge();
+        loggers.values().stream()
+            .map(Ref::get)
+            .filter(Objects::nonNull)
+            .forEach(action);
+    }
+
+    @Override
+    public Stream<Map.Entry<String, Logger>> entries() {
+        expunge();
+        return loggers.values().stream()
+            .<Map.Entry<String, Logger>>map(ref -> {
+                final Logger logger = ref.get();
+                return logger == null ? null
+                    : new AbstractMap.SimpleImmutableEntry<>(ref.name, logger);
+            })
+            .filter(Objects::nonNull);
+    }
+
+    private void expunge() {
+        Ref ref;
+        while ((ref = (Ref) queue.poll()) != null) {
+            // The entry might already have been replaced by a new logger,
+            // which must not be forgotten
+            if (loggers.remove(ref.binding, ref)) {
+                onEvict.accept(ref.name);
+            }
+        }
+    }
+
+    private final static class Ref extends WeakReference<Slf4jLogger> {
+
+        private final String binding;
+        private final String name; // The name that rules are matched against
+
+        private Ref(String binding, Slf4jLogger logger, ReferenceQueue<Slf4jLogger> queue) {
+            super(logger, queue);
+            this.binding = binding;
+            this.name    = logger.getKey();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java 11 version of {@link JfrSupport}, that emits a
+ * {@code com.github.pyknic.speedmentslf4j.Log} event for every message that
+ * is logged, with the level, the name of the logger, the format and how long
+ * the call took. While the event is not enabled in any recording, the only
+ * cost is checking whether it is.
+ * <p>
+ * The classes of JFR are only referenced from {@link Events}, which is not
+ * used if the runtime lacks the {@code jdk.jfr} module, for example an image
+ * built with jlink, or if JFR can not be initialized. Nothing is emitted in
+ * that case.
+ * <p>
+ * Stack traces are not recorded by default, since they are expensive, but
+ * can be enabled with the {@code stackTrace} setting of the event.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class JfrSupport {
+
+    private final static boolean AVAILABLE = checkAvailable();
+
+    static Object begin() {
+        return AVAILABLE ? Events.begin() : null;
+    }
+
+    static void commit(Object event, Level level, String name, String format) {
+        if (event != null) {
+            Events.commit(event, level, name, format);
+        }
+    }
+
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    private static boolean checkAvailable() {
+        if (ModuleLayer.boot().findModule("jdk.jfr").isEmpty()) {
+            return false;
+        }
+
+        try {
+            Events.TYPE.isEnabled(); // Initializes the class
+            return true;
+        } catch (final LinkageError | RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private final static class Events {
+
+        private final static EventType TYPE = EventType.getEventType(LogEvent.class);
+
+        private static Object begin() {
+            if (!TYPE.isEnabled()) {
+                return null;
+            }
+
+            final LogEvent event = new LogEvent();
+            event.begin();
+            return event;
+        }
+
+        private static void commit(Object event, Level level, String name, String format) {
+            final LogEvent ev = (LogEvent) event;
+            ev.end();
+            if (ev.shouldCommit()) {
+                ev.level  = level.name();
+                ev.logger = name;
+                ev.format = format;
+                ev.commit();
+            }
+        }
+    }
+
+    @Name("com.github.pyknic.speedmentslf4j.Log")
+    @Label("Speedment Log")
+    @Category({"Speedment", "Logging"})
+    @Description("A message logged through the Speedment Slf4j adapter")
+    @StackTrace(false)
+    private final static class LogEvent extends Event {
+
+        @Label("Level")
+        private String level;
+
+        @Label("Logger")
+        private String logger;
+
+        @Label("Format")
+        @Description("The format of the message, before the arguments are inserted")
+        private String format;
+    }
+
+    private JfrSupport() {}
+}
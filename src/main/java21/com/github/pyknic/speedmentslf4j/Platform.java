@@ -0,0 +1,60 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The Java 21 version of {@link Platform}, that also avoids per-thread
+ * caches on virtual threads.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Platform {
+
+    private final static VarHandle INT =
+        MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    static int version() {
+        return 21;
+    }
+
+    static long currentThreadId() {
+        return Thread.currentThread().threadId();
+    }
+
+    static boolean isThreadLocalFriendly() {
+        // A virtual thread is usually short-lived, so a cache would seldom
+        // be reused and there could be millions of them.
+        return !Thread.currentThread().isVirtual();
+    }
+
+    static void putIntRelease(ByteBuffer buffer, int index, int value) {
+        // The VarHandle only supports aligned access, and has its own order
+        if ((index & 3) == 0 && buffer.order() == ByteOrder.BIG_ENDIAN) {
+            INT.setRelease(buffer, index, value);
+        } else {
+            buffer.putInt(index, value);
+        }
+    }
+
+    private Platform() {}
+}
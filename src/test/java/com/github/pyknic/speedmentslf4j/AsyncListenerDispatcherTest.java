@@ -0,0 +1,146 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Logger;
+import com.speedment.common.logger.LoggerEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class AsyncListenerDispatcherTest {
+
+    @Test
+    void argumentsArePassedByReference() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final List<LoggerEvent> events = new CopyOnWriteArrayList<>();
+        factory.addListener(events::add);
+        factory.enableAsyncListeners(16, 1, AsyncListenerDispatcher.Backpressure.BLOCK);
+
+        final Logger logger = factory.create("async.reference");
+        final StringBuilder mutable = new StringBuilder("before");
+        logger.info("{}", mutable);
+
+        factory.disableAsyncListeners();
+        assertEquals(1, events.size());
+        assertSame(mutable, ((StructuredLoggerEvent) events.get(0)).getArguments()[0]);
+    }
+
+    @Test
+    void mutableArgumentsAreSnapshottedIfRequested() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final List<LoggerEvent> events = new CopyOnWriteArrayList<>();
+        factory.addListener(events::add);
+        factory.enableAsyncListeners(16, 1, AsyncListenerDispatcher.Backpressure.BLOCK, true);
+
+        final Logger logger = factory.create("async.snapshot");
+        final StringBuilder mutable = new StringBuilder("before");
+        final Integer immutable = 42;
+        logger.info("{} {}", mutable, immutable);
+        mutable.setLength(0);
+        mutable.append("after");
+
+        factory.disableAsyncListeners();
+        assertEquals(1, events.size());
+        assertEquals("before 42", events.get(0).getMessage());
+
+        final Object[] args = ((StructuredLoggerEvent) events.get(0)).getArguments();
+        assertEquals("before", args[0]);
+        assertSame(immutable, args[1]);
+    }
+
+    @Test
+    void everyEventIsDeliveredOnceWithManyProducers() throws Exception {
+        for (final AsyncListenerDispatcher.Backpressure backpressure
+                : AsyncListenerDispatcher.Backpressure.values()) {
+
+            final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+            final Set<String> seen = ConcurrentHashMap.newKeySet();
+            final AtomicInteger duplicates = new AtomicInteger();
+            factory.addListener(ev -> {
+                if (!seen.add(ev.getMessage())) {
+                    duplicates.incrementAndGet();
+                }
+            });
+
+            final AsyncListenerDispatcher dispatcher = factory.enableAsyncListeners(8, 2, backpressure);
+            final Logger logger = factory.create("async.producers");
+            final Thread[] producers = new Thread[4];
+            for (int t = 0; t < producers.length; t++) {
+                final int producer = t;
+                producers[t] = new Thread(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        logger.info("{}-{}", producer, i);
+                    }
+                });
+                producers[t].start();
+            }
+
+            for (final Thread producer : producers) {
+                producer.join();
+            }
+
+            factory.disableAsyncListeners();
+            assertEquals(0, duplicates.get(), backpressure.name());
+            assertEquals(40_000, seen.size() + dispatcher.getDroppedCount(), backpressure.name());
+            if (backpressure == AsyncListenerDispatcher.Backpressure.BLOCK) {
+                assertEquals(0, dispatcher.getDroppedCount());
+            }
+        }
+    }
+
+    @Test
+    void failingListenerThrowsSyncAndIsIsolatedAsync() throws Exception {
+        final Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        final List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+        Thread.setDefaultUncaughtExceptionHandler((thread, ex) -> uncaught.add(ex));
+        try {
+            final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+            final List<LoggerEvent> events = new CopyOnWriteArrayList<>();
+            factory.addListener(ev -> { throw new IllegalStateException(ev.getMessage()); });
+            factory.addListener(events::add);
+
+            final Logger logger = factory.create("async.failing");
+            final IllegalStateException thrown =
+                assertThrows(IllegalStateException.class, () -> logger.info("sync"));
+            assertEquals("sync", thrown.getMessage());
+            assertEquals(0, events.size());
+
+            factory.enableAsyncListeners(16, 1, AsyncListenerDispatcher.Backpressure.BLOCK);
+            logger.info("async"); // Must not throw
+            factory.disableAsyncListeners();
+
+            assertEquals(1, events.size());
+            assertEquals(1, uncaught.size());
+            assertEquals("async", uncaught.get(0).getMessage());
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+    }
+}
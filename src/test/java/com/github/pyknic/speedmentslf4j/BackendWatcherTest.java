@@ -0,0 +1,81 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import org.apache.logging.log4j.core.LoggerContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class BackendWatcherTest {
+
+    private LoggerContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext(BackendWatcherTest.class.getName());
+        context.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    void log4j2LevelChangeIncrementsGeneration() throws Exception {
+        final AtomicInteger generation = new AtomicInteger();
+        assertTrue(BackendWatcher.watchLog4j2(context, generation));
+
+        final int before = generation.get();
+        context.getConfiguration().getRootLogger().setLevel(org.apache.logging.log4j.Level.DEBUG);
+        context.updateLoggers(); // What Configurator.setLevel does
+        assertTrue(generation.get() > before, "setLevel was not noticed");
+    }
+
+    @Test
+    void log4j2ReconfigurationIncrementsGeneration() throws Exception {
+        final AtomicInteger generation = new AtomicInteger();
+        assertTrue(BackendWatcher.watchLog4j2(context, generation));
+
+        final int before = generation.get();
+        context.reconfigure();
+        assertTrue(generation.get() > before, "reconfigure was not noticed");
+    }
+
+    @Test
+    void otherContextsAreNotWatched() throws Exception {
+        final AtomicInteger generation = new AtomicInteger();
+        assertFalse(BackendWatcher.watchLog4j2(new Object(), generation));
+        assertEquals(0, generation.get());
+    }
+
+    @Test
+    void testBackendIsNotWatched() {
+        assertFalse(BackendWatcher.watch(new AtomicInteger()));
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.slf4j.impl.TestBackendLogger;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class ElevationTest {
+
+    @Test
+    void pathOfSetLevelWorksForElevate() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final Logger logger = factory.create(ElevationTest.class);
+
+        // The same path that setLevel uses for a logger created for a class
+        final String path = "c.g.p.s";
+        factory.setLevel(path, Level.INFO);
+        assertEquals(Level.INFO, logger.getLevel());
+
+        logger.debug("before");
+        try (Elevation scope = factory.elevate(Level.DEBUG, path)) {
+            logger.debug("elevated");
+            assertEquals(scope.getLevel().name(), MDC.get(Elevation.MDC_KEY));
+        }
+        assertNull(MDC.get(Elevation.MDC_KEY));
+        try (Elevation scope = factory.elevate(Level.DEBUG, "c.g.p.other")) {
+            logger.debug("other path {}", scope.getPath());
+        }
+        logger.debug("after");
+
+        assertEquals(asList("elevated"), messages(ElevationTest.class.getName()));
+    }
+
+    @Test
+    void scopesCanBeClosedOutOfOrder() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final Logger logger = factory.create("elevation.order");
+        logger.setLevel(Level.WARN);
+
+        final Elevation outer = factory.elevate(Level.DEBUG, "elevation.order");
+        final Elevation inner = factory.elevate(Level.INFO, "elevation.order");
+        final Runnable propagated = Elevation.propagate(() -> {
+            logger.info("propagated {}", MDC.get(Elevation.MDC_KEY));
+        });
+
+        outer.close();
+        assertFalse(outer.isOpen());
+        assertEquals("INFO", MDC.get(Elevation.MDC_KEY));
+        logger.debug("closed outer");
+        logger.info("open inner");
+
+        inner.close();
+        assertNull(MDC.get(Elevation.MDC_KEY));
+        logger.info("closed inner");
+        propagated.run();
+        assertNull(MDC.get(Elevation.MDC_KEY));
+
+        final Elevation reopened = factory.elevate(Level.DEBUG, "elevation.order");
+        logger.debug("reopened");
+        reopened.close();
+        assertNull(MDC.get(Elevation.MDC_KEY));
+
+        assertEquals(asList("open inner", "reopened"), messages("elevation.order"));
+    }
+
+    private static List<String> messages(String name) {
+        return TestBackendLogger.get(name).entries().stream()
+            .map(TestBackendLogger.Entry::getMessage)
+            .collect(Collectors.toList());
+    }
+}
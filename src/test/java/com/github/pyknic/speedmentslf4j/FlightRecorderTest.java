@@ -0,0 +1,150 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.junit.jupiter.api.Test;
+import org.slf4j.impl.TestBackendLogger;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class FlightRecorderTest {
+
+    @Test
+    void onlyMessagesDisabledByLevelAreRecorded() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.enableFlightRecorder(Level.DEBUG, 16);
+        factory.setSampling("recorder.level", Level.INFO, Sampling.probability(0));
+
+        final Logger logger = factory.create("recorder.level");
+        logger.setLevel(Level.INFO);
+        logger.debug("disabled {}", 1);
+        logger.info("sampled out");
+        logger.error("failed");
+
+        final List<String> messages = messages("recorder.level");
+        assertEquals(2, messages.size(), messages::toString);
+        assertTrue(messages.get(0).startsWith("[recorded DEBUG "), messages.get(0));
+        assertTrue(messages.get(0).endsWith("] disabled 1"), messages.get(0));
+        assertEquals("failed", messages.get(1));
+    }
+
+    @Test
+    void mutableArgumentsAreSnapshottedWhenRecorded() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.enableFlightRecorder(Level.DEBUG, 16);
+        final FlightRecorder recorder = factory.getFlightRecorder();
+
+        final Logger logger = factory.create("recorder.mutable");
+        logger.setLevel(Level.INFO);
+        final StringBuilder state = new StringBuilder("before");
+        final Object[] rest = {"c", 4};
+        logger.debug("state {} {} {} {} {}", state, "a", 3, rest);
+        state.replace(0, state.length(), "after");
+        rest[1] = "e";
+
+        // Only the mutable argument is rendered when it is recorded
+        final FlightRecorder.Ring ring = recorder.startReplay();
+        final FlightRecorder.Recorded recorded = ring.poll();
+        assertEquals("before", recorded.arg1);
+        assertSame(3, recorded.arg3);
+        assertEquals(asList("c", 4), asList(recorded.args));
+        recorder.finishReplay(ring);
+    }
+
+    @Test
+    void ringDoesNotKeepLoggersAlive() throws Exception {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory(Slf4jLoggerFactory.Retention.WEAK);
+        factory.enableFlightRecorder(Level.DEBUG, 16);
+
+        Logger collected = factory.create("recorder.collected");
+        collected.setLevel(Level.INFO);
+        collected.debug("from collected");
+        final WeakReference<Logger> ref = new WeakReference<>(collected);
+        collected = null;
+
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get(), "The ring kept the logger alive");
+
+        final Logger logger = factory.create("recorder.survivor");
+        logger.error("failed");
+        assertEquals(asList("failed"), messages("recorder.survivor"));
+    }
+
+    @Test
+    void ringIsKeptAfterReplay() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.enableFlightRecorder(Level.DEBUG, 16);
+        final FlightRecorder recorder = factory.getFlightRecorder();
+
+        final Logger logger = factory.create("recorder.kept");
+        logger.setLevel(Level.INFO);
+        logger.debug("one");
+        final FlightRecorder.Ring first = recorder.startReplay();
+        recorder.finishReplay(first);
+        assertNull(recorder.startReplay());
+
+        logger.debug("two");
+        final FlightRecorder.Ring second = recorder.startReplay();
+        assertSame(first, second);
+        assertEquals("two", second.poll().format);
+        recorder.finishReplay(second);
+    }
+
+    @Test
+    void messagesAreOnlyReplayedOnce() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.enableFlightRecorder(Level.DEBUG, 2);
+
+        final Logger logger = factory.create("recorder.once");
+        logger.setLevel(Level.INFO);
+        logger.debug("one");
+        logger.debug("two");
+        logger.debug("three");
+        logger.error("first");
+        logger.error("second");
+
+        final List<String> messages = messages("recorder.once");
+        assertEquals(4, messages.size(), messages::toString);
+        assertTrue(messages.get(0).endsWith("] two"));
+        assertTrue(messages.get(1).endsWith("] three"));
+        assertEquals("first", messages.get(2));
+        assertEquals("second", messages.get(3));
+    }
+
+    private static List<String> messages(String name) {
+        return TestBackendLogger.get(name).entries().stream()
+            .map(TestBackendLogger.Entry::getMessage)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static com.github.pyknic.speedmentslf4j.JournalFormat.HEADER_SIZE;
+import static com.github.pyknic.speedmentslf4j.JournalFormat.NAMES_SIZE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class JournalTest {
+
+    private final static int CAPACITY = 64 * 1024;
+
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("journal", ".bin");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void eventsAreReadBack() throws IOException {
+        write("journal.read", "one", "two {}", "three");
+
+        final List<JournalReader.Entry> entries = JournalReader.read(file);
+        assertEquals(asList("one", "two 2", "three"), messages(entries));
+        assertEquals("journal.read", entries.get(0).getName());
+        assertEquals(asList("2"), entries.get(1).getArguments());
+    }
+
+    @Test
+    void argumentsAreEncodedAsRendered() throws IOException {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        try (JournalListener journal = new JournalListener(file, CAPACITY)) {
+            factory.addListener(journal);
+            final Logger logger = factory.create("journal.args");
+            final Object logging = new Object() {
+                @Override
+                public String toString() {
+                    logger.info("nested {}", 1);
+                    return "logged";
+                }
+            };
+
+            logger.info("{} {} {} {} {} {} {} {}",
+                "x", 42, -7L, true, 'c', new int[] {1, 2}, "\u00fc\u20ac\ud83d\ude00", logging);
+        }
+
+        // The nested event is written while the arguments of the outer one
+        // are rendered, and the backend renders them once before that
+        final List<JournalReader.Entry> entries = JournalReader.read(file);
+        assertEquals(3, entries.size());
+        assertEquals(asList("1"), entries.get(1).getArguments());
+        assertEquals(
+            asList("x", "42", "-7", "true", "c", "[1, 2]", "\u00fc\u20ac\ud83d\ude00", "logged"),
+            entries.get(2).getArguments()
+        );
+    }
+
+    @Test
+    void trailingThrowableIsStoredAsCause() throws IOException {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        try (JournalListener journal = new JournalListener(file, CAPACITY)) {
+            factory.addListener(journal);
+            factory.create("journal.cause").warn("failed {} {}", 1, new IllegalStateException("boom"));
+        }
+
+        final JournalReader.Entry entry = JournalReader.read(file).get(0);
+        assertEquals(asList("1"), entry.getArguments());
+        assertEquals("failed 1 {}", entry.getMessage());
+        assertEquals("java.lang.IllegalStateException: boom", entry.getThrowable());
+    }
+
+    @Test
+    void closeReleasesTheViewsOfEveryThread() throws Exception {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final JournalListener journal = new JournalListener(file, CAPACITY);
+        factory.addListener(journal);
+        final Logger logger = factory.create("journal.closed");
+
+        // The other thread is kept alive, since the writer of a thread that
+        // has ended can be collected at any time
+        final CountDownLatch logged = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        final Thread other = new Thread(() -> {
+            logger.info("other");
+            logged.countDown();
+            try {
+                closed.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        logger.info("main");
+        other.start();
+        logged.await();
+        assertEquals(2, journal.heldViews());
+
+        journal.close();
+        assertEquals(0, journal.heldViews());
+        closed.countDown();
+        other.join();
+
+        logger.info("after close");
+        assertEquals(1, journal.getDroppedCount());
+        assertEquals(asList("main", "other"), JournalReader.read(file).stream()
+            .map(JournalReader.Entry::getMessage)
+            .collect(Collectors.toList()));
+    }
+
+    @Test
+    void unfinishedNameIsSkippedAndNotReused() throws IOException {
+        write("journal.a", "a");
+        write("journal.b", "b");
+        write("journal.c", "c");
+
+        // As if the application crashed before the entry of the second name
+        // was completed, but after the third name was added
+        final Map<String, Integer> ids = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(file, READ, WRITE)) {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            JournalReader.readNames(buffer, ids::put);
+            buffer.putInt(HEADER_SIZE + ids.get("journal.b"), 0);
+        }
+
+        write("journal.d", "d");
+
+        assertEquals(
+            asList("journal.a", "#" + ids.get("journal.b"), "journal.c", "journal.d"),
+            JournalReader.read(file).stream()
+                .map(JournalReader.Entry::getName)
+                .collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    void truncatedJournalIsReadAndReopened() throws IOException {
+        write("journal.truncated", "one", "two {}", "three");
+
+        // Cut the file in the middle of the last event
+        final long last = JournalReader.read(file).get(2).getPosition();
+        try (FileChannel channel = FileChannel.open(file, WRITE)) {
+            channel.truncate(HEADER_SIZE + NAMES_SIZE + last + 16);
+        }
+
+        assertEquals(asList("one", "two 2"), messages(JournalReader.read(file)));
+
+        write("journal.truncated", "four");
+        assertEquals(HEADER_SIZE + NAMES_SIZE + CAPACITY, Files.size(file));
+        assertEquals(asList("one", "two 2", "four"), messages(JournalReader.read(file)));
+    }
+
+    private void write(String name, String... formats) throws IOException {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        try (JournalListener journal = new JournalListener(file, CAPACITY)) {
+            factory.addListener(journal);
+            final Logger logger = factory.create(name);
+            for (final String format : formats) {
+                logger.info(format, 2);
+            }
+        }
+    }
+
+    private static List<String> messages(List<JournalReader.Entry> entries) {
+        return entries.stream()
+            .map(JournalReader.Entry::getMessage)
+            .collect(Collectors.toList());
+    }
+}
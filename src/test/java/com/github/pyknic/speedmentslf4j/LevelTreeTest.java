@@ -0,0 +1,113 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class LevelTreeTest {
+
+    private final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+
+    @Test
+    void pathsMatchWholeSegments() {
+        final LevelTree tree = new LevelTree();
+        final Slf4jLogger foo    = register(tree, "tree.com.foo.X");
+        final Slf4jLogger foobar = register(tree, "tree.com.foobar.X");
+        final Level before = foobar.getLevel();
+
+        tree.setLevel("tree.com.foo", Level.ERROR);
+        assertEquals(Level.ERROR, foo.getLevel());
+        assertEquals(before, foobar.getLevel());
+    }
+
+    @Test
+    void loggersRegisteredLaterInheritTheNearestRule() {
+        final LevelTree tree = new LevelTree();
+        tree.setLevel("", Level.WARN);
+        tree.setLevel("tree.inherit", Level.DEBUG);
+        tree.setLevel("tree.inherit.deep", Level.TRACE);
+
+        assertEquals(asList(Level.WARN, Level.DEBUG, Level.DEBUG, Level.TRACE), asList(
+            register(tree, "tree.other.X").getLevel(),
+            register(tree, "tree.inherit").getLevel(),
+            register(tree, "tree.inherit.X").getLevel(),
+            register(tree, "tree.inherit.deep.X").getLevel()
+        ));
+    }
+
+    @Test
+    void ruleHigherUpReplacesRulesBelowIt() {
+        final LevelTree tree = new LevelTree();
+        tree.setLevel("tree.override.a", Level.TRACE);
+        final Slf4jLogger existing = register(tree, "tree.override.a.X");
+        assertEquals(Level.TRACE, existing.getLevel());
+
+        tree.setLevel("tree.override", Level.WARN);
+        assertEquals(Level.WARN, existing.getLevel());
+        assertEquals(Level.WARN, register(tree, "tree.override.a.Y").getLevel());
+    }
+
+    @Test
+    void nodesAreRemovedWhenCollectedLoggersAreUnregistered() throws Exception {
+        final Slf4jLoggerFactory weak = new Slf4jLoggerFactory(Slf4jLoggerFactory.Retention.WEAK);
+        final LevelTree tree = new LevelTree();
+        tree.register("tree.prune.a.b.X", (Slf4jLogger) weak.create("tree.prune.a.b.X"));
+        assertEquals(6, tree.size());
+
+        // The logger is only referenced weakly, by the tree and by the
+        // factory, so it can be collected
+        for (int i = 0; i < 100 && tree.size() > 1; i++) {
+            System.gc();
+            Thread.sleep(10);
+            tree.unregister("tree.prune.a.b.X");
+        }
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    void nodesWithOnlyReplacedRulesAreRemoved() {
+        final LevelTree tree = new LevelTree();
+        final Throttle throttle = new Throttle(0, 0, 1, TimeUnit.SECONDS);
+        tree.setSampling("tree.replaced.a.b", Level.DEBUG, Sampling.probability(0.5));
+        tree.setThrottle("tree.replaced.a.b", Level.INFO, throttle);
+        tree.setLevel("tree.replaced.a.b", Level.DEBUG);
+
+        tree.setSampling("tree.replaced.a", Level.DEBUG, Sampling.probability(0.5));
+        tree.setThrottle("tree.replaced.a", Level.INFO, throttle);
+        tree.setLevel("tree.replaced.a", Level.DEBUG);
+        assertEquals(5, tree.size());
+
+        tree.unregister("tree.replaced.a.b");
+        assertEquals(4, tree.size());
+    }
+
+    private Slf4jLogger register(LevelTree tree, String name) {
+        final Slf4jLogger logger = (Slf4jLogger) factory.create(name);
+        tree.register(name, logger);
+        return logger;
+    }
+}
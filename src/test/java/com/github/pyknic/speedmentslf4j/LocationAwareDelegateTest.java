@@ -0,0 +1,102 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.junit.jupiter.api.Test;
+import org.slf4j.spi.LocationAwareLogger;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class LocationAwareDelegateTest {
+
+    @Test
+    void messageIsRenderedForBackendThatIgnoresArguments() {
+        final List<Object[]> calls = new ArrayList<>();
+        final Delegate delegate = Delegates.slf4j(argumentIgnoringLogger(calls));
+        assertTrue(delegate instanceof LocationAwareDelegate);
+
+        delegate.log(Level.INFO, "a {}", "x");
+        delegate.log(Level.INFO, "a {} b {}", "x", "y");
+        delegate.log(Level.INFO, "a {} b {} c {}", "x", "y", "z");
+        delegate.log(Level.INFO, "a {} b {} c {} d {}", new Object[] {"x", "y", "z", "w"});
+
+        assertEquals("a x", calls.get(0)[1]);
+        assertEquals("a x b y", calls.get(1)[1]);
+        assertEquals("a x b y c z", calls.get(2)[1]);
+        assertEquals("a x b y c z d w", calls.get(3)[1]);
+        for (final Object[] call : calls) {
+            assertEquals(Slf4jLogger.class.getName(), call[0]);
+            assertNull(call[2]);
+        }
+    }
+
+    @Test
+    void throwableIsTakenAsTheCauseLikeSlf4j() {
+        final List<Object[]> calls = new ArrayList<>();
+        final Delegate delegate = Delegates.slf4j(argumentIgnoringLogger(calls));
+        final RuntimeException thrw = new RuntimeException("boom");
+
+        delegate.log(Level.WARN, "x {}", new Object[] {1, thrw});
+        delegate.log(Level.ERROR, thrw, "a {} b {}", 2, "x", "y", null, null);
+        delegate.log(Level.ERROR, thrw, "a {} b {}", 1, "x", null, null, null);
+
+        assertEquals("x 1", calls.get(0)[1]);
+        assertSame(thrw, calls.get(0)[2]);
+        assertEquals("a x b y", calls.get(1)[1]);
+        assertSame(thrw, calls.get(1)[2]);
+        assertEquals("a x b {}", calls.get(2)[1]);
+        assertSame(thrw, calls.get(2)[2]);
+    }
+
+    // Like slf4j-jdk14 and slf4j-log4j12, the stub logs the message of the
+    // location-aware method as it is and drops the arguments. Each call is
+    // recorded as the FQCN, the message and the throwable.
+    private static LocationAwareLogger argumentIgnoringLogger(List<Object[]> calls) {
+        return (LocationAwareLogger) Proxy.newProxyInstance(
+            LocationAwareDelegateTest.class.getClassLoader(),
+            new Class<?>[] {LocationAwareLogger.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getName": return "location.aware.stub";
+                    case "log":
+                        if (args.length == 6) {
+                            calls.add(new Object[] {args[1], args[3], args[5]});
+                            return null;
+                        }
+                        break;
+                    default:
+                        if (method.getName().startsWith("is")) {
+                            return true;
+                        }
+                }
+                throw new UnsupportedOperationException(method.toString());
+            }
+        );
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.config.Property;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Log4j2DelegateTest {
+
+    private final List<LogEvent> events = new ArrayList<>();
+    private LoggerContext context;
+    private Log4j2Delegate delegate;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext(Log4j2DelegateTest.class.getName());
+        context.start();
+
+        final AbstractAppender appender = new AbstractAppender("capture", null, null, true, Property.EMPTY_ARRAY) {
+            @Override
+            public void append(LogEvent event) {
+                events.add(event.toImmutable());
+            }
+        };
+        appender.start();
+
+        final Configuration config = context.getConfiguration();
+        final LoggerConfig root = config.getRootLogger();
+        new ArrayList<>(root.getAppenders().keySet()).forEach(root::removeAppender);
+        root.addAppender(appender, org.apache.logging.log4j.Level.ALL, null);
+        root.setLevel(org.apache.logging.log4j.Level.ALL);
+        context.updateLoggers();
+
+        delegate = new Log4j2Delegate(context.getLogger("log4j2.delegate"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    void throwableIsNotTakenAsArgumentWhenPlaceholdersAreLeft() {
+        final RuntimeException thrw = new RuntimeException("boom");
+        delegate.log(Level.ERROR, thrw, "a {} b {}", 1, "x", null, null, null);
+
+        assertEquals(1, events.size());
+        assertEquals("a x b {}", events.get(0).getMessage().getFormattedMessage());
+        assertSame(thrw, events.get(0).getThrown());
+    }
+
+    @Test
+    void throwableIsNotTakenAsArgumentWithoutArguments() {
+        final RuntimeException thrw = new RuntimeException("boom");
+        delegate.log(Level.ERROR, thrw, "a {}", 0, null, null, null, null);
+
+        assertEquals("a {}", events.get(0).getMessage().getFormattedMessage());
+        assertSame(thrw, events.get(0).getThrown());
+    }
+
+    @Test
+    void throwableIsTakenAsCauseWhenArgumentsMatch() {
+        final RuntimeException thrw = new RuntimeException("boom");
+        delegate.log(Level.WARN, thrw, "a {} b {} c {} d {}", 3, 1, 2, 3, new Object[] {4});
+
+        assertEquals("a 1 b 2 c 3 d 4", events.get(0).getMessage().getFormattedMessage());
+        assertSame(thrw, events.get(0).getThrown());
+    }
+}
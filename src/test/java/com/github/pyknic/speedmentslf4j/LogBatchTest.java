@@ -0,0 +1,112 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.junit.jupiter.api.Test;
+import org.slf4j.impl.TestBackendLogger;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class LogBatchTest {
+
+    @Test
+    void batchIsLoggedInOrder() {
+        final Slf4jLogger logger = (Slf4jLogger) new Slf4jLoggerFactory().create("batch.order");
+        try (LogBatch batch = logger.batch(Level.INFO)) {
+            batch.add("one");
+            batch.add("two {}", 2);
+            batch.add("three {} {}", 3, "!");
+            batch.add("four {} {} {}", 4, 4, 4);
+        }
+
+        assertEquals(asList("one", "two 2", "three 3 !", "four 4 4 4"), messages("batch.order"));
+    }
+
+    @Test
+    void batchCanBeUsedAfterFailedFlush() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final Slf4jLogger logger = (Slf4jLogger) factory.create("batch.failing");
+        logger.setFormatter((level, name, message) -> {
+            if (message.startsWith("bad")) {
+                throw new IllegalStateException(message);
+            }
+            return message;
+        });
+
+        final LogBatch batch = logger.batch(Level.INFO, 8);
+        batch.add("one");
+        batch.add("bad {}", 2);
+        batch.add("three");
+        assertThrows(IllegalStateException.class, batch::flush);
+
+        batch.add("four {}", 4);
+        batch.flush();
+        batch.flush();
+
+        assertEquals(asList("one", "four 4"), messages("batch.failing"));
+    }
+
+    @Test
+    void errorBatchReplaysFlightRecorder() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.enableFlightRecorder(Level.DEBUG, 16);
+        final Slf4jLogger logger = (Slf4jLogger) factory.create("batch.replay");
+        logger.setLevel(Level.INFO);
+        logger.debug("disabled {}", 1);
+
+        try (LogBatch batch = logger.batch(Level.ERROR)) {
+            batch.add("failed {}", 2);
+        }
+
+        final List<String> messages = messages("batch.replay");
+        assertEquals(2, messages.size(), messages::toString);
+        assertTrue(messages.get(0).endsWith("] disabled 1"), messages.get(0));
+        assertEquals("failed 2", messages.get(1));
+    }
+
+    @Test
+    void disabledBatchIsNotRecorded() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.enableFlightRecorder(Level.DEBUG, 16);
+        final Slf4jLogger logger = (Slf4jLogger) factory.create("batch.disabled");
+        logger.setLevel(Level.INFO);
+
+        try (LogBatch batch = logger.batch(Level.DEBUG)) {
+            batch.add("discarded {}", 1);
+        }
+        logger.error("failed");
+
+        assertEquals(asList("failed"), messages("batch.disabled"));
+    }
+
+    private static List<String> messages(String name) {
+        return TestBackendLogger.get(name).entries().stream()
+            .map(TestBackendLogger.Entry::getMessage)
+            .collect(Collectors.toList());
+    }
+}
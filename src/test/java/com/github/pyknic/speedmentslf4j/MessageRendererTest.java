@@ -0,0 +1,103 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.helpers.MessageFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class MessageRendererTest {
+
+    private final static String[] FORMATS = {
+        "", "plain", "{}", "x {}", "x {} {}", "{} {} {} {}", "{}{}", "{} y",
+        "x \\{} {}", "x \\\\{} {}", "x {} \\{}", "x {} \\\\{}", "\\{}", "{",
+        "}", "x { } {}", "x {", "x {}}", "x {{}}", "x \\ {}", "x {} \\"
+    };
+
+    @Test
+    void messagesAreRenderedLikeInSlf4j() {
+        final Object self[] = new Object[2];
+        self[0] = "a";
+        self[1] = self;
+
+        final Object[][] arguments = {
+            {},
+            {1},
+            {"a", 2L},
+            {null, true, 'c'},
+            {1, 2, 3, 4, 5},
+            {new int[] {1, 2}, new String[] {"a", null}, new double[] {0.5}},
+            {self},
+            {new Object[] {new Object[] {1}, new byte[] {2}}},
+            {new Exception("cause")},
+            {1, new Exception("cause")},
+            {1, 2, new Exception("cause")},
+            {new Exception("first"), 2},
+            {1, new Exception("argument"), new Exception("cause")},
+            {"\\{}", "{}"}
+        };
+
+        for (final String format : FORMATS) {
+            for (final Object[] args : arguments) {
+                final String expected = MessageFormatter.arrayFormat(format, args).getMessage();
+                assertEquals(expected, MessageRenderer.render(format, args.clone()),
+                    () -> format + " with " + args.length + " arguments");
+
+                final StringBuilder sb = new StringBuilder();
+                MessageRenderer.appendTo(sb, format, args);
+                assertEquals(expected, sb.toString());
+            }
+        }
+    }
+
+    @Test
+    void leadingArgumentsAreRenderedLikeInSlf4j() {
+        final Exception cause = new Exception("cause");
+        for (final String format : FORMATS) {
+            assertEquals(MessageFormatter.format(format, cause).getMessage(),
+                MessageRenderer.render(format, cause), format);
+            assertEquals(MessageFormatter.format(format, 1, cause).getMessage(),
+                MessageRenderer.render(format, 1, cause), format);
+            assertEquals(MessageFormatter.format(format, cause, 2).getMessage(),
+                MessageRenderer.render(format, cause, 2), format);
+            assertEquals(MessageFormatter.arrayFormat(format, new Object[] {1, 2, cause}).getMessage(),
+                MessageRenderer.render(format, 1, 2, cause), format);
+            assertEquals(MessageFormatter.arrayFormat(format, new Object[] {1, 2, 3, 4, cause}).getMessage(),
+                MessageRenderer.render(format, 1, 2, 3, new Object[] {4, cause}), format);
+            assertEquals(MessageFormatter.arrayFormat(format, new Object[] {1, 2, cause}).getMessage(),
+                MessageRenderer.render(format, 1, 2, cause, new Object[0]), format);
+        }
+    }
+
+    @Test
+    void failingToStringIsRenderedLikeInSlf4j() {
+        // Slf4j prints the stack trace, so only the result is compared here
+        assertEquals("x [FAILED toString()]", MessageRenderer.render("x {}", new Failing()));
+    }
+
+    private final static class Failing {
+        @Override
+        public String toString() {
+            throw new IllegalStateException();
+        }
+    }
+}
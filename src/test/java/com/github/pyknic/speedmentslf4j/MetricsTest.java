@@ -0,0 +1,99 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.github.pyknic.speedmentslf4j.MetricsSnapshot.Counter;
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class MetricsTest {
+
+    @Test
+    void countersAreKeyedOnRegistryName() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.enableMetrics(0);
+
+        factory.create(MetricsTest.class).info("by class");
+        factory.create(MetricsTest.class.getName()).info("by name");
+
+        final MetricsSnapshot snapshot = factory.snapshotMetrics();
+        final String abbreviated = Slf4jLoggerFactory.abbreviate(MetricsTest.class.getName());
+        assertEquals(1, snapshot.getCount(abbreviated, Counter.EMITTED, Level.INFO));
+        assertEquals(1, snapshot.getCount(MetricsTest.class.getName(), Counter.EMITTED, Level.INFO));
+    }
+
+    @Test
+    void countersOfCollectedLoggersAreRemoved() throws Exception {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory(Slf4jLoggerFactory.Retention.WEAK);
+        factory.enableMetrics(0);
+
+        final Logger kept = factory.create("metrics.kept");
+        kept.info("kept");
+        logWithTemporaryLoggers(factory, 1_000);
+        assertEquals(1_001, factory.snapshotMetrics().getLoggerNames().size());
+
+        // Creating a logger expunges the collected ones
+        for (int i = 0; i < 100 && factory.snapshotMetrics().getLoggerNames().size() > 1; i++) {
+            System.gc();
+            Thread.sleep(10);
+            factory.create("metrics.trigger" + i);
+        }
+
+        final MetricsSnapshot snapshot = factory.snapshotMetrics();
+        assertEquals(1, snapshot.getLoggerNames().size(), "Counters were not removed");
+        assertTrue(snapshot.getLoggerNames().contains("metrics.kept"));
+        assertEquals(1, snapshot.getCount("metrics.kept", Counter.EMITTED));
+    }
+
+    @Test
+    void loggerCreatedAgainCountsAfresh() throws Exception {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory(Slf4jLoggerFactory.Retention.WEAK);
+        factory.enableMetrics(0);
+        logWithTemporaryLoggers(factory, 1);
+
+        for (int i = 0; i < 100 && !factory.snapshotMetrics().getLoggerNames().isEmpty(); i++) {
+            System.gc();
+            Thread.sleep(10);
+            factory.loggers().count(); // Iterating expunges as well
+        }
+
+        assertFalse(factory.snapshotMetrics().getLoggerNames().contains("metrics.temporary0"));
+        factory.create("metrics.temporary0").info("again");
+        assertEquals(1, factory.snapshotMetrics().getCount("metrics.temporary0", Counter.EMITTED));
+    }
+
+    // The loggers are only reachable from inside this method
+    private static void logWithTemporaryLoggers(Slf4jLoggerFactory factory, int count) {
+        final List<Logger> loggers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            loggers.add(factory.create("metrics.temporary" + i));
+        }
+        loggers.forEach(logger -> logger.info("temporary"));
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against every version of {@link Platform}. Surefire uses the Java 8
+ * version in {@code target/classes}, and Failsafe uses the versioned ones in
+ * the jar, once for the JVM it runs on and, on Java 21, once more limited to
+ * the Java 11 version with {@code jdk.util.jar.version}.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class PlatformTest {
+
+    @Test
+    void expectedVersionIsUsed() {
+        if (Boolean.getBoolean("speedment.test.jar")) {
+            final String location = Platform.class.getProtectionDomain()
+                .getCodeSource().getLocation().toString();
+            assertTrue(location.endsWith(".jar"), "Not run against the jar, but " + location);
+        }
+
+        assertEquals(expectedVersion(), Platform.version());
+    }
+
+    @Test
+    void currentThreadIdIsThreadId() {
+        assertEquals(Thread.currentThread().getId(), Platform.currentThreadId());
+    }
+
+    @Test
+    void intIsWritten() {
+        for (final ByteBuffer buffer : new ByteBuffer[] {
+                ByteBuffer.allocate(16),
+                ByteBuffer.allocateDirect(16),
+                ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN)}) {
+
+            Platform.putIntRelease(buffer, 4, 0x01020304);
+            Platform.putIntRelease(buffer, 9, 0x05060708); // Unaligned
+            assertEquals(0x01020304, buffer.getInt(4));
+            assertEquals(0x05060708, buffer.getInt(9));
+        }
+    }
+
+    @Test
+    void threadLocalsAreOnlyAvoidedOnVirtualThreads() throws Exception {
+        assertTrue(Platform.isThreadLocalFriendly());
+
+        if (Platform.version() >= 21) {
+            final AtomicReference<Boolean> friendly = new AtomicReference<>();
+            final Method start = Thread.class.getMethod("startVirtualThread", Runnable.class);
+            ((Thread) start.invoke(null, (Runnable) () ->
+                friendly.set(Platform.isThreadLocalFriendly()))).join();
+            assertFalse(friendly.get());
+        }
+    }
+
+    // The versioned classes are only used from the jar, and then only up to
+    // the version of the JVM or the one set with jdk.util.jar.version
+    private static int expectedVersion() {
+        if (!Boolean.getBoolean("speedment.test.jar")) {
+            return 8;
+        }
+
+        final String spec = System.getProperty("java.specification.version");
+        final int jvm = spec.startsWith("1.") ? 8 : Integer.parseInt(spec);
+        final int version = Math.min(jvm, Integer.getInteger("jdk.util.jar.version", jvm));
+        return version >= 21 ? 21 : version >= 11 ? 11 : 8;
+    }
+}
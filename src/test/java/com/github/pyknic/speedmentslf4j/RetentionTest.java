@@ -0,0 +1,75 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class RetentionTest {
+
+    private final static int CYCLES  = 50;
+    private final static int TENANTS = 1_000;
+
+    @Test
+    void retainedStateStaysFlatOverManyCycles() throws Exception {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory(Slf4jLoggerFactory.Retention.WEAK);
+        factory.enableMetrics(0);
+        factory.setLevel("retention", Level.WARN);
+
+        final Logger kept = factory.create("retention.kept");
+        kept.warn("kept");
+        final int nodes = factory.getLevels().size();
+
+        for (int cycle = 0; cycle < CYCLES; cycle++) {
+            logWithTenantLoggers(factory, cycle);
+            assertEquals(1 + TENANTS, factory.loggers().count());
+
+            for (int i = 0; i < 100 && factory.loggers().count() > 1; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+
+            assertEquals(1, factory.loggers().count(), "Loggers retained after cycle " + cycle);
+            assertEquals(nodes, factory.getLevels().size(), "Level tree grew after cycle " + cycle);
+            assertEquals(1, factory.snapshotMetrics().getLoggerNames().size(), "Counters retained after cycle " + cycle);
+        }
+
+        // Rules still reach the logger that was kept and the ones created later
+        factory.setLevel("retention", Level.DEBUG);
+        assertEquals(Level.DEBUG, kept.getLevel());
+        assertEquals(Level.DEBUG, factory.create("retention.tenant").getLevel());
+    }
+
+    // The loggers are only reachable from inside this method
+    private static void logWithTenantLoggers(Slf4jLoggerFactory factory, int cycle) {
+        final List<Logger> loggers = new ArrayList<>();
+        for (int i = 0; i < TENANTS; i++) {
+            loggers.add(factory.create("retention.cycle" + cycle + ".tenant" + i));
+        }
+        loggers.forEach(logger -> logger.warn("tenant"));
+    }
+}
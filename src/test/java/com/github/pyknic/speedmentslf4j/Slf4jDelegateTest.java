@@ -0,0 +1,57 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import org.junit.jupiter.api.Test;
+import org.slf4j.impl.TestBackendLogger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Slf4jDelegateTest {
+
+    @Test
+    void messageIsRenderedWhenPlaceholdersAreLeft() {
+        final TestBackendLogger backend = TestBackendLogger.get("slf4j.delegate.rendered");
+        final RuntimeException thrw = new RuntimeException("boom");
+        new Slf4jDelegate(backend).log(Level.ERROR, thrw, "a {} b {}", 1, "x", null, null, null);
+
+        final TestBackendLogger.Entry entry = backend.entries().get(0);
+        assertEquals("a x b {}", entry.getMessage());
+        assertNull(entry.getArguments(), "The throwable was passed among the arguments");
+        assertSame(thrw, entry.getThrowable());
+    }
+
+    @Test
+    void argumentsArePassedOnWhenThereIsNoPlaceholderLeft() {
+        final TestBackendLogger backend = TestBackendLogger.get("slf4j.delegate.passed");
+        final RuntimeException thrw = new RuntimeException("boom");
+        new Slf4jDelegate(backend).log(Level.ERROR, thrw, "a {} b {}", 2, "x", "y", null, null);
+
+        final TestBackendLogger.Entry entry = backend.entries().get(0);
+        assertEquals("a x b y", entry.getMessage());
+        assertArrayEquals(new Object[] {"x", "y", thrw}, entry.getArguments());
+        assertSame(thrw, entry.getThrowable());
+    }
+}
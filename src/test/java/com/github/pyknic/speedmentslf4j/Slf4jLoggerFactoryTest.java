@@ -0,0 +1,139 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.junit.jupiter.api.Test;
+import org.slf4j.impl.TestBackendLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Slf4jLoggerFactoryTest {
+
+    private final static int THREADS = 8;
+    private final static int NAMES   = 500;
+
+    @Test
+    void concurrentCreateReturnsSameInstance() throws Exception {
+        for (final Slf4jLoggerFactory.Retention retention : Slf4jLoggerFactory.Retention.values()) {
+            final Slf4jLoggerFactory factory = new Slf4jLoggerFactory(retention);
+            final List<Logger[]> results = createConcurrently(i -> factory.create("concurrent." + retention + "." + i));
+            assertSameLoggers(results);
+        }
+    }
+
+    @Test
+    void concurrentCreateFromClassReturnsSameInstance() throws Exception {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final Class<?>[] classes = {String.class, Integer.class, List.class, Slf4jLoggerFactoryTest.class};
+        final List<Logger[]> results = createConcurrently(i -> factory.create(classes[i % classes.length]));
+        assertSameLoggers(results);
+        assertEquals(classes.length, factory.loggers().count());
+    }
+
+    @Test
+    void classesWithTheSameAbbreviatedNameGetTheirOwnLoggers() {
+        for (final Slf4jLoggerFactory.Retention retention : Slf4jLoggerFactory.Retention.values()) {
+            final Slf4jLoggerFactory factory = new Slf4jLoggerFactory(retention);
+
+            // Both are abbreviated to "j.s.Timestamp"
+            final Slf4jLogger security = (Slf4jLogger) factory.create(java.security.Timestamp.class);
+            final Slf4jLogger sql      = (Slf4jLogger) factory.create(java.sql.Timestamp.class);
+            final Slf4jLogger named    = (Slf4jLogger) factory.create("j.s.Timestamp");
+            assertNotSame(security, sql);
+            assertNotSame(security, named);
+            assertNotSame(sql, named);
+            assertSame(sql, factory.create(java.sql.Timestamp.class));
+
+            // Rules are still matched against the abbreviated name
+            factory.setLevel("j.s", Level.WARN);
+            assertEquals(asList(Level.WARN, Level.WARN, Level.WARN),
+                asList(security.getLevel(), sql.getLevel(), named.getLevel()));
+
+            // Every logger wraps the Slf4j logger of its own binding
+            security.warn("security " + retention);
+            sql.warn("sql " + retention);
+            named.warn("named " + retention);
+            assertEquals("security " + retention, last("java.security.Timestamp"));
+            assertEquals("sql " + retention, last("java.sql.Timestamp"));
+            assertEquals("named " + retention, last("j.s.Timestamp"));
+            assertEquals(3, factory.loggers().filter(e -> e.getKey().equals("j.s.Timestamp")).count());
+        }
+    }
+
+    private static String last(String name) {
+        final List<TestBackendLogger.Entry> entries = TestBackendLogger.get(name).entries();
+        return entries.get(entries.size() - 1).getMessage();
+    }
+
+    // Every thread creates the loggers for the same indices in a different
+    // order, starting at the same time, so that they race for each name.
+    private static List<Logger[]> createConcurrently(Function<Integer, Logger> create) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Logger[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t * NAMES / THREADS;
+                futures.add(executor.submit((Callable<Logger[]>) () -> {
+                    final Logger[] created = new Logger[NAMES];
+                    start.await();
+                    for (int i = 0; i < NAMES; i++) {
+                        final int index = (i + offset) % NAMES;
+                        created[index] = create.apply(index);
+                    }
+                    return created;
+                }));
+            }
+
+            start.countDown();
+            final List<Logger[]> results = new ArrayList<>();
+            for (final Future<Logger[]> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertSameLoggers(List<Logger[]> results) {
+        final Logger[] first = results.get(0);
+        for (final Logger[] other : results) {
+            for (int i = 0; i < NAMES; i++) {
+                assertSame(first[i], other[i], "Different loggers for index " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Logger;
+import com.speedment.common.logger.LoggerEvent;
+import com.speedment.common.logger.LoggerEventListener;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import org.slf4j.impl.TestBackendLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class Slf4jLoggerTest {
+
+    @Test
+    void levelEnabledInBackendIsNoticedWithoutInvalidation() {
+        final TestBackendLogger backend = TestBackendLogger.get("enabledAtRuntime");
+        backend.setLevel(Level.INFO);
+
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final Logger logger = factory.create("enabledAtRuntime");
+        logger.setLevel(com.speedment.common.logger.Level.TRACE);
+        logger.debug("first");
+        assertEquals(0, backend.entries().size());
+
+        backend.setLevel(Level.DEBUG);
+        for (int i = 0; i < 1024; i++) {
+            logger.debug("more");
+        }
+        assertFalse(backend.entries().isEmpty(), "The backend was not asked again");
+        assertTrue(backend.entries().size() < 1024, "The backend was asked on every call");
+    }
+
+    @Test
+    void levelDisabledInAdapterIsNotAskedAgain() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final Logger logger = factory.create("disabledInAdapter");
+        logger.setLevel(com.speedment.common.logger.Level.INFO);
+
+        final TestBackendLogger backend = TestBackendLogger.get("disabledInAdapter");
+        logger.debug("hidden");
+        assertEquals(0, backend.entries().size());
+    }
+
+    @Test
+    void lastConcurrentSetLevelWins() throws Exception {
+        final com.speedment.common.logger.Level[] levels = com.speedment.common.logger.Level.values();
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final List<String> names = new ArrayList<>();
+        final List<Logger> loggers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            names.add("race.group" + (i % 4) + ".Logger" + i);
+            loggers.add(factory.create(names.get(i)));
+        }
+
+        // Writers set levels on overlapping paths while readers log
+        final String[] paths = {"", "race", "race.group0", "race.group1.Logger1"};
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < paths.length; t++) {
+            final String path = paths[t];
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    factory.setLevel(path, levels[i % levels.length]);
+                    if (i % 100 == 0) factory.invalidateLevels();
+                }
+            }));
+        }
+        for (int t = 0; t < 2; t++) {
+            threads.add(new Thread(() -> {
+                while (running.get()) {
+                    for (final Logger logger : loggers) {
+                        logger.trace("race");
+                    }
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        for (int t = 0; t < paths.length; t++) {
+            threads.get(t).join();
+        }
+
+        // Once the writers are done, one last change must be seen by every
+        // logger, on a thread that did not make it
+        final Thread last = new Thread(() -> factory.setLevel("race", com.speedment.common.logger.Level.WARN));
+        last.start();
+        last.join();
+
+        running.set(false);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < loggers.size(); i++) {
+            final Logger logger = loggers.get(i);
+            assertEquals(com.speedment.common.logger.Level.WARN, logger.getLevel());
+            final TestBackendLogger backend = TestBackendLogger.get(names.get(i));
+            backend.reset();
+            logger.info("hidden");
+            logger.warn("shown");
+            assertEquals(1, backend.entries().size(), names.get(i));
+        }
+    }
+
+    @Test
+    void levelChangeBecomesVisibleToLoggingThread() throws Exception {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final Logger logger = factory.create("visible.Logger");
+        logger.setLevel(com.speedment.common.logger.Level.INFO);
+
+        final Queue<LoggerEvent> events = new ConcurrentLinkedQueue<>();
+        factory.addListener(events::add);
+
+        // The logging thread spins on debug calls without any other
+        // synchronization until one of them gets through
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch seen = new CountDownLatch(1);
+        final Thread reader = new Thread(() -> {
+            started.countDown();
+            while (events.isEmpty()) {
+                logger.debug("probe");
+            }
+            seen.countDown();
+        });
+        reader.setDaemon(true);
+        reader.start();
+
+        started.await();
+        factory.setLevel("visible", com.speedment.common.logger.Level.DEBUG);
+        assertTrue(seen.await(10, TimeUnit.SECONDS), "setLevel was never seen");
+    }
+
+    @Test
+    void invalidationBecomesVisibleToLoggingThread() throws Exception {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final Logger logger = factory.create("invalidated.Logger");
+        logger.setLevel(com.speedment.common.logger.Level.TRACE);
+
+        final Queue<LoggerEvent> events = new ConcurrentLinkedQueue<>();
+        factory.addListener(events::add);
+
+        // The sequence number is only incremented once a call has returned,
+        // so any call with a higher number started after it was read
+        final AtomicLong sequence = new AtomicLong();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final Thread writer = new Thread(() -> {
+            while (running.get()) {
+                logger.debug("{}", sequence.get());
+                sequence.incrementAndGet();
+            }
+        });
+        writer.start();
+
+        while (events.isEmpty()) {
+            Thread.yield();
+        }
+
+        TestBackendLogger.get("invalidated.Logger").setLevel(Level.INFO);
+        factory.invalidateLevels();
+        final long invalidatedAt = sequence.get();
+
+        final long until = invalidatedAt + 10_000;
+        while (sequence.get() < until && writer.isAlive()) {
+            Thread.yield();
+        }
+        running.set(false);
+        writer.join();
+
+        for (final LoggerEvent event : events) {
+            final long seq = (Long) ((StructuredLoggerEvent) event).getArguments()[0];
+            assertFalse(seq > invalidatedAt, "Logged " + seq + " after invalidation at " + invalidatedAt);
+        }
+    }
+
+    @Test
+    void combinedListenersAreOnlyBuiltWhenChanged() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        final Slf4jLogger logger = (Slf4jLogger) factory.create("listeners.combined");
+        final LoggerEventListener shared = ev -> {};
+        final LoggerEventListener own = ev -> {};
+        factory.addListener(shared);
+        logger.addListener(own);
+
+        final LoggerEventListener[] combined = logger.listeners();
+        assertArrayEquals(new LoggerEventListener[] {shared, own}, combined);
+        assertSame(combined, logger.listeners());
+
+        final LoggerEventListener added = ev -> {};
+        factory.addListener(added);
+        assertArrayEquals(new LoggerEventListener[] {shared, added, own}, logger.listeners());
+
+        logger.removeListener(own);
+        assertArrayEquals(new LoggerEventListener[] {shared, added}, logger.listeners());
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Level;
+import com.speedment.common.logger.Logger;
+import org.junit.jupiter.api.Test;
+import org.slf4j.impl.TestBackendLogger;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class ThrottlerTest {
+
+    private final static long WINDOW_MILLIS = 50;
+
+    @Test
+    void repeatsAreReportedOnNextCallAfterWindow() throws Exception {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.setThrottle("throttle.sweep", Level.INFO,
+            new Throttle(0, 0, WINDOW_MILLIS, TimeUnit.MILLISECONDS));
+
+        final Logger logger = factory.create("throttle.sweep.Logger");
+        for (int i = 0; i < 5; i++) {
+            logger.info("Connection lost");
+        }
+
+        Thread.sleep(2 * WINDOW_MILLIS);
+        logger.info("Something else");
+
+        assertEquals(asList(
+            "Connection lost",
+            "The previous message was repeated 4 times: Connection lost",
+            "Something else"
+        ), messages("throttle.sweep.Logger"));
+    }
+
+    @Test
+    void repeatsAreNotReportedBeforeWindowEnds() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.setThrottle("throttle.open", Level.INFO,
+            new Throttle(0, 0, 1, TimeUnit.HOURS));
+
+        final Logger logger = factory.create("throttle.open.Logger");
+        logger.info("Connection lost");
+        logger.info("Connection lost");
+        logger.info("Something else");
+
+        assertEquals(asList("Connection lost", "Something else"),
+            messages("throttle.open.Logger"));
+    }
+
+    @Test
+    void removingThrottleReportsPendingRepeats() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.setThrottle("throttle.removed", Level.INFO,
+            new Throttle(0, 0, 1, TimeUnit.HOURS));
+
+        final Logger logger = factory.create("throttle.removed.Logger");
+        logger.info("Connection lost");
+        logger.info("Connection lost");
+        logger.info("Connection lost");
+        factory.removeThrottle("throttle.removed");
+
+        assertEquals(asList(
+            "Connection lost",
+            "The previous message was repeated 2 times: Connection lost"
+        ), messages("throttle.removed.Logger"));
+    }
+
+    @Test
+    void nullMessagesAreNotTakenForDuplicates() {
+        final Slf4jLoggerFactory factory = new Slf4jLoggerFactory();
+        factory.setThrottle("throttle.null", Level.INFO,
+            new Throttle(0, 0, 1, TimeUnit.HOURS));
+
+        final Slf4jLogger logger = (Slf4jLogger) factory.create("throttle.null.Logger");
+        logger.info((String) null);
+        logger.info((String) null);
+        try (LogBatch batch = logger.batch(Level.INFO)) {
+            batch.add(null);
+        }
+
+        assertEquals(asList(null, null, null), messages("throttle.null.Logger"));
+    }
+
+    private static List<String> messages(String name) {
+        return TestBackendLogger.get(name).entries().stream()
+            .map(TestBackendLogger.Entry::getMessage)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.slf4j.impl;
+
+import org.slf4j.ILoggerFactory;
+import org.slf4j.spi.LoggerFactoryBinder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Binds Slf4j to the {@link TestBackendLogger} in the tests.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class StaticLoggerBinder implements LoggerFactoryBinder {
+
+    // Expected by org.slf4j.LoggerFactory, must not be final
+    public static String REQUESTED_API_VERSION = "1.7.25";
+
+    private static final StaticLoggerBinder SINGLETON = new StaticLoggerBinder();
+
+    public static StaticLoggerBinder getSingleton() {
+        return SINGLETON;
+    }
+
+    private final ConcurrentMap<String, TestBackendLogger> loggers;
+    private final ILoggerFactory factory;
+
+    private StaticLoggerBinder() {
+        this.loggers = new ConcurrentHashMap<>();
+        this.factory = this::getLogger;
+    }
+
+    @Override
+    public ILoggerFactory getLoggerFactory() {
+        return factory;
+    }
+
+    @Override
+    public String getLoggerFactoryClassStr() {
+        return TestBackendLogger.class.getName();
+    }
+
+    TestBackendLogger getLogger(String name) {
+        return loggers.computeIfAbsent(name, TestBackendLogger::new);
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.slf4j.impl;
+
+import org.slf4j.helpers.BasicMDCAdapter;
+import org.slf4j.spi.MDCAdapter;
+
+/**
+ * Gives Slf4j a working MDC in the tests.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class StaticMDCBinder {
+
+    // Expected by org.slf4j.MDC
+    public static final StaticMDCBinder SINGLETON = new StaticMDCBinder();
+
+    public static StaticMDCBinder getSingleton() {
+        return SINGLETON;
+    }
+
+    private final MDCAdapter adapter;
+
+    private StaticMDCBinder() {
+        this.adapter = new BasicMDCAdapter();
+    }
+
+    public MDCAdapter getMDCA() {
+        return adapter;
+    }
+
+    public String getMDCAdapterClassStr() {
+        return BasicMDCAdapter.class.getName();
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.slf4j.impl;
+
+import org.slf4j.event.Level;
+import org.slf4j.helpers.FormattingTuple;
+import org.slf4j.helpers.MarkerIgnoringBase;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Slf4j logger that keeps every message it receives, so that the tests can
+ * check what the adapter sent to the backend. Like a real backend, messages
+ * with a disabled level are discarded. The lowest enabled level can be changed
+ * at any time, like a backend that is reconfigured at runtime.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+public final class TestBackendLogger extends MarkerIgnoringBase {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Returns the backend logger with the specified name, creating it if it
+     * does not exist yet.
+     *
+     * @param name  the logger name
+     * @return      the backend logger
+     */
+    public static TestBackendLogger get(String name) {
+        return StaticLoggerBinder.getSingleton().getLogger(name);
+    }
+
+    private volatile Level level; // Nullable, null means everything is disabled
+    private final transient List<Entry> entries;
+
+    TestBackendLogger(String name) {
+        this.name    = requireNonNull(name);
+        this.level   = Level.TRACE;
+        this.entries = new ArrayList<>();
+    }
+
+    /**
+     * Sets the lowest level that is enabled, or {@code null} to disable every
+     * level. The adapter is not told about the change.
+     *
+     * @param level  the lowest enabled level, or {@code null}
+     */
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Returns the messages received so far, in order.
+     *
+     * @return  a copy of the received messages
+     */
+    public List<Entry> entries() {
+        synchronized (entries) {
+            return new ArrayList<>(entries);
+        }
+    }
+
+    /**
+     * Forgets the messages received so far and enables every level again.
+     */
+    public void reset() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        level = Level.TRACE;
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return isEnabled(Level.TRACE);
+    }
+
+    @Override
+    public void trace(String msg) {
+        append(Level.TRACE, msg, null);
+    }
+
+    @Override
+    public void trace(String format, Object arg) {
+        append(Level.TRACE, format, new Object[] {arg});
+    }
+
+    @Override
+    public void trace(String format, Object arg1, Object arg2) {
+        append(Level.TRACE, format, new Object[] {arg1, arg2});
+    }
+
+    @Override
+    public void trace(String format, Object... arguments) {
+        append(Level.TRACE, format, arguments);
+    }
+
+    @Override
+    public void trace(String msg, Throwable t) {
+        append(Level.TRACE, msg, null, t);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    @Override
+    public void debug(String msg) {
+        append(Level.DEBUG, msg, null);
+    }
+
+    @Override
+    public void debug(String format, Object arg) {
+        append(Level.DEBUG, format, new Object[] {arg});
+    }
+
+    @Override
+    public void debug(String format, Object arg1, Object arg2) {
+        append(Level.DEBUG, format, new Object[] {arg1, arg2});
+    }
+
+    @Override
+    public void debug(String format, Object... arguments) {
+        append(Level.DEBUG, format, arguments);
+    }
+
+    @Override
+    public void debug(String msg, Throwable t) {
+        append(Level.DEBUG, msg, null, t);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return isEnabled(Level.INFO);
+    }
+
+    @Override
+    public void info(String msg) {
+        append(Level.INFO, msg, null);
+    }
+
+    @Override
+    public void info(String format, Object arg) {
+        append(Level.INFO, format, new Object[] {arg});
+    }
+
+    @Override
+    public void info(String format, Object arg1, Object arg2) {
+        append(Level.INFO, format, new Object[] {arg1, arg2});
+    }
+
+    @Override
+    public void info(String format, Object... arguments) {
+        append(Level.INFO, format, arguments);
+    }
+
+    @Override
+    public void info(String msg, Throwable t) {
+        append(Level.INFO, msg, null, t);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return isEnabled(Level.WARN);
+    }
+
+    @Override
+    public void warn(String msg) {
+        append(Level.WARN, msg, null);
+    }
+
+    @Override
+    public void warn(String format, Object arg) {
+        append(Level.WARN, format, new Object[] {arg});
+    }
+
+    @Override
+    public void warn(String format, Object arg1, Object arg2) {
+        append(Level.WARN, format, new Object[] {arg1, arg2});
+    }
+
+    @Override
+    public void warn(String format, Object... arguments) {
+        append(Level.WARN, format, arguments);
+    }
+
+    @Override
+    public void warn(String msg, Throwable t) {
+        append(Level.WARN, msg, null, t);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return isEnabled(Level.ERROR);
+    }
+
+    @Override
+    public void error(String msg) {
+        append(Level.ERROR, msg, null);
+    }
+
+    @Override
+    public void error(String format, Object arg) {
+        append(Level.ERROR, format, new Object[] {arg});
+    }
+
+    @Override
+    public void error(String format, Object arg1, Object arg2) {
+        append(Level.ERROR, format, new Object[] {arg1, arg2});
+    }
+
+    @Override
+    public void error(String format, Object... arguments) {
+        append(Level.ERROR, format, arguments);
+    }
+
+    @Override
+    public void error(String msg, Throwable t) {
+        append(Level.ERROR, msg, null, t);
+    }
+
+    private boolean isEnabled(Level lvl) {
+        final Level lowest = level;
+        return lowest != null && lvl.toInt() >= lowest.toInt();
+    }
+
+    private void append(Level lvl, String format, Object[] arguments) {
+        if (!isEnabled(lvl)) {
+            return;
+        }
+
+        final FormattingTuple tuple = MessageFormatter.arrayFormat(format, arguments);
+        append(lvl, tuple.getMessage(), arguments, tuple.getThrowable());
+    }
+
+    private void append(Level lvl, String message, Object[] arguments, Throwable thrw) {
+        if (!isEnabled(lvl)) {
+            return;
+        }
+
+        synchronized (entries) {
+            entries.add(new Entry(lvl, message, arguments, thrw));
+        }
+    }
+
+    /**
+     * A message received by the backend.
+     */
+    public static final class Entry {
+
+        private final Level level;
+        private final String message;
+        private final Object[] arguments; // Nullable
+        private final Throwable throwable; // Nullable
+
+        private Entry(Level level, String message, Object[] arguments, Throwable throwable) {
+            this.level     = level;
+            this.message   = message;
+            this.arguments = arguments;
+            this.throwable = throwable;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public Object[] getArguments() {
+            return arguments;
+        }
+
+        public Throwable getThrowable() {
+            return throwable;
+        }
+
+        @Override
+        public String toString() {
+            return level + " " + message;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ *
+ * Copyright (c) 2018, Emil Forslund. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.github.pyknic.speedmentslf4j;
+
+import com.speedment.common.logger.Logger;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.slf4j.impl.TestBackendLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Only compiled on Java 11 and later, and only run against the jar, since
+ * the Java 8 version of {@link JfrSupport} in {@code target/classes} does
+ * nothing. Failsafe also runs it without the {@code jdk.jfr} module.
+ *
+ * @author Emil Forslund
+ * @since  1.1.0
+ */
+final class JfrSupportTest {
+
+    private final static String EVENT = "com.github.pyknic.speedmentslf4j.Log";
+
+    @Test
+    void eventsAreRecorded() throws IOException {
+        assumeTrue(Platform.version() >= 11, "Not run against the jar");
+        assumeTrue(hasJfr(), "No jdk.jfr module");
+        assertTrue(JfrSupport.isAvailable());
+
+        final Logger logger = new Slf4jLoggerFactory().create("jfr.recorded");
+        final List<String> events = Recorder.record("jfr.recorded", () -> {
+            logger.info("Streaming from {}", "user");
+            logger.debug("Not enabled");
+            logger.warn("Done");
+        });
+
+        assertEquals(asList("INFO Streaming from {}", "WARN Done"), events);
+    }
+
+    @Test
+    void loggingWorksWithoutJfr() {
+        assumeTrue(Platform.version() >= 11, "Not run against the jar");
+        assumeTrue(!hasJfr(), "The jdk.jfr module is present");
+        assertFalse(JfrSupport.isAvailable());
+
+        final Logger logger = new Slf4jLoggerFactory().create("jfr.missing");
+        logger.info("Streaming from {}", "user");
+        assertEquals(1, TestBackendLogger.get("jfr.missing").entries().size());
+    }
+
+    // The classes of JFR are only referenced from here, so that the test
+    // class can be loaded without them
+    private final static class Recorder {
+
+        // Returns the level and format of the events from the logger
+        private static List<String> record(String logger, Runnable logging) throws IOException {
+            final Path file = Files.createTempFile("speedment", ".jfr");
+            try {
+                try (Recording recording = new Recording()) {
+                    recording.enable(EVENT);
+                    recording.start();
+                    logging.run();
+                    recording.stop();
+                    recording.dump(file);
+                }
+
+                final List<String> events = new ArrayList<>();
+                for (final RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                    if (event.getEventType().getName().equals(EVENT)
+                    &&  logger.equals(event.getString("logger"))) {
+                        events.add(event.getString("level") + " " + event.getString("format"));
+                    }
+                }
+                return events;
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static boolean hasJfr() {
+        return ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+    }
+}